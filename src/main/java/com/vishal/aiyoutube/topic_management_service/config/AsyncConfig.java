@@ -0,0 +1,26 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration class for the executors backing the non-blocking submission path.
+ * The Groq call itself runs on Netty event loops; only the short blocking JPA work
+ * (cache-table lookups, find-or-create) is handed to this executor.
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Virtual-thread executor for blocking persistence steps of async submissions.
+     * Virtual threads are cheap enough to create per task; actual DB concurrency
+     * remains bounded by the Hikari connection pool.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService topicTaskExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
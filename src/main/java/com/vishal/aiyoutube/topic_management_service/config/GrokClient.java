@@ -1,24 +1,36 @@
 package com.vishal.aiyoutube.topic_management_service.config;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vishal.aiyoutube.topic_management_service.dto.GrokChatResponse;
 import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Client component for interacting with the Groq Cloud API (utilizing Llama-3 models).
  * This class handles the construction of chat completion requests and extracts
  * AI-generated content for SEO normalization and search optimization.
+ * Request bodies are rendered from pre-serialized templates and responses are read with a
+ * streaming parser, so the hot path allocates little beyond the user prompt and the answer.
  */
 @Slf4j
 @Component
@@ -30,6 +42,16 @@ public class GrokClient {
      */
     private final WebClient grokWebClient;
 
+    /**
+     * Adaptive limiter bounding concurrent Groq calls; excess calls queue briefly or are shed.
+     */
+    private final GrokConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Decides when a slow call is hedged with a second request, and caps how often.
+     */
+    private final GrokHedgePolicy hedgePolicy;
+
     @Value("${grok.api-key}")
     private String apiKey;
 
@@ -40,74 +62,301 @@ public class GrokClient {
     private Double temperature;
 
     /**
-     * Local Jackson ObjectMapper configured with a 'lenient' strategy.
-     * It ensures the application doesn't crash if Groq adds new fields to their API response.
+     * Upper bound on completion tokens; normalization only ever needs a handful of keywords.
+     */
+    @Value("${grok.max-tokens:32}")
+    private Integer maxTokens;
+
+    /**
+     * Sequences at which Groq stops generating (escaped form, e.g. "\\n"; see {@link #unescape}).
+     */
+    private List<String> stopSequences = List.of();
+
+    /**
+     * Whether {@link #chatAsync(String, String, Predicate)} streams the completion.
+     */
+    @Value("${grok.streaming.enabled:true}")
+    private boolean streamingEnabled;
+
+    /**
+     * Mapper used once per template to pre-serialize the constant part of request bodies.
      */
-    private final ObjectMapper lenientMapper = new ObjectMapper()
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ObjectMapper templateMapper = new ObjectMapper();
+
+    /**
+     * Streaming reader for responses. Extracts only the fields we use, so unknown fields
+     * Groq adds to their API response are skipped rather than bound.
+     */
+    private final GrokCompletionParser completionParser = new GrokCompletionParser();
+
+    /**
+     * Pre-serialized request bodies, one per (system prompt, model, streaming) combination.
+     */
+    private final Map<TemplateKey, GrokRequestTemplate> requestTemplates = new ConcurrentHashMap<>();
+
+    private record TemplateKey(String systemPrompt, String model, boolean stream) {
+    }
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    /**
+     * Sentinel data payload terminating an OpenAI-compatible completion stream.
+     */
+    private static final String STREAM_DONE = "[DONE]";
+
+    /**
+     * Property values cannot carry a bare newline through list conversion (elements are trimmed),
+     * so stop sequences are configured escaped and unescaped here.
+     */
+    @Value("${grok.stop-sequences:}")
+    void setStopSequences(List<String> configured) {
+        this.stopSequences = configured.stream()
+                .filter(sequence -> !sequence.isEmpty())
+                .map(GrokClient::unescape)
+                .toList();
+    }
+
+    private static String unescape(String sequence) {
+        return sequence.replace("\\n", "\n").replace("\\t", "\t");
+    }
 
     /**
      * Sends a synchronous chat completion request to the AI model.
+     * Blocks the calling thread for the full Groq latency; prefer {@link #chatAsync} on request paths.
      * * @param systemPrompt The background instructions (e.g., "You are an SEO expert").
      * @param userPrompt   The raw user input query.
      * @return The AI's text response (normalized keywords).
      * @throws AnalysisProcessingException if the API call or parsing fails.
      */
     public String chat(String systemPrompt, String userPrompt) {
-        // 1. Prepare Request Body: Constructing the standard Chat Completion JSON structure
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", model);
-        requestBody.put("temperature", temperature);
+        return chatAsync(systemPrompt, userPrompt).block();
+    }
 
-        List<Map<String, String>> messages = new ArrayList<>();
-        messages.add(Map.of("role", "system", "content", systemPrompt));
-        messages.add(Map.of("role", "user", "content", userPrompt));
-        requestBody.put("messages", messages);
+    /**
+     * Sends a non-blocking chat completion request to the AI model.
+     * No thread is held while waiting for Groq; the returned Mono completes on a Netty event loop.
+     * The call runs under {@link GrokConcurrencyLimiter} and errors with GrokOverloadedException when shed.
+     * * @param systemPrompt The background instructions (e.g., "You are an SEO expert").
+     * @param userPrompt   The raw user input query.
+     * @return A Mono emitting the AI's text response, or erroring with AnalysisProcessingException.
+     */
+    public Mono<String> chatAsync(String systemPrompt, String userPrompt) {
+        return hedged(callModel -> complete(systemPrompt, userPrompt, callModel));
+    }
 
-        log.debug("Sending query to Groq Cloud using model: {}", model);
+    private Mono<String> complete(String systemPrompt, String userPrompt, String callModel) {
+        log.debug("Sending query to Groq Cloud using model: {}", callModel);
 
         // 2. Execute Request: Using WebClient to post the payload and handle status errors
-        String rawResponse = grokWebClient.post()
+        return concurrencyLimiter.run(() -> grokWebClient.post()
                 .uri("/openai/v1/chat/completions")
                 .header("Authorization", "Bearer " + apiKey)
                 .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
+                .bodyValue(renderRequestBody(systemPrompt, userPrompt, callModel, false))
                 .retrieve()
-                .onStatus(status -> status.isError(), response ->
-                        response.bodyToMono(String.class)
-                                .map(body -> {
-                                    log.error("Groq API Error: {}", body);
-                                    return new AnalysisProcessingException("Groq API communication failed: " + body, null);
-                                })
-                )
-                .bodyToMono(String.class)
-                .block(); // Synchronous block to wait for the normalization before proceeding
+                .onStatus(status -> status.isError(), this::toApiException)
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join)
+                .map(this::extractContent));
+    }
 
-        // 3. Parse and Log Usage: Extracting the content and monitoring token consumption
+    /**
+     * Sends a chat completion request and returns as soon as the caller has enough text.
+     * * STREAMING MODE (grok.streaming.enabled=true):
+     * Requests server-sent chunks, appends each delta to a buffer and completes the moment
+     * {@code sufficient} accepts the accumulated text. Completing cancels the subscription,
+     * which closes the upstream connection so Groq stops generating (and billing) tokens.
+     * When streaming is disabled this falls back to {@link #chatAsync(String, String)}.
+     *
+     * @param systemPrompt The background instructions.
+     * @param userPrompt   The raw user input query.
+     * @param sufficient   Decides whether the text received so far is usable.
+     * @return A Mono emitting the (possibly partial) completion text.
+     */
+    public Mono<String> chatAsync(String systemPrompt, String userPrompt, Predicate<CharSequence> sufficient) {
+        if (!streamingEnabled) {
+            return chatAsync(systemPrompt, userPrompt);
+        }
+        return hedged(callModel -> stream(systemPrompt, userPrompt, callModel, sufficient));
+    }
+
+    private Mono<String> stream(String systemPrompt, String userPrompt, String callModel, Predicate<CharSequence> sufficient) {
+        log.debug("Streaming query to Groq Cloud using model: {}", callModel);
+
+        return concurrencyLimiter.run(() -> grokWebClient.post()
+                .uri("/openai/v1/chat/completions")
+                .header("Authorization", "Bearer " + apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(renderRequestBody(systemPrompt, userPrompt, callModel, true))
+                .retrieve()
+                .onStatus(status -> status.isError(), this::toApiException)
+                .bodyToFlux(SSE_TYPE)
+                // Comment and keep-alive frames carry no data
+                .mapNotNull(ServerSentEvent::data)
+                .takeWhile(data -> !STREAM_DONE.equals(data))
+                .map(this::extractDelta)
+                .scanWith(StringBuilder::new, StringBuilder::append)
+                .takeUntil(sufficient)
+                .last()
+                .map(StringBuilder::toString)
+                .filter(content -> !content.isBlank())
+                .switchIfEmpty(Mono.error(() -> new AnalysisProcessingException("Groq stream ended without any content", null))));
+    }
+
+    /**
+     * HEDGING (grok.hedge.enabled=true):
+     * Issues the primary call and, if it is still outstanding after the policy's percentile delay
+     * and the hedge budget allows, a second call to the alternate (or same) model. The first value
+     * wins and the other call is cancelled, which closes its connection and frees its limiter permit.
+     * A failed hedge never wins, so the primary's outcome (value or error) stands.
+     */
+    private Mono<String> hedged(Function<String, Mono<String>> call) {
+        if (!hedgePolicy.isEnabled()) {
+            return call.apply(model);
+        }
+        Mono<String> primary = timed(call.apply(model), true);
+
+        String hedgeModel = hedgePolicy.getAlternateModel() != null ? hedgePolicy.getAlternateModel() : model;
+        Mono<String> hedge = Mono.delay(hedgePolicy.delay())
+                .filter(tick -> hedgePolicy.tryHedge())
+                .flatMap(tick -> {
+                    log.debug("Groq call exceeded {} ms; hedging with model: {}", hedgePolicy.delay().toMillis(), hedgeModel);
+                    return timed(call.apply(hedgeModel), false);
+                })
+                .doOnNext(content -> hedgePolicy.onHedgeWon())
+                .onErrorResume(e -> Mono.never())
+                .switchIfEmpty(Mono.never());
+
+        return Mono.defer(() -> {
+            hedgePolicy.onPrimary();
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /**
+     * Feeds the latency of every successful call into the hedge policy's percentile window.
+     * * CENSORED SAMPLES:
+     * A primary that is cancelled (it lost to the hedge, or the caller's latency budget ran out) is
+     * sampled with its elapsed time, a lower bound of its real latency. Dropping it would leave only
+     * the fast calls in the window, so the delay would shrink and hedging grow ever more aggressive.
+     * A cancelled hedge is not sampled: it started late, so its elapsed time says nothing of the tail.
+     *
+     * @param sampleOnCancel Whether a cancelled call is sampled with its elapsed time.
+     */
+    private Mono<String> timed(Mono<String> call, boolean sampleOnCancel) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicBoolean sampled = new AtomicBoolean();
+            Runnable sample = () -> {
+                if (sampled.compareAndSet(false, true)) {
+                    hedgePolicy.recordLatency(System.nanoTime() - startNanos);
+                }
+            };
+            Mono<String> timedCall = call.doOnNext(content -> sample.run());
+            return sampleOnCancel ? timedCall.doOnCancel(sample) : timedCall;
+        });
+    }
+
+    /**
+     * Renders the request body bytes from the cached template for this system prompt.
+     */
+    byte[] renderRequestBody(String systemPrompt, String userPrompt, boolean stream) {
+        return renderRequestBody(systemPrompt, userPrompt, model, stream);
+    }
+
+    private byte[] renderRequestBody(String systemPrompt, String userPrompt, String callModel, boolean stream) {
+        return requestTemplates
+                .computeIfAbsent(new TemplateKey(systemPrompt, callModel, stream), this::compileTemplate)
+                .render(userPrompt);
+    }
+
+    /**
+     * Builds the standard Chat Completion JSON structure, including token and stop limits,
+     * with a marker in place of the user prompt, and pre-serializes it.
+     */
+    private GrokRequestTemplate compileTemplate(TemplateKey key) {
+        // 1. Prepare Request Body: Constructing the standard Chat Completion JSON structure
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("model", key.model());
+        requestBody.put("temperature", temperature);
+        requestBody.put("max_tokens", maxTokens);
+        if (!stopSequences.isEmpty()) {
+            requestBody.put("stop", stopSequences);
+        }
+        if (key.stream()) {
+            requestBody.put("stream", true);
+            // Usage then arrives on the final chunk; streams cancelled at the first usable line never see it
+            requestBody.put("stream_options", Map.of("include_usage", true));
+        }
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", key.systemPrompt()),
+                Map.of("role", "user", "content", GrokRequestTemplate.USER_PROMPT_MARKER)));
+
+        return GrokRequestTemplate.compile(templateMapper, requestBody);
+    }
+
+    /**
+     * Converts a Groq error response into an AnalysisProcessingException carrying the body.
+     */
+    private Mono<AnalysisProcessingException> toApiException(ClientResponse response) {
+        return response.bodyToMono(String.class)
+                .map(body -> {
+                    log.error("Groq API Error: {}", body);
+                    return new AnalysisProcessingException("Groq API communication failed: " + body, null);
+                });
+    }
+
+    /**
+     * Parses one streamed chunk and returns its content delta (empty for role-only or final chunks).
+     * Logs token usage when the chunk carries it.
+     */
+    private String extractDelta(String chunk) {
+        GrokCompletionParser.Completion completion;
         try {
-            GrokChatResponse response = lenientMapper.readValue(rawResponse, GrokChatResponse.class);
-
-            if (response.getChoices() == null || response.getChoices().isEmpty()) {
-                throw new AnalysisProcessingException("Groq returned empty choices in response", null);
-            }
-
-            /**
-             * TOKEN MONITORING:
-             * Essential for tracking Free Tier quotas (e.g., 100k tokens/day).
-             * Logs the prompt and completion tokens used for each SEO normalization.
-             */
-            if (response.getUsage() != null) {
-                log.info("Groq Token Usage -> Prompt: {}, Completion: {}, Total: {}",
-                        response.getUsage().getPrompt_tokens(),
-                        response.getUsage().getCompletion_tokens(),
-                        response.getUsage().getTotal_tokens());
-            }
-
-            return response.getChoices().get(0).getMessage().getContent();
+            completion = completionParser.parseChunk(chunk);
+        } catch (Exception e) {
+            log.error("Failed to parse Groq stream chunk: {}", chunk);
+            throw new AnalysisProcessingException("AI Stream Parsing Failed", e);
+        }
+        logUsage(completion.usage());
+        return completion.content() == null ? "" : completion.content();
+    }
 
+    /**
+     * Parses the completion payload straight from the response buffers and extracts the
+     * first choice's message content. The buffer is released once read.
+     */
+    private String extractContent(DataBuffer body) {
+        // 3. Parse and Log Usage: Extracting the content and monitoring token consumption
+        GrokCompletionParser.Completion completion;
+        try (InputStream in = body.asInputStream(true)) {
+            completion = completionParser.parseCompletion(in);
         } catch (Exception e) {
-            log.error("Failed to parse Groq response. Raw body: {}", rawResponse);
+            log.error("Failed to parse Groq response: {}", e.getMessage());
             throw new AnalysisProcessingException("AI Response Parsing Failed", e);
         }
+
+        if (!completion.hasChoices()) {
+            throw new AnalysisProcessingException("Groq returned empty choices in response", null);
+        }
+
+        logUsage(completion.usage());
+        return completion.content();
+    }
+
+    /**
+     * TOKEN MONITORING:
+     * Essential for tracking Free Tier quotas (e.g., 100k tokens/day).
+     * Logs the prompt and completion tokens used for each SEO normalization.
+     */
+    private void logUsage(GrokChatResponse.Usage usage) {
+        if (usage != null) {
+            log.info("Groq Token Usage -> Prompt: {}, Completion: {}, Total: {}",
+                    usage.getPrompt_tokens(),
+                    usage.getCompletion_tokens(),
+                    usage.getTotal_tokens());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.vishal.aiyoutube.topic_management_service.dto.GrokChatResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Token-level reader for Groq Chat Completion payloads.
+ * Pulls only choices[0].message.content (or choices[0].delta.content for stream chunks)
+ * and the usage counters straight off a Jackson streaming parser, skipping everything else
+ * without materializing the body as a String or binding a full GrokChatResponse tree.
+ */
+final class GrokCompletionParser {
+
+    /**
+     * The extracted parts of a completion.
+     *
+     * @param hasChoices Whether the 'choices' array contained at least one element.
+     * @param content    The first choice's content; null when absent.
+     * @param usage      Token usage, or null when the payload carries none.
+     */
+    record Completion(boolean hasChoices, String content, GrokChatResponse.Usage usage) {
+    }
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Parses a full (non-streamed) completion response.
+     */
+    Completion parseCompletion(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parse(parser, "message");
+        }
+    }
+
+    /**
+     * Parses one streamed chunk. Its content is the delta (null for role-only or final chunks);
+     * usage is only present on the final chunk, and only when stream_options.include_usage was requested.
+     */
+    Completion parseChunk(String chunk) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(chunk)) {
+            return parse(parser, "delta");
+        }
+    }
+
+    private Completion parse(JsonParser parser, String messageField) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object at the root of the Groq payload");
+        }
+
+        boolean hasChoices = false;
+        String content = null;
+        GrokChatResponse.Usage usage = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (!hasChoices && parser.currentToken() == JsonToken.START_OBJECT) {
+                        content = readChoiceContent(parser, messageField);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    hasChoices = true;
+                }
+            } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                usage = readUsage(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Completion(hasChoices, content, usage);
+    }
+
+    /**
+     * Reads one choice object, returning {@code <messageField>.content}. Leaves the parser on its END_OBJECT.
+     */
+    private String readChoiceContent(JsonParser parser, String messageField) throws IOException {
+        String content = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (messageField.equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String messageKey = parser.currentName();
+                    JsonToken messageValue = parser.nextToken();
+                    if ("content".equals(messageKey) && messageValue == JsonToken.VALUE_STRING) {
+                        content = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return content;
+    }
+
+    private GrokChatResponse.Usage readUsage(JsonParser parser) throws IOException {
+        GrokChatResponse.Usage usage = new GrokChatResponse.Usage();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_NUMBER_INT) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "prompt_tokens" -> usage.setPrompt_tokens(parser.getIntValue());
+                case "completion_tokens" -> usage.setCompletion_tokens(parser.getIntValue());
+                case "total_tokens" -> usage.setTotal_tokens(parser.getIntValue());
+                default -> { }
+            }
+        }
+        return usage;
+    }
+}
@@ -0,0 +1,334 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import com.vishal.aiyoutube.topic_management_service.exceptions.GrokOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Adaptive (AIMD) concurrency limiter wrapping every Groq call.
+ * * BEHAVIOUR:
+ * - Calls run immediately while fewer than {@code limit} are in flight; excess calls wait in a
+ *   bounded FIFO queue and are rejected with {@link GrokOverloadedException} when the queue is
+ *   full or their deadline passes, instead of piling up until the 30 second response timeout.
+ * - Additive increase: each successful call raises the limit by 1/limit (about +1 per "round").
+ * - Multiplicative decrease: a 429 halves the limit, a timeout shrinks it by 10%.
+ * - Rate-limit awareness: 'retry-after' on a 429, or an exhausted 'x-ratelimit-remaining-*'
+ *   budget with its 'x-ratelimit-reset-*' hint, pauses dispatching until Groq's window resets.
+ * * PERMITS:
+ * Each acquisition gets its own {@link Permit}, counted in flight from the moment it is granted
+ * (under the lock) and released at most once. A subscriber that cancels after the grant but before
+ * the permit reaches it (a latency-budget timeout, a losing hedge) never hands it to usingWhen,
+ * so the acquisition's own cancel hook returns it.
+ */
+@Slf4j
+@Component
+public class GrokConcurrencyLimiter {
+
+    private static final Pattern GROQ_DURATION = Pattern.compile("(?:(\\d+)h)?(?:(\\d+)m(?!s))?(?:([\\d.]+)s)?(?:([\\d.]+)ms)?");
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final Object lock = new Object();
+    private final Deque<Permit> queue = new ArrayDeque<>();
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final int queueCapacity;
+    private final Duration queueTimeout;
+
+    private double limit;
+    private int inFlight;
+    private long cooldownUntilNanos;
+
+    private final Counter queueFullRejections;
+    private final Counter deadlineRejections;
+
+    public GrokConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${grok.limiter.initial-limit:20}") int initialLimit,
+            @Value("${grok.limiter.min-limit:1}") int minLimit,
+            @Value("${grok.limiter.max-limit:200}") int maxLimit,
+            @Value("${grok.limiter.queue-capacity:500}") int queueCapacity,
+            @Value("${grok.limiter.queue-timeout:2s}") Duration queueTimeout
+    ) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.queueTimeout = queueTimeout;
+
+        Gauge.builder("grok.limiter.limit", this, GrokConcurrencyLimiter::currentLimit)
+                .description("Current adaptive concurrency limit for Groq calls")
+                .register(meterRegistry);
+        Gauge.builder("grok.limiter.in-flight", this, GrokConcurrencyLimiter::inFlight)
+                .description("Groq calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("grok.limiter.queue.depth", this, GrokConcurrencyLimiter::queueDepth)
+                .description("Groq calls waiting for a permit")
+                .register(meterRegistry);
+        this.queueFullRejections = Counter.builder("grok.limiter.rejections")
+                .description("Groq calls shed by the concurrency limiter")
+                .tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.deadlineRejections = Counter.builder("grok.limiter.rejections")
+                .description("Groq calls shed by the concurrency limiter")
+                .tag("reason", "deadline")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a Groq call once a permit is available, releasing the permit when the call
+     * completes, fails or is cancelled. Only successes grow the limit and only timeouts
+     * (and 429s, see {@link #observe}) shrink it; other failures are neutral.
+     *
+     * @param call Supplies the (lazy) Groq call.
+     * @return The call's result, or an error with GrokOverloadedException when shed.
+     */
+    public <T> Mono<T> run(Supplier<Mono<T>> call) {
+        return Mono.usingWhen(
+                acquire(),
+                permit -> call.get(),
+                permit -> Mono.fromRunnable(() -> release(permit, true)),
+                (permit, error) -> Mono.fromRunnable(() -> release(permit, isTimeout(error) ? null : false)),
+                permit -> Mono.fromRunnable(() -> release(permit, false)));
+    }
+
+    /**
+     * WebClient filter feeding Groq's rate-limit response headers back into the limiter.
+     */
+    public ExchangeFilterFunction rateLimitObserver() {
+        return ExchangeFilterFunction.ofResponseProcessor(response -> {
+            observe(response.statusCode(), response.headers().asHttpHeaders());
+            return Mono.just(response);
+        });
+    }
+
+    void observe(HttpStatusCode status, HttpHeaders headers) {
+        Duration pause = null;
+        if (status.value() == 429) {
+            pause = parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        } else if ("0".equals(headers.getFirst("x-ratelimit-remaining-requests"))) {
+            pause = parseGroqDuration(headers.getFirst("x-ratelimit-reset-requests"));
+        } else if ("0".equals(headers.getFirst("x-ratelimit-remaining-tokens"))) {
+            pause = parseGroqDuration(headers.getFirst("x-ratelimit-reset-tokens"));
+        }
+
+        synchronized (lock) {
+            if (status.value() == 429) {
+                limit = Math.max(minLimit, limit / 2);
+                log.warn("Groq rate limited the service; concurrency limit reduced to {}", (int) limit);
+            }
+            if (pause != null) {
+                cooldownUntilNanos = Math.max(cooldownUntilNanos, System.nanoTime() + pause.toNanos());
+                Schedulers.parallel().schedule(this::drain, pause.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            Permit permit = new Permit(sink);
+            // Registered before any grant, so a cancel racing the grant always finds the permit
+            sink.onCancel(() -> cancel(permit));
+
+            GrokOverloadedException rejection = null;
+            synchronized (lock) {
+                if (permit.cancelled) {
+                    return;
+                } else if (queue.isEmpty() && canDispatch()) {
+                    grant(permit);
+                } else if (queue.size() >= queueCapacity) {
+                    rejection = new GrokOverloadedException("Groq concurrency queue is full", retryAfter());
+                } else {
+                    queue.addLast(permit);
+                    Schedulers.parallel().schedule(() -> expire(permit), queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+            if (rejection != null) {
+                queueFullRejections.increment();
+                sink.error(rejection);
+            } else {
+                sink.success(permit);
+            }
+        });
+    }
+
+    /**
+     * Counts a permit in flight. Must hold the lock; the sink is completed after leaving it.
+     */
+    private void grant(Permit permit) {
+        permit.granted = true;
+        inFlight++;
+    }
+
+    /**
+     * Cancel hook of an acquisition: a queued permit leaves the queue, a granted one is released.
+     * When usingWhen already holds the permit it releases it too; {@link Permit#released} keeps that to one release.
+     */
+    private void cancel(Permit permit) {
+        boolean granted;
+        synchronized (lock) {
+            permit.cancelled = true;
+            queue.remove(permit);
+            granted = permit.granted;
+        }
+        if (granted) {
+            release(permit, false);
+        }
+    }
+
+    /**
+     * @param success true for success, false for a neutral outcome (error, cancel), null for a timeout.
+     */
+    private void release(Permit permit, Boolean success) {
+        if (!permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (lock) {
+            inFlight--;
+            if (success == null) {
+                limit = Math.max(minLimit, limit * 0.9);
+            } else if (success) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        List<Permit> granted = new ArrayList<>();
+        synchronized (lock) {
+            while (!queue.isEmpty() && canDispatch()) {
+                Permit permit = queue.pollFirst();
+                grant(permit);
+                granted.add(permit);
+            }
+        }
+        // A waiter cancelled since it was polled drops the value; its cancel hook has released the permit
+        granted.forEach(permit -> permit.sink.success(permit));
+    }
+
+    private void expire(Permit permit) {
+        boolean expired;
+        synchronized (lock) {
+            expired = queue.remove(permit);
+        }
+        if (expired) {
+            deadlineRejections.increment();
+            permit.sink.error(new GrokOverloadedException(
+                    "Groq call could not start within " + queueTimeout.toMillis() + " ms", retryAfter()));
+        }
+    }
+
+    private boolean canDispatch() {
+        return inFlight < Math.floor(limit) && System.nanoTime() - cooldownUntilNanos >= 0;
+    }
+
+    private Duration retryAfter() {
+        long cooldownNanos = cooldownUntilNanos - System.nanoTime();
+        return cooldownNanos > 0 ? Duration.ofNanos(cooldownNanos) : DEFAULT_RETRY_AFTER;
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof io.netty.handler.timeout.TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Duration parseRetryAfter(String value) {
+        if (value == null) {
+            return DEFAULT_RETRY_AFTER;
+        }
+        try {
+            return Duration.ofMillis((long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_AFTER;
+        }
+    }
+
+    /**
+     * Parses Groq's reset hints, e.g. "2m59.56s", "7.66s" or "120ms".
+     */
+    static Duration parseGroqDuration(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = GROQ_DURATION.matcher(value.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        double millis = 0;
+        if (matcher.group(1) != null) millis += Long.parseLong(matcher.group(1)) * 3_600_000d;
+        if (matcher.group(2) != null) millis += Long.parseLong(matcher.group(2)) * 60_000d;
+        if (matcher.group(3) != null) millis += Double.parseDouble(matcher.group(3)) * 1000d;
+        if (matcher.group(4) != null) millis += Double.parseDouble(matcher.group(4));
+        return Duration.ofMillis((long) millis);
+    }
+
+    public double currentLimit() {
+        synchronized (lock) {
+            return limit;
+        }
+    }
+
+    public int inFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    public int queueDepth() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * One acquisition: waits in the queue until granted, then counts in flight until released once.
+     */
+    private static final class Permit {
+
+        private final MonoSink<Permit> sink;
+
+        /**
+         * Set under the lock when the permit is counted in flight.
+         */
+        private boolean granted;
+
+        /**
+         * Set under the lock by the cancel hook, which may run before the acquisition reaches the lock.
+         */
+        private boolean cancelled;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
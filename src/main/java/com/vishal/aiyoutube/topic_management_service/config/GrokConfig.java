@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 
 import java.time.Duration;
@@ -22,31 +23,49 @@ public class GrokConfig {
      * * @param baseUrl The endpoint of the Groq API (e.g., https://api.groq.com).
      * @param timeoutSeconds The maximum duration to wait for an AI response before
      * terminating the request to prevent thread hanging.
+     * @param maxConnections Upper bound on concurrent HTTP connections to Groq. Because calls are
+     * non-blocking, this (not the servlet thread pool) caps concurrent in-flight normalizations.
+     * @param concurrencyLimiter Receives Groq's rate-limit headers from every response.
      * @return A configured WebClient instance.
      */
     @Bean
     public WebClient grokWebClient(
             @Value("${grok.base-url}") String baseUrl,
-            @Value("${grok.timeout-seconds}") int timeoutSeconds
+            @Value("${grok.timeout-seconds}") int timeoutSeconds,
+            @Value("${grok.max-connections:1000}") int maxConnections,
+            GrokConcurrencyLimiter concurrencyLimiter
     ) {
 
+        /**
+         * CONNECTION POOL:
+         * Reactor Netty's default pool is sized for a handful of cores. Submissions no longer
+         * pin a servlet thread while waiting for Groq, so the pool must be wide enough to hold
+         * every in-flight request; excess acquirers wait for a free connection.
+         */
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("grok")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+
         /**
          * HTTP CLIENT CUSTOMIZATION:
          * We create a specialized Netty HttpClient to enforce response timeouts.
          * This is critical because LLM APIs can occasionally have high latency,
          * and we don't want our microservice resources locked indefinitely.
          */
-        HttpClient httpClient = HttpClient.create()
+        HttpClient httpClient = HttpClient.create(connectionProvider)
                 .responseTimeout(Duration.ofSeconds(timeoutSeconds));
 
         /**
          * WEBCLIENT BUILDER:
          * Uses the ReactorClientHttpConnector to link the Netty HttpClient settings
-         * with the Spring WebClient abstraction.
+         * with the Spring WebClient abstraction. The limiter's filter observes
+         * 'retry-after' and 'x-ratelimit-*' headers before the body is read.
          */
         return WebClient.builder()
                 .baseUrl(baseUrl)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(concurrencyLimiter.rateLimitObserver())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Decides when (and whether) GrokClient issues a hedged second request.
+ * * DELAY:
+ * The hedge fires once the primary call has been outstanding longer than the configured
+ * percentile of recent Groq latencies (e.g. p95), so only the slow tail is duplicated.
+ * Until enough samples exist, the configured initial delay is used.
+ * * BUDGET:
+ * Every primary call earns {@code max-rate} hedge credits and every hedge spends one, so at most
+ * that fraction of calls (e.g. 5%) is ever duplicated, whatever the latency distribution does.
+ */
+@Component
+public class GrokHedgePolicy {
+
+    private static final int SAMPLE_WINDOW = 1024;
+    private static final int MIN_SAMPLES = 100;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final double MAX_CREDITS = 10;
+
+    @Getter
+    private final boolean enabled;
+
+    /**
+     * Model used for the hedge; the primary model when no alternate is configured.
+     */
+    @Getter
+    private final String alternateModel;
+
+    private final double percentile;
+    private final double maxRate;
+
+    private final Object lock = new Object();
+    private final long[] samplesNanos = new long[SAMPLE_WINDOW];
+    private int sampleCount;
+    private int nextSample;
+    private long delayNanos;
+    private double credits;
+
+    private final Counter hedgesIssued;
+    private final Counter hedgesWon;
+    private final Counter hedgesSkipped;
+
+    public GrokHedgePolicy(
+            MeterRegistry meterRegistry,
+            @Value("${grok.hedge.enabled:false}") boolean enabled,
+            @Value("${grok.hedge.percentile:0.95}") double percentile,
+            @Value("${grok.hedge.initial-delay:1s}") Duration initialDelay,
+            @Value("${grok.hedge.max-rate:0.05}") double maxRate,
+            @Value("${grok.hedge.alternate-model:}") String alternateModel
+    ) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.delayNanos = initialDelay.toNanos();
+        this.maxRate = maxRate;
+        this.alternateModel = alternateModel.isBlank() ? null : alternateModel.trim();
+
+        Gauge.builder("grok.hedge.delay", this, policy -> policy.delay().toMillis())
+                .description("Current delay before a hedged Groq request is issued (ms)")
+                .register(meterRegistry);
+        this.hedgesIssued = Counter.builder("grok.hedge.requests")
+                .description("Hedged Groq requests")
+                .tag("outcome", "issued")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("grok.hedge.requests")
+                .description("Hedged Groq requests")
+                .tag("outcome", "won")
+                .register(meterRegistry);
+        this.hedgesSkipped = Counter.builder("grok.hedge.requests")
+                .description("Hedged Groq requests")
+                .tag("outcome", "skipped-budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Credits the hedge budget for one primary call.
+     */
+    public void onPrimary() {
+        synchronized (lock) {
+            credits = Math.min(MAX_CREDITS, credits + maxRate);
+        }
+    }
+
+    /**
+     * Spends one hedge credit if available.
+     *
+     * @return Whether a hedge may be issued now.
+     */
+    public boolean tryHedge() {
+        synchronized (lock) {
+            if (credits >= 1) {
+                credits -= 1;
+                hedgesIssued.increment();
+                return true;
+            }
+        }
+        hedgesSkipped.increment();
+        return false;
+    }
+
+    public void onHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    /**
+     * Records the latency of a completed Groq call (or the elapsed time of a cancelled primary)
+     * and periodically refreshes the hedge delay.
+     */
+    public void recordLatency(long latencyNanos) {
+        synchronized (lock) {
+            samplesNanos[nextSample] = latencyNanos;
+            nextSample = (nextSample + 1) % SAMPLE_WINDOW;
+            sampleCount++;
+            if (sampleCount >= MIN_SAMPLES && sampleCount % RECOMPUTE_EVERY == 0) {
+                long[] window = Arrays.copyOf(samplesNanos, Math.min(sampleCount, SAMPLE_WINDOW));
+                Arrays.sort(window);
+                delayNanos = window[(int) Math.min(window.length - 1, Math.ceil(percentile * window.length) - 1)];
+            }
+        }
+    }
+
+    public Duration delay() {
+        synchronized (lock) {
+            return Duration.ofNanos(delayNanos);
+        }
+    }
+
+    int sampleCount() {
+        synchronized (lock) {
+            return sampleCount;
+        }
+    }
+}
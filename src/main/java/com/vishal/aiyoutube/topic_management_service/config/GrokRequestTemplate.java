@@ -0,0 +1,90 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Pre-serialized Chat Completion request body.
+ * * HOW IT WORKS:
+ * The constant part of the request (model, limits, the long system prompt) is serialized once
+ * with a marker in place of the user prompt and split into prefix/suffix bytes around it.
+ * Rendering a request then only JSON-escapes the user prompt and concatenates three arrays,
+ * instead of building maps and re-serializing the system prompt on every call.
+ */
+final class GrokRequestTemplate {
+
+    /**
+     * Placeholder written where the user prompt goes. Contains no characters JSON would escape,
+     * so it appears verbatim in the serialized bytes.
+     */
+    static final String USER_PROMPT_MARKER = "__GROK_USER_PROMPT_MARKER__";
+
+    private static final byte[] MARKER_BYTES = USER_PROMPT_MARKER.getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    private GrokRequestTemplate(byte[] prefix, byte[] suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Serializes a request body whose user message content is {@link #USER_PROMPT_MARKER}.
+     *
+     * @param mapper      Mapper used for the one-off serialization.
+     * @param requestBody Complete request body containing the marker exactly once.
+     * @return The reusable template.
+     */
+    static GrokRequestTemplate compile(ObjectMapper mapper, Map<String, Object> requestBody) {
+        byte[] serialized;
+        try {
+            serialized = mapper.writeValueAsBytes(requestBody);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize Groq request template", e);
+        }
+
+        int markerAt = indexOf(serialized, MARKER_BYTES);
+        if (markerAt < 0) {
+            throw new IllegalStateException("Groq request template is missing the user prompt marker");
+        }
+
+        byte[] prefix = new byte[markerAt];
+        byte[] suffix = new byte[serialized.length - markerAt - MARKER_BYTES.length];
+        System.arraycopy(serialized, 0, prefix, 0, prefix.length);
+        System.arraycopy(serialized, markerAt + MARKER_BYTES.length, suffix, 0, suffix.length);
+        return new GrokRequestTemplate(prefix, suffix);
+    }
+
+    /**
+     * Renders the request body for one user prompt.
+     *
+     * @param userPrompt The raw user prompt; JSON-escaped before splicing.
+     * @return UTF-8 JSON bytes, sized exactly.
+     */
+    byte[] render(String userPrompt) {
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(userPrompt);
+        byte[] body = new byte[prefix.length + escaped.length + suffix.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(escaped, 0, body, prefix.length, escaped.length);
+        System.arraycopy(suffix, 0, body, prefix.length + escaped.length, suffix.length);
+        return body;
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
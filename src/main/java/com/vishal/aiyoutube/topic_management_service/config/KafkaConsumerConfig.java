@@ -1,24 +1,67 @@
 package com.vishal.aiyoutube.topic_management_service.config;
 
+import com.vishal.aiyoutube.topic_management_service.kafka.consumer.KeyOrderedDispatcher;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import com.vishal.aiyoutube.topic_management_service.kafka.serde.EventDeserializer;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.ContainerPartitionPausingBackOffManager;
+import org.springframework.kafka.listener.ContainerPausingBackOffHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.KafkaConsumerBackoffManager;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.listener.SeekUtils;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
+@Slf4j
 @Configuration
 public class KafkaConsumerConfig {
 
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(KafkaConsumerConfig.class);
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    /**
+     * Consumer threads per listener. Topic writes are optimistically versioned and retried on
+     * conflict (TopicWriteRetry), so partitions can be consumed in parallel.
+     */
+    @Value("${topic.kafka.listener.concurrency:1}")
+    private int listenerConcurrency;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -27,10 +70,16 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "topic-service-group-v10");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        // JSON or Smile, per record by its content-type header (JSON when absent). A record that cannot be
+        // read (unknown content-type, corrupt payload) reaches the container as a failure to dead-letter
+        // (deserializationFailureRecoverer), instead of failing every poll on the same offset.
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, EventDeserializer.class);
 
         // Security & Trust Settings
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.vishal.aiyoutube.*");
+        // Type id headers stay on the record, so an unreadable record keeps its type on the dead-letter topic
+        props.put(JsonDeserializer.REMOVE_TYPE_INFO_HEADERS, false);
 
         // Type Mappings for Cross-Service DTOs
         props.put(JsonDeserializer.TYPE_MAPPINGS,
@@ -41,10 +90,182 @@ public class KafkaConsumerConfig {
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    /**
+     * Container factory for the single-record listeners. A record that cannot be deserialized goes to
+     * its dead-letter topic as raw bytes; other failures are logged and skipped after the error
+     * handler's default retries.
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(listenerConcurrency);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterUnreadableOrLog("Listener")));
+        return factory;
+    }
+
+    /**
+     * Publishes records whose value could not be deserialized to {@code <topic>-dlt} (the dead-letter
+     * topic of RetryTopicProducer; a retry-topic record goes to its original topic's), partitioned by key.
+     * * RAW BYTES:
+     * The value is the record's original bytes, taken from the DeserializationException, and its headers
+     * (content-type and type id included) are kept, with the failure in the kafka_dlt-exception-* headers.
+     * Once a release can read the record, DeadLetterReplayService puts it back on the main topic.
+     * The send is synchronous: if it fails, the recoverer throws and the record is redelivered, not skipped.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deserializationFailureRecoverer() {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                new KafkaTemplate<>(deadLetterProducerFactory()),
+                (record, exception) -> new TopicPartition(RetryTopicProducer.deadLetterTopic(originalTopic(record)), -1));
+        recoverer.setLogRecoveryRecord(true);
+        return recoverer;
+    }
+
+    /**
+     * Producer for the raw dead letters above: String keys, byte[] values, acknowledged by all in-sync
+     * replicas before the failed record's offset is committed.
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> deadLetterProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    /**
+     * Container factory for the retry-topic listeners (see RetryTopicProducer).
+     * * BACKOFF:
+     * A retry record that is not due yet makes the listener pause its partition and throw a
+     * KafkaBackoffException. The error handler passes every failure straight to the recoverer, which
+     * rethrows backoffs: the failed recovery makes the handler seek back to the record, so it is
+     * redelivered once the partition resumes rather than skipped. Unreadable records are dead-lettered as
+     * raw bytes, and other failures are logged and skipped after the handler's default retries, as with
+     * the single-record factory.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> retryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(listenerConcurrency);
+        ConsumerRecordRecoverer deadLetterUnreadableOrLog = deadLetterUnreadableOrLog("Retry listener");
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, exception) -> {
+            if (SeekUtils.isBackoffException(exception)) {
+                throw (NestedRuntimeException) exception;
+            }
+            deadLetterUnreadableOrLog.accept(record, exception);
+        }));
+        return factory;
+    }
+
+    /**
+     * Pauses a retry listener's partition until its head record is due, then resumes it.
+     */
+    @Bean
+    public KafkaConsumerBackoffManager retryBackoffManager(KafkaListenerEndpointRegistry registry,
+                                                           ThreadPoolTaskScheduler retryResumeScheduler) {
+        return new ContainerPartitionPausingBackOffManager(registry,
+                new ContainerPausingBackOffHandler(new ListenerContainerPauseService(registry, retryResumeScheduler)));
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler retryResumeScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("kafka-retry-resume-");
+        return scheduler;
+    }
+
+    /**
+     * Container factory for batch listeners: each poll (up to max-poll-records records) is handed
+     * to the listener as one List, so bursts of events can be coalesced and persisted together.
+     * Records without a value are filtered out of the batch: deserialization failures once they are
+     * dead-lettered as raw bytes (deserializationFailureRecoverer), tombstones after being logged. If the
+     * dead letter cannot be stored, the poll fails and is redelivered by the batch error handler.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            @Value("${topic.kafka.batch.max-poll-records:500}") int maxPollRecords) {
+        return batchFactory(maxPollRecords);
+    }
+
+    /**
+     * Container factory for key-ordered batch listeners (see KeyOrderedDispatcher), filtered like the
+     * batch factory. The listener returns once the poll is scheduled, so the container must not commit
+     * (AckMode.MANUAL): the dispatcher commits up to the lowest unprocessed offset itself. It does so on
+     * the idle events published every commit-interval without records, and the poll timeout is as short,
+     * so a quiet partition still gets its last offsets committed.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> keyOrderedKafkaListenerContainerFactory(
+            @Value("${topic.kafka.batch.max-poll-records:500}") int maxPollRecords,
+            @Value("${topic.kafka.key-ordered.commit-interval:1s}") Duration commitInterval,
+            KeyOrderedDispatcher dispatcher) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = batchFactory(maxPollRecords);
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setIdleEventInterval(commitInterval.toMillis());
+        containerProperties.setPollTimeout(commitInterval.toMillis());
+        containerProperties.setConsumerRebalanceListener(dispatcher);
+        return factory;
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, Object> batchFactory(int maxPollRecords) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(listenerConcurrency);
+        factory.setBatchListener(true);
+        DeadLetterPublishingRecoverer deadLetters = deserializationFailureRecoverer();
+        factory.setRecordFilterStrategy(record -> {
+            if (record.value() != null) {
+                return false;
+            }
+            DeserializationException failure = deserializationFailure(record);
+            if (failure == null) {
+                log.warn("Skipping record without a value {}", KafkaUtils.format(record));
+                return true;
+            }
+            log.error("Dead-lettering unreadable record {}", KafkaUtils.format(record), failure);
+            deadLetters.accept(record, null, failure);
+            return true;
+        });
+
+        // Overrides merged into the consumer factory's config (string values only)
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Recoverer for records the error handler gave up on: unreadable ones go to their dead-letter topic,
+     * anything else is logged and skipped.
+     */
+    private ConsumerRecordRecoverer deadLetterUnreadableOrLog(String listener) {
+        DeadLetterPublishingRecoverer deadLetters = deserializationFailureRecoverer();
+        return (record, exception) -> {
+            if (deserializationFailure(record) != null) {
+                deadLetters.accept(record, null, exception);
+                return;
+            }
+            log.error("{} gave up on record {}", listener, KafkaUtils.format(record), exception);
+        };
+    }
+
+    /**
+     * @return The failure ErrorHandlingDeserializer recorded for the record's value, or null if it was read.
+     */
+    private static DeserializationException deserializationFailure(ConsumerRecord<?, ?> record) {
+        return SerializationUtils.getExceptionFromHeader(record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+    }
+
+    /**
+     * @return The main topic of a record consumed from a retry topic, otherwise the record's own topic.
+     */
+    private static String originalTopic(ConsumerRecord<?, ?> record) {
+        Header original = record.headers().lastHeader(RetryTopicProducer.ORIGINAL_TOPIC_HEADER);
+        return original == null ? record.topic() : new String(original.value(), StandardCharsets.UTF_8);
+    }
+}
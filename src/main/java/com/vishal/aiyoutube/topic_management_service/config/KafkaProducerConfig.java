@@ -1,6 +1,8 @@
 package com.vishal.aiyoutube.topic_management_service.config;
 
 import com.vishal.aiyoutube.topic_management_service.dto.TopicSubmittedEvent;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import com.vishal.aiyoutube.topic_management_service.kafka.serde.EventSerializer;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -9,11 +11,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -22,6 +26,24 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    /**
+     * Batching of the outbox relay's sends: how long the producer waits to fill a batch, and its codec.
+     */
+    @Value("${topic.kafka.producer.linger:20ms}")
+    private Duration linger;
+
+    @Value("${topic.kafka.producer.compression:lz4}")
+    private String compression;
+
+    /**
+     * Value encoding (EventSerializer): default format and per-topic "topic:format" overrides.
+     */
+    @Value("${topic.kafka.serde.format:json}")
+    private String serdeFormat;
+
+    @Value("${topic.kafka.serde.topic-formats:}")
+    private String serdeTopicFormats;
+
     @Bean
     public NewTopic topicSubmittedTopic() {
         return TopicBuilder.name("topic-submitted-events")
@@ -37,7 +59,16 @@ public class KafkaProducerConfig {
         // FIXED: Uses the variable instead of hardcoded "localhost"
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        configProps.put(EventSerializer.FORMAT_CONFIG, serdeFormat);
+        configProps.put(EventSerializer.TOPIC_FORMATS_CONFIG, serdeTopicFormats);
+
+        // Idempotent: broker-side dedup of internal retries, ordered per partition (needs acks=all, <= 5 in flight)
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
 
         return new DefaultKafkaProducerFactory<>(configProps);
     }
@@ -46,4 +77,35 @@ public class KafkaProducerConfig {
     public KafkaTemplate<String, TopicSubmittedEvent> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
-}
\ No newline at end of file
+
+    /**
+     * Retry and dead-letter topics of the consumed events (see RetryTopicProducer).
+     */
+    @Bean
+    public KafkaAdmin.NewTopics retryTopics(RetryTopicProducer retryTopicProducer) {
+        List<NewTopic> topics = retryTopicProducer.topicsToCreate();
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+
+    /**
+     * Producer for republishing consumed events (retry stages, dead letters and their replay):
+     * values of any event type, acknowledged by all in-sync replicas before the source offset is committed.
+     */
+    @Bean
+    public ProducerFactory<String, Object> republishProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        configProps.put(EventSerializer.FORMAT_CONFIG, serdeFormat);
+        configProps.put(EventSerializer.TOPIC_FORMATS_CONFIG, serdeTopicFormats);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> republishKafkaTemplate() {
+        return new KafkaTemplate<>(republishProducerFactory());
+    }
+}
@@ -0,0 +1,33 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.service.NormalizedQuery;
+import com.vishal.aiyoutube.topic_management_service.service.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class registering the single-flight coalescers used on the topic submission path.
+ * When a topic goes viral, identical concurrent submissions share one Grok normalization
+ * and one topic creation instead of racing each other.
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    /**
+     * Coalesces concurrent normalizations of the same canonicalized raw query.
+     */
+    @Bean
+    public SingleFlight<String, NormalizedQuery> normalizationFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("normalization", meterRegistry);
+    }
+
+    /**
+     * Coalesces concurrent find-or-create executions for the same normalized query.
+     */
+    @Bean
+    public SingleFlight<String, TopicResponse> topicCreationFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("topic-creation", meterRegistry);
+    }
+}
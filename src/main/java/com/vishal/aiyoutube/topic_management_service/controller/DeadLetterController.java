@@ -0,0 +1,46 @@
+package com.vishal.aiyoutube.topic_management_service.controller;
+
+import com.vishal.aiyoutube.topic_management_service.dto.DeadLetterReplayResponse;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import com.vishal.aiyoutube.topic_management_service.service.DeadLetterReplayService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Admin endpoints for the dead-letter topics of the consumed pipeline events.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/dlt")
+@RequiredArgsConstructor
+public class DeadLetterController {
+
+    private final DeadLetterReplayService replayService;
+
+    /**
+     * POST /api/v1/admin/dlt/{topic}/replay
+     * Republishes up to maxRecords dead letters of a consumed topic back to that topic.
+     * * USAGE:
+     * Call after fixing what made the records fail (e.g. a topic that was never committed);
+     * repeat until 'remaining' is 0.
+     * * @param topic The main topic: 'analysis-completed-events' or 'topic-status-updates'.
+     * @param maxRecords Upper bound on records replayed by this call.
+     * @return The number of records replayed and still waiting.
+     */
+    @PostMapping("/{topic}/replay")
+    public ResponseEntity<DeadLetterReplayResponse> replay(@PathVariable String topic,
+                                                           @RequestParam(defaultValue = "100") int maxRecords) {
+        if (!RetryTopicProducer.RETRIED_TOPICS.contains(topic)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No dead-letter topic for: " + topic);
+        }
+        if (maxRecords < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxRecords must be positive");
+        }
+        log.info("Admin: replaying up to {} dead letters of {}", maxRecords, topic);
+        return ResponseEntity.ok(replayService.replay(topic, maxRecords));
+    }
+}
@@ -1,15 +1,30 @@
 package com.vishal.aiyoutube.topic_management_service.controller;
 
+import com.vishal.aiyoutube.topic_management_service.dto.HighlightPageResponse;
 import com.vishal.aiyoutube.topic_management_service.dto.TopicRequest;
 import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.exceptions.EventStreamLimitException;
+import com.vishal.aiyoutube.topic_management_service.exceptions.GrokOverloadedException;
+import com.vishal.aiyoutube.topic_management_service.service.TopicEventBroadcaster;
 import com.vishal.aiyoutube.topic_management_service.service.TopicService;
+import com.vishal.aiyoutube.topic_management_service.service.TopicVersionWaiters;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST Controller for managing Topic Analysis requests.
@@ -20,10 +35,12 @@ import java.util.UUID;
 @RestController
 @RequestMapping("/api/v1/topics")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*") // Enables frontend access from any origin (e.g., Live Server or React)
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG) // Enables frontend access from any origin (e.g., Live Server or React)
 public class TopicController {
 
     private final TopicService topicService;
+    private final TopicEventBroadcaster eventBroadcaster;
+    private final TopicVersionWaiters versionWaiters;
 
     /**
      * POST /api/v1/topics
@@ -32,35 +49,162 @@ public class TopicController {
      * 1. Receives raw user query.
      * 2. Calls Service to perform SEO normalization and Deduplication.
      * 3. Triggers the asynchronous Kafka pipeline.
+     * * The handler returns a CompletableFuture, so the servlet thread is released immediately
+     * and the response is written when normalization and persistence complete.
      * * @param request The DTO containing the user's query (e.g., "AI job trends").
      * @return 202 Accepted, indicating the long-running task has started successfully.
      */
     @PostMapping
-    public ResponseEntity<TopicResponse> analyzeTopic(@RequestBody TopicRequest request) {
+    public CompletableFuture<ResponseEntity<TopicResponse>> analyzeTopic(@RequestBody TopicRequest request) {
         log.info("Received request to analyze topic: {}", request.getQuery());
 
-        TopicResponse response = topicService.createTopicRequest(request);
-
         // We return 202 Accepted because the analysis is an ongoing background task
         // that involves multiple microservices and AI agents.
-        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        return topicService.createTopicRequestAsync(request)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.ACCEPTED).body(response));
     }
 
     /**
      * GET /api/v1/topics/{id}
      * Polling endpoint used by the frontend to check the current status and fetch results.
      * * USAGE:
-     * The index.html client calls this every 2 seconds to refresh the Source Highlights
-     * and finally the Executive Summary once the status moves to COMPLETED.
+     * When its event stream is unavailable, the index.html client calls this every 2 seconds to
+     * refresh the Source Highlights and finally the Executive Summary once the status moves to COMPLETED.
+     * * CACHING:
+     * The topic version is sent as an ETag; a poll carrying a matching If-None-Match gets
+     * 304 Not Modified with no body, and the insights are never loaded for it.
      * * @param id The unique UUID assigned to the topic request.
-     * @return The current state of the topic including any available AI insights.
+     * @param webRequest Used to evaluate If-None-Match (and write the 304 response).
+     * @return The current state of the topic including any available AI insights, or null once a 304 was written.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<TopicResponse> getTopicStatus(@PathVariable UUID id) {
+    public ResponseEntity<TopicResponse> getTopicStatus(@PathVariable UUID id, WebRequest webRequest) {
         log.info("Fetching status/results for topic ID: {}", id);
 
+        // Conditional GET: an unchanged topic costs a version lookup and a bodiless 304
+        String etag = "\"" + topicService.getTopicVersion(id) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         TopicResponse response = topicService.getTopicDetails(id);
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag("\"" + response.getVersion() + "\"")
+                .body(response);
+    }
+
+    /**
+     * GET /api/v1/topics/{id}?waitFor={version}&timeout=25s
+     * Long-poll variant of the polling endpoint for clients that cannot use Server-Sent Events.
+     * * FLOW:
+     * 1. If the topic's version already differs from waitFor, answers at once like a normal poll.
+     * 2. Otherwise the request is parked asynchronously (no servlet thread held) until the Kafka
+     *    consumers commit a change to the topic, which answers 200 with the new state.
+     * 3. If nothing changes within the timeout (capped by topic.long-poll.max-timeout), answers
+     *    304 Not Modified and the client simply asks again.
+     * * @param id The unique UUID assigned to the topic request.
+     * @param waitFor The version the client already has (the ETag of its last response).
+     * @param timeout How long to wait, e.g. "25s" or "25000ms" (plain numbers are milliseconds).
+     * @return A deferred 200 with the changed topic, or 304 on timeout.
+     */
+    @GetMapping(path = "/{id}", params = "waitFor")
+    public DeferredResult<ResponseEntity<TopicResponse>> awaitTopicChange(@PathVariable UUID id,
+                                                                          @RequestParam long waitFor,
+                                                                          @RequestParam(defaultValue = "25s") String timeout) {
+        Duration wait;
+        try {
+            wait = DurationStyle.detectAndParse(timeout);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid timeout: " + timeout);
+        }
+        if (wait.compareTo(versionWaiters.getMaxTimeout()) > 0) {
+            wait = versionWaiters.getMaxTimeout();
+        }
+        log.debug("Long poll on topic ID {} past version {} for up to {}", id, waitFor, wait);
+
+        String unchangedEtag = "\"" + waitFor + "\"";
+        DeferredResult<ResponseEntity<TopicResponse>> result = new DeferredResult<>(wait.toMillis(),
+                () -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(unchangedEtag).<TopicResponse>build());
+
+        CompletableFuture<TopicResponse> change = versionWaiters.awaitChange(id, waitFor);
+        // Timeout or client disconnect: drop the parked waiter
+        result.onCompletion(() -> change.cancel(false));
+        change.whenComplete((response, error) -> {
+            if (response != null) {
+                result.setResult(ResponseEntity.ok()
+                        .eTag("\"" + response.getVersion() + "\"")
+                        .body(response));
+            } else if (!(error instanceof CancellationException)) {
+                result.setErrorResult(error);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * GET /api/v1/topics/{id}/highlights?after={cursor}
+     * Incremental feed of the topic's video highlights.
+     * * USAGE:
+     * A client polling an ANALYZING topic starts with after=0 and passes the returned nextCursor
+     * back on each call, so it downloads only the highlights added since its previous request.
+     * * @param id The unique UUID assigned to the topic request.
+     * @param after The nextCursor of the previous page (defaults to 0, i.e. from the start).
+     * @return The new highlights and the cursor to continue from.
+     */
+    @GetMapping("/{id}/highlights")
+    public ResponseEntity<HighlightPageResponse> getTopicHighlights(@PathVariable UUID id,
+                                                                    @RequestParam(defaultValue = "0") long after) {
+        log.info("Fetching highlights after cursor {} for topic ID: {}", after, id);
+        return ResponseEntity.ok(topicService.getTopicHighlights(id, after));
+    }
+
+    /**
+     * GET /api/v1/topics/{id}/events
+     * Server-Sent Events stream of the topic's progress; the push replacement for polling.
+     * * USAGE:
+     * The index.html client opens an EventSource here and only falls back to polling the
+     * endpoint above when the stream cannot be opened (e.g. 503 at the per-node stream cap).
+     * * EVENTS:
+     * 'snapshot' (full TopicResponse), 'status' (stage change) and 'highlights' (new insights only),
+     * each with the topic version as its id. The stream completes after the final snapshot.
+     * * @param id The unique UUID assigned to the topic request.
+     * @param lastEventId Sent by a reconnecting EventSource; an up-to-date client gets no replay.
+     * @return The open event stream.
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTopicEvents(@PathVariable UUID id,
+                                        @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        log.info("Opening event stream for topic ID: {}", id);
+        return eventBroadcaster.open(id, lastEventId);
+    }
+
+    /**
+     * Maps a Groq call shed by the concurrency limiter to 429 Too Many Requests.
+     * Only reached when the local keyword fallback is disabled; otherwise shed calls degrade
+     * to local extraction instead of failing.
+     * * @param ex The rejection carrying the suggested back-off.
+     * @return 429 with a Retry-After header (whole seconds, rounded up).
+     */
+    @ExceptionHandler(GrokOverloadedException.class)
+    public ResponseEntity<Void> handleGrokOverloaded(GrokOverloadedException ex) {
+        log.warn("Rejecting topic submission: {}", ex.getMessage());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
+
+    /**
+     * Maps a refused event stream to 503 Service Unavailable; clients poll instead.
+     * * @param ex The rejection raised at the per-node stream cap.
+     * @return 503 with a Retry-After header.
+     */
+    @ExceptionHandler(EventStreamLimitException.class)
+    public ResponseEntity<Void> handleEventStreamLimit(EventStreamLimitException ex) {
+        log.warn("Refusing event stream: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .build();
     }
-}
\ No newline at end of file
+}
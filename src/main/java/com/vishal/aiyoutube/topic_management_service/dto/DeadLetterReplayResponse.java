@@ -0,0 +1,33 @@
+package com.vishal.aiyoutube.topic_management_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) describing one replay of a dead-letter topic.
+ * Replayed records were republished to their original topic and committed on the dead-letter topic.
+ */
+@Data
+@Builder
+public class DeadLetterReplayResponse {
+
+    /**
+     * The dead-letter topic that was drained (e.g. 'analysis-completed-events-dlt').
+     */
+    private String deadLetterTopic;
+
+    /**
+     * The main topic the records were republished to.
+     */
+    private String targetTopic;
+
+    /**
+     * Records republished by this call.
+     */
+    private int replayed;
+
+    /**
+     * Records still waiting on the dead-letter topic after this call.
+     */
+    private long remaining;
+}
@@ -34,6 +34,11 @@ public class GrokChatResponse {
          * The message object containing the actual AI-generated text.
          */
         private Message message;
+
+        /**
+         * Incremental content fragment, populated instead of 'message' on streamed (stream=true) chunks.
+         */
+        private Message delta;
     }
 
     /**
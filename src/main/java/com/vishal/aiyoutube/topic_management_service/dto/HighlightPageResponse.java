@@ -0,0 +1,37 @@
+package com.vishal.aiyoutube.topic_management_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) for one page of the incremental highlight feed.
+ * The client passes nextCursor back as 'after' on its next request, so every call
+ * transfers only the highlights added since the previous one.
+ */
+@Data
+@Builder
+public class HighlightPageResponse {
+
+    /**
+     * The topic the highlights belong to.
+     */
+    private UUID topicId;
+
+    /**
+     * Highlights added after the requested cursor, in insertion order.
+     */
+    private List<VideoInsightResponse> highlights;
+
+    /**
+     * Cursor to send as 'after' next time; unchanged when no new highlights exist.
+     */
+    private long nextCursor;
+
+    /**
+     * True when the page was full and more highlights can be fetched immediately.
+     */
+    private boolean hasMore;
+}
@@ -33,6 +33,12 @@ public class TopicResponse {
      */
     private TopicStatusEntity status;
 
+    /**
+     * Monotonically increasing revision of the topic; changes whenever status or results change.
+     * Also sent as the ETag of GET /api/v1/topics/{id}.
+     */
+    private Long version;
+
     /**
      * AI-generated high-level report.
      * Provides a 2-3 sentence executive summary synthesized from all video sources.
@@ -0,0 +1,20 @@
+package com.vishal.aiyoutube.topic_management_service.entity;
+
+/**
+ * Enumeration of the strategies that can produce a topic's normalized query.
+ * Persisted alongside the query so normalization quality and latency can be compared per path.
+ */
+public enum NormalizationSourceEntity {
+
+    /**
+     * Keywords generated by the Grok (Groq Cloud) SEO agent, either live or replayed
+     * from the normalization cache tiers.
+     */
+    GROK,
+
+    /**
+     * Keywords produced by the built-in local extractor because Grok failed,
+     * was rate-limited, or exceeded the latency budget.
+     */
+    LOCAL
+}
@@ -0,0 +1,46 @@
+package com.vishal.aiyoutube.topic_management_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persistent mapping from a canonicalized raw user query to the normalized search string
+ * produced for it. Maps to the 'query_normalizations' table.
+ * Acts as the second (shared, restart-safe) tier behind the in-process normalization cache,
+ * so every node can skip the Grok round trip for queries any node has already normalized.
+ */
+@Entity
+@Table(name = "query_normalizations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueryNormalizationEntity {
+
+    /**
+     * The canonicalized raw query (lowercased, punctuation stripped, whitespace collapsed).
+     * Used as the natural primary key so lookups are a single index probe.
+     */
+    @Id
+    @Column(name = "query_key", length = 512)
+    private String queryKey;
+
+    /**
+     * The sanitized 5-6 keyword search string derived from the raw query.
+     */
+    @Column(name = "normalized_query", columnDefinition = "TEXT", nullable = false)
+    private String normalizedQuery;
+
+    /**
+     * Timestamp indicating when the mapping was first learned.
+     */
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
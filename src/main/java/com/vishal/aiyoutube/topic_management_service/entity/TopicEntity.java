@@ -2,6 +2,7 @@ package com.vishal.aiyoutube.topic_management_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -46,6 +47,29 @@ public class TopicEntity {
     @Column(name = "normalized_query", columnDefinition = "TEXT")
     private String normalizedQuery;
 
+    /**
+     * Order-insensitive hash of the normalized query's token set (see QueryFingerprint).
+     * The unique index makes deduplication an index lookup and lets concurrent inserts of the
+     * same topic resolve atomically via INSERT ... ON CONFLICT.
+     */
+    @Column(name = "query_fingerprint", length = 32, unique = true)
+    private String queryFingerprint;
+
+    /**
+     * For topics created before fingerprints existed whose fingerprint another topic already owned:
+     * the owning topic. Set by the startup backfill so later runs skip these duplicates.
+     */
+    @Column(name = "fingerprint_owner_id")
+    private UUID fingerprintOwnerId;
+
+    /**
+     * Which strategy produced the normalized query (Grok or the local fallback extractor).
+     * Null for topics created before the source was tracked.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "normalization_source")
+    private NormalizationSourceEntity normalizationSource;
+
     /**
      * Current state of the topic in the processing pipeline.
      * Persisted as a string for readability in the database.
@@ -54,6 +78,17 @@ public class TopicEntity {
     @Enumerated(EnumType.STRING)
     private TopicStatusEntity status;
 
+    /**
+     * Revision counter and optimistic lock: every status or analysis write increments it, and a
+     * flush from a stale read fails instead of overwriting the newer row (see {@link #touch()}).
+     * Drives the ETag of the polling endpoint, so an unchanged topic answers 304 without a body.
+     */
+    @Version
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
     /**
      * Embedded component containing the final high-level AI synthesis.
      * Includes the Executive Summary, Sentiment, and Consensus metrics.
@@ -80,4 +115,12 @@ public class TopicEntity {
      */
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    /**
+     * Marks a visible change to the topic; call on every status or analysis write. Makes the row
+     * dirty even when only insights were appended, so the flush increments the version (once).
+     */
+    public void touch() {
+        updatedAt = LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.vishal.aiyoutube.topic_management_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Transactional outbox row for one TopicSubmittedEvent. Maps to the 'topic_outbox' table.
+ * Written in the same transaction as the topic it announces, so the event exists if and only if
+ * the topic was committed; TopicOutboxRelay publishes the rows to Kafka and deletes them.
+ */
+@Entity
+@Table(name = "topic_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TopicOutboxEntity {
+
+    /**
+     * Insertion order; the relay drains the table in id order.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The newly created topic (also the Kafka message key).
+     */
+    @Column(name = "topic_id", nullable = false)
+    private UUID topicId;
+
+    /**
+     * The SEO-normalized query the pipeline searches YouTube for.
+     */
+    @Column(name = "normalized_query", columnDefinition = "TEXT", nullable = false)
+    private String normalizedQuery;
+
+    /**
+     * When the submission committed; the relay lag is measured from here.
+     */
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -6,7 +6,7 @@ import lombok.ToString;
 /**
  * Enumeration representing the lifecycle states of a research topic.
  * This enum acts as a state machine to track the progress of a request
- * across the microservices ecosystem.
+ * across the microservices ecosystem; transitions only move forward in {@link #getRank() rank}.
  */
 @Getter
 @ToString
@@ -16,29 +16,41 @@ public enum TopicStatusEntity {
      * Initial state: The request has been received by the Topic Management API
      * and SEO normalization is complete, but downstream processing hasn't started.
      */
-    PENDING,
+    PENDING(0),
 
     /**
      * Data acquisition state: The YouTube Service is currently searching for
      * relevant videos and scraping their transcripts/metadata.
      */
-    EXTRACTING,
+    EXTRACTING(1),
 
     /**
      * Intelligence processing state: The AI Analysis Service is actively
      * running Llama-3 agents to synthesize video insights and global consensus.
      */
-    ANALYZING,
+    ANALYZING(2),
 
     /**
      * Success state: The multi-agent pipeline has finished, and the final
      * executive report and highlights are stored in the database.
      */
-    COMPLETED,
+    COMPLETED(3),
 
     /**
      * Error state: An issue occurred in any service within the chain (e.g.,
      * YouTube API quota exceeded, Groq rate limits, or network failure).
      */
-    FAILED
+    FAILED(3);
+
+    /**
+     * Position in the pipeline. Status updates only ever move a topic to a higher rank, so a
+     * late or redelivered event cannot move it backwards; both terminal states share the top rank.
+     * Mirrored by the CASE expression in TopicRepository#advanceStatus.
+     */
+    @ToString.Exclude
+    private final int rank;
+
+    TopicStatusEntity(int rank) {
+        this.rank = rank;
+    }
 }
\ No newline at end of file
@@ -3,10 +3,17 @@ package com.vishal.aiyoutube.topic_management_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Generated;
+
 import java.util.UUID;
 
 @Entity
-@Table(name = "video_insights")
+@Table(name = "video_insights",
+        indexes = @Index(name = "idx_video_insights_topic_seq", columnList = "topic_id, seq"),
+        // One insight per video moment of a topic; lets segment merges insert with ON CONFLICT DO NOTHING.
+        // Generated schemas only: on PostgreSQL, VideoInsightKeyMigration rebuilds it NULL-safe
+        uniqueConstraints = @UniqueConstraint(name = "uk_video_insights_topic_video_ts",
+                columnNames = {"topic_id", "video_id", "timestamp"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,6 +25,16 @@ public class VideoInsightEntity {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    /**
+     * Insertion order, assigned by the database (bigserial) and read back after the insert.
+     * Serves as the cursor of the highlight delta endpoint. Rows of one topic are only inserted by
+     * a write that then increments the topic's @Version; of two overlapping writes one fails its
+     * version check and rolls back, so committed rows also become visible in seq order.
+     */
+    @Generated
+    @Column(name = "seq", columnDefinition = "bigserial", insertable = false, updatable = false)
+    private Long seq;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "topic_id")
     private TopicEntity topic;
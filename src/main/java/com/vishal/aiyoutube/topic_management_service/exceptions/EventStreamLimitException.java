@@ -0,0 +1,12 @@
+package com.vishal.aiyoutube.topic_management_service.exceptions;
+
+/**
+ * Exception thrown when this node already holds its maximum number of open topic event streams.
+ * Surfaced to API clients as 503 Service Unavailable; the bundled UI falls back to polling.
+ */
+public class EventStreamLimitException extends RuntimeException {
+
+    public EventStreamLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.vishal.aiyoutube.topic_management_service.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a Groq call is shed by the adaptive concurrency limiter,
+ * either because its wait queue is full or because the call could not start before its deadline.
+ * Surfaced to API clients as 429 Too Many Requests with a Retry-After hint.
+ */
+@Getter
+public class GrokOverloadedException extends RuntimeException {
+
+    /**
+     * How long the client should wait before retrying.
+     */
+    private final Duration retryAfter;
+
+    public GrokOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -3,12 +3,25 @@ package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
 
 import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent;
 import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
 import com.vishal.aiyoutube.topic_management_service.service.TopicService;
-import lombok.RequiredArgsConstructor;
+import com.vishal.aiyoutube.topic_management_service.service.TopicWriteRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * Kafka Consumer responsible for processing the final intelligence output from the AI Analysis Service.
  * This class acts as the bridge between the asynchronous AI processing pipeline
@@ -16,15 +29,72 @@ import org.springframework.stereotype.Service;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AnalysisResultConsumer {
 
+    private static final String TOPIC = "analysis-completed-events";
+
+    /**
+     * Id of the retry listener's container, paused per partition while a retry record is not due.
+     */
+    static final String RETRY_LISTENER_ID = "analysis-retry-listener";
+
     /**
      * Service layer dependency used to persist the synthesized AI data
      * and update the topic state in PostgreSQL.
      */
     private final TopicService topicService;
 
+    /**
+     * Retries a write that lost an optimistic-lock race with another writer of the same topic.
+     */
+    private final TopicWriteRetry writeRetry;
+
+    /**
+     * Runs the topics of the polls in parallel, each in order (see topic.kafka.analysis.key-ordered.enabled).
+     */
+    private final KeyOrderedDispatcher dispatcher;
+
+    /**
+     * Republishes events that failed to the delayed retry topics and finally the dead-letter topic,
+     * so a failing topic does not block the partition (see topic.kafka.retry.*).
+     */
+    private final RetryTopicProducer retryTopicProducer;
+
+    /**
+     * Records persisted per database transaction (always 1 in single-record mode).
+     */
+    private final DistributionSummary recordsPerTransaction;
+
+    /**
+     * Records consumed; its rate is the end-to-end consumer throughput.
+     */
+    private final Counter recordsConsumed;
+
+    /**
+     * Duration of each persistence transaction.
+     */
+    private final Timer transactionTimer;
+
+    public AnalysisResultConsumer(TopicService topicService,
+                                  TopicWriteRetry writeRetry,
+                                  KeyOrderedDispatcher dispatcher,
+                                  RetryTopicProducer retryTopicProducer,
+                                  MeterRegistry meterRegistry) {
+        this.topicService = topicService;
+        this.writeRetry = writeRetry;
+        this.dispatcher = dispatcher;
+        this.retryTopicProducer = retryTopicProducer;
+        this.recordsPerTransaction = DistributionSummary.builder("topic.analysis.records-per-transaction")
+                .description("AnalysisCompletedEvents persisted per database transaction")
+                .register(meterRegistry);
+        this.recordsConsumed = Counter.builder("topic.analysis.records")
+                .description("AnalysisCompletedEvents consumed")
+                .register(meterRegistry);
+        this.transactionTimer = Timer.builder("topic.analysis.transaction")
+                .description("Time spent persisting one analysis transaction")
+                .register(meterRegistry);
+    }
+
     /**
      * Listens to the 'analysis-completed-events' topic.
      * * OPERATION:
@@ -35,9 +105,10 @@ public class AnalysisResultConsumer {
      * @param event The DTO containing the finalized intelligence report and source highlights.
      */
     @KafkaListener(
-            topics = "analysis-completed-events",
+            topics = TOPIC,
             groupId = "topic-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${topic.kafka.analysis.batch.enabled:true}}"
     )
     public void consumeAnalysisResult(AnalysisCompletedEvent event) {
         log.info("Received AnalysisCompletedEvent from Kafka for Topic ID: {}", event.getTopicId());
@@ -49,7 +120,9 @@ public class AnalysisResultConsumer {
              * store the AnalysisResultEntity (Summary/Consensus), and map the
              * VideoInsightEntity list (Highlights/Links).
              */
-            topicService.updateTopicWithAnalysis(event);
+            transactionTimer.record(() -> writeRetry.run("analysis", () -> topicService.updateTopicWithAnalysis(event)));
+            recordsPerTransaction.record(1);
+            recordsConsumed.increment();
 
             log.info("Successfully processed and persisted analysis for Topic ID: {}", event.getTopicId());
 
@@ -62,8 +135,131 @@ public class AnalysisResultConsumer {
              */
             log.error("CRITICAL: Persistence failure for Topic ID: {}. Error: {}",event.getTopicId(), e.getMessage());
 
+            if (retryTopicProducer.isEnabled()) {
+                // e.g. the event beat the topic's commit: try again later without blocking the partition
+                retryTopicProducer.forward(TOPIC, key(event), event, -1, e);
+                return;
+            }
             throw new AnalysisProcessingException(
                     "Failed to update database for topic: " + event.getTopicId(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Batch mode of the listener above (enabled by topic.kafka.analysis.batch.enabled).
+     * * OPERATION:
+     * 1. Receives a whole poll (up to topic.kafka.batch.max-poll-records events) at once.
+     * 2. During analysis bursts one topic receives many partial events back-to-back; the service
+     *    coalesces them per topic in memory and writes each topic once.
+     * 3. The whole poll is persisted in a single transaction; offsets are committed after it.
+     *    If a concurrent writer changed one of the topics meanwhile, the transaction is retried.
+     * 4. If that fails, the poll is rewritten topic by topic: a topic whose write fails is sent to the
+     *    retry topics and the rest of the poll is committed.
+     *
+     * @param events The events of one poll, in partition order.
+     */
+    @KafkaListener(
+            topics = TOPIC,
+            groupId = "topic-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{${topic.kafka.analysis.batch.enabled:true} && !${topic.kafka.analysis.key-ordered.enabled:true}}"
+    )
+    public void consumeAnalysisResults(List<AnalysisCompletedEvent> events) {
+        log.info("Received batch of {} AnalysisCompletedEvents from Kafka", events.size());
+
+        try {
+            persistBatch(events);
+        } catch (Exception e) {
+            log.error("CRITICAL: Persistence failure for a batch of {} analysis events. Error: {}", events.size(), e.getMessage());
+
+            if (!retryTopicProducer.isEnabled()) {
+                throw new AnalysisProcessingException(
+                        "Failed to update database for a batch of " + events.size() + " analysis events", e);
+            }
+            // One transaction per topic now, so only the failing topics go to the retry topics
+            Map<UUID, List<AnalysisCompletedEvent>> eventsByTopic = new LinkedHashMap<>();
+            events.forEach(event -> eventsByTopic.computeIfAbsent(event.getTopicId(), id -> new ArrayList<>()).add(event));
+            eventsByTopic.values().forEach(this::persistOrRetry);
+        }
+    }
+
+    /**
+     * Key-ordered mode of the batch listener (enabled by topic.kafka.analysis.key-ordered.enabled).
+     * * OPERATION:
+     * 1. Hands the poll to the KeyOrderedDispatcher and returns: each topic's events are written in
+     *    their own transaction, topics in parallel and each in order, also across polls.
+     * 2. A slow topic therefore only delays itself; the dispatcher commits up to the lowest event not
+     *    written yet, so other topics keep moving past it.
+     * 3. A topic whose write fails is sent to the retry topics, as in batch mode.
+     *
+     * @param records  The records of one poll, in partition order.
+     * @param consumer The container's consumer, which the dispatcher commits with.
+     */
+    @KafkaListener(
+            topics = TOPIC,
+            groupId = "topic-service-group",
+            containerFactory = "keyOrderedKafkaListenerContainerFactory",
+            autoStartup = "#{${topic.kafka.analysis.batch.enabled:true} && ${topic.kafka.analysis.key-ordered.enabled:true}}"
+    )
+    public void consumeAnalysisResultsKeyOrdered(List<ConsumerRecord<String, AnalysisCompletedEvent>> records,
+                                                 Consumer<?, ?> consumer) {
+        log.info("Received batch of {} AnalysisCompletedEvents from Kafka (key-ordered)", records.size());
+
+        dispatcher.dispatch(records, consumer, record -> record.value().getTopicId(),
+                lane -> persistOrRetry(lane.stream().map(ConsumerRecord::value).toList()));
+    }
+
+    /**
+     * Consumes the delayed retry topics of 'analysis-completed-events' (analysis-completed-events-retry-N).
+     * * OPERATION:
+     * 1. Backs off until the record is due (its stage's backoff has elapsed), pausing only its partition.
+     * 2. Applies it exactly like the single-record listener.
+     * 3. On failure, forwards it to the next stage, or to analysis-completed-events-dlt after the last one.
+     *
+     * @param record A failed event with its retry headers.
+     */
+    @KafkaListener(
+            id = RETRY_LISTENER_ID,
+            topics = "#{@retryTopicProducer.retryTopics('" + TOPIC + "')}",
+            groupId = "topic-service-group",
+            containerFactory = "retryKafkaListenerContainerFactory",
+            autoStartup = "${topic.kafka.retry.enabled:true}"
+    )
+    public void consumeAnalysisRetry(ConsumerRecord<String, AnalysisCompletedEvent> record) {
+        retryTopicProducer.backOffUntilDue(record, RETRY_LISTENER_ID);
+        int stage = RetryTopicProducer.stageOf(record);
+        log.info("Retrying AnalysisCompletedEvent for Topic ID: {} (stage {})", record.value().getTopicId(), stage);
+
+        try {
+            persistBatch(List.of(record.value()));
+            retryTopicProducer.recovered(TOPIC, stage);
+        } catch (Exception e) {
+            retryTopicProducer.forward(TOPIC, record.key(), record.value(), stage, e);
+        }
+    }
+
+    /**
+     * Persists one topic's events, sending them to the retry topics if that fails.
+     * The write is a single transaction, so a failed topic has none of its events applied.
+     */
+    private void persistOrRetry(List<AnalysisCompletedEvent> events) {
+        try {
+            persistBatch(events);
+        } catch (RuntimeException e) {
+            if (!retryTopicProducer.isEnabled()) {
+                throw e;
+            }
+            events.forEach(event -> retryTopicProducer.forward(TOPIC, key(event), event, -1, e));
+        }
+    }
+
+    private void persistBatch(List<AnalysisCompletedEvent> events) {
+        transactionTimer.record(() -> writeRetry.run("analysis", () -> topicService.updateTopicsWithAnalysis(events)));
+        recordsPerTransaction.record(events.size());
+        recordsConsumed.increment(events.size());
+    }
+
+    private static String key(AnalysisCompletedEvent event) {
+        return event.getTopicId() == null ? null : event.getTopicId().toString();
+    }
+}
@@ -0,0 +1,323 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Key-ordered parallel processing of a batch listener's polls, with out-of-order progress across polls.
+ * * MODEL:
+ * Records are split into lanes by key (the topic id); each lane runs on its own virtual thread
+ * and sees its records in partition order, while different lanes run concurrently. A key's lane
+ * of the next poll is chained behind its lane of this one, so order per key holds across polls.
+ * dispatch() returns as soon as the lanes are scheduled: the container keeps polling while they
+ * run, and a slow topic only delays its own records, not every record behind it on the partition.
+ * * OFFSETS:
+ * The container must not commit (AckMode.MANUAL, see keyOrderedKafkaListenerContainerFactory).
+ * Instead the dispatcher tracks the unfinished offsets of each partition and commits up to the
+ * lowest of them, i.e. everything before it has been processed. Commits are made on the consumer
+ * thread: at each dispatch, on container idle events (so the tail of a burst is committed too)
+ * and before partitions are revoked. After a restart or rebalance, records after the committed
+ * offset are redelivered even if some of them were processed already, so handlers must be
+ * idempotent (the topic writes are).
+ * * FAILURES:
+ * A failed lane is run again from its first record, up to {@code max-attempts} times in all (as
+ * the container's default error handler would redeliver it), while later lanes of its key wait.
+ * After the last attempt it is logged and skipped, like the error handler's default recoverer.
+ * * LIMITS:
+ * At most {@code max-parallelism} lanes run at once, so the polls cannot take every pooled
+ * database connection, and at most {@code max-in-flight} records are dispatched and unfinished:
+ * beyond that, dispatch() waits (committing meanwhile) before accepting another poll.
+ */
+@Slf4j
+@Component
+public class KeyOrderedDispatcher implements ConsumerAwareRebalanceListener {
+
+    /**
+     * Lane key of records whose key is null (they share one lane).
+     */
+    private static final Object NULL_KEY = new Object();
+
+    private final ExecutorService topicTaskExecutor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final int maxAttempts;
+
+    /**
+     * Key -> its last scheduled lane; the key's next lane is chained behind it.
+     */
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Unfinished offsets of each partition dispatched by this instance.
+     */
+    private final Map<TopicPartition, PartitionProgress> progress = new ConcurrentHashMap<>();
+
+    /**
+     * Dispatched records not finished yet, across all partitions; bounded by maxInFlight.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private final Condition windowFreed = windowLock.newCondition();
+
+    private final DistributionSummary lanesPerPoll;
+    private final Counter skippedLanes;
+
+    public KeyOrderedDispatcher(@Qualifier("topicTaskExecutor") ExecutorService topicTaskExecutor,
+                                @Value("${topic.kafka.key-ordered.max-parallelism:8}") int maxParallelism,
+                                @Value("${topic.kafka.key-ordered.max-in-flight:5000}") int maxInFlight,
+                                @Value("${topic.kafka.key-ordered.max-attempts:10}") int maxAttempts,
+                                MeterRegistry meterRegistry) {
+        this.topicTaskExecutor = topicTaskExecutor;
+        this.permits = new Semaphore(Math.max(1, maxParallelism));
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.lanesPerPoll = DistributionSummary.builder("topic.kafka.key-ordered.lanes")
+                .description("Distinct keys (parallel lanes) per dispatched poll")
+                .register(meterRegistry);
+        this.skippedLanes = Counter.builder("topic.kafka.key-ordered.skipped-lanes")
+                .description("Lanes skipped after failing every attempt")
+                .register(meterRegistry);
+        Gauge.builder("topic.kafka.key-ordered.in-flight", inFlight, AtomicInteger::get)
+                .description("Dispatched records not processed yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedules the records lane by lane, then commits the offsets processed so far. Must be called
+     * on the consumer thread, i.e. from the listener.
+     *
+     * @param records  The records of one poll, in partition order.
+     * @param consumer The listener's consumer, used to commit.
+     * @param keyOf    Extracts the ordering key; null keys share one lane.
+     * @param lane     Processes one key's records of the poll, in order. Throws to fail the whole lane.
+     */
+    public <T extends ConsumerRecord<?, ?>, K> void dispatch(List<T> records,
+                                                             org.apache.kafka.clients.consumer.Consumer<?, ?> consumer,
+                                                             Function<T, K> keyOf,
+                                                             Consumer<List<T>> lane) {
+        awaitWindow(records.size(), consumer);
+
+        // Key -> its records, in partition order
+        Map<Object, List<T>> lanes = new LinkedHashMap<>();
+        for (T record : records) {
+            K key = keyOf.apply(record);
+            lanes.computeIfAbsent(key == null ? NULL_KEY : key, k -> new ArrayList<>()).add(record);
+            // Registered before any lane runs, so a finished lane can never precede its offsets
+            progress.computeIfAbsent(partition(record), tp -> new PartitionProgress()).dispatched(record.offset());
+        }
+        lanesPerPoll.record(lanes.size());
+        lanes.forEach((key, laneRecords) -> schedule(key, laneRecords, lane));
+
+        commit(consumer);
+    }
+
+    /**
+     * Commits, for each partition of the consumer, the offset below which every dispatched record has
+     * been processed, if it moved since the last commit. Must be called on the consumer thread.
+     */
+    public void commit(org.apache.kafka.clients.consumer.Consumer<?, ?> consumer) {
+        commit(consumer, consumer.assignment());
+    }
+
+    /**
+     * Commits the processed offsets when the container is idle, so the end of a burst does not wait
+     * for the next record. Idle events are published on the consumer thread.
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        commit(event.getConsumer());
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(org.apache.kafka.clients.consumer.Consumer<?, ?> consumer,
+                                                Collection<TopicPartition> partitions) {
+        // Unfinished lanes still run; their records are redelivered to the partitions' next owner
+        commit(consumer, partitions);
+        progress.keySet().removeAll(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(org.apache.kafka.clients.consumer.Consumer<?, ?> consumer,
+                                 Collection<TopicPartition> partitions) {
+        progress.keySet().removeAll(partitions);
+    }
+
+    /**
+     * @return Dispatched records that are not processed yet.
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void commit(org.apache.kafka.clients.consumer.Consumer<?, ?> consumer,
+                        Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionProgress partitionProgress = progress.get(partition);
+            long offset = partitionProgress == null ? -1 : partitionProgress.committable();
+            if (offset >= 0) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        }
+        if (offsets.isEmpty()) {
+            return;
+        }
+        try {
+            consumer.commitSync(offsets);
+            offsets.forEach((partition, offset) -> {
+                PartitionProgress partitionProgress = progress.get(partition);
+                if (partitionProgress != null) {
+                    partitionProgress.committed(offset.offset());
+                }
+            });
+        } catch (WakeupException | InterruptException e) {
+            throw e;
+        } catch (KafkaException e) {
+            // e.g. a rebalance is in progress: the offsets are committed by the next call instead
+            log.warn("Key-ordered dispatch: commit of {} failed: {}", offsets, e.getMessage());
+        }
+    }
+
+    /**
+     * Chains the lane behind the key's previous lane, and releases its offsets when it is done.
+     */
+    private <T extends ConsumerRecord<?, ?>> void schedule(Object key, List<T> laneRecords, Consumer<List<T>> lane) {
+        List<PartitionProgress> laneProgress = laneRecords.stream().map(record -> progress.get(partition(record))).toList();
+        CompletableFuture<Void> scheduled = tails.compute(key, (k, tail) ->
+                (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail)
+                        .thenRunAsync(() -> runLane(laneRecords, lane), topicTaskExecutor)
+                        .whenComplete((ignored, failure) -> {
+                            for (int i = 0; i < laneRecords.size(); i++) {
+                                laneProgress.get(i).completed(laneRecords.get(i).offset());
+                            }
+                            release(laneRecords.size());
+                        }));
+        scheduled.whenComplete((ignored, failure) -> tails.remove(key, scheduled));
+    }
+
+    private <T> void runLane(List<T> laneRecords, Consumer<List<T>> lane) {
+        permits.acquireUninterruptibly();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    lane.accept(laneRecords);
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt >= maxAttempts) {
+                        log.error("Key-ordered dispatch: skipping a lane of {} record(s) after {} attempts",
+                                laneRecords.size(), attempt, e);
+                        skippedLanes.increment();
+                        return;
+                    }
+                    log.warn("Key-ordered dispatch: lane of {} record(s) failed (attempt {} of {}): {}",
+                            laneRecords.size(), attempt, maxAttempts, e.getMessage());
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Waits until the records fit in max-in-flight (a poll larger than it is admitted alone),
+     * committing the processed offsets while it waits.
+     */
+    private void awaitWindow(int records, org.apache.kafka.clients.consumer.Consumer<?, ?> consumer) {
+        while (true) {
+            windowLock.lock();
+            try {
+                int current = inFlight.get();
+                if (current == 0 || current + records <= maxInFlight) {
+                    inFlight.addAndGet(records);
+                    return;
+                }
+                windowFreed.await(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                inFlight.addAndGet(records);
+                return;
+            } finally {
+                windowLock.unlock();
+            }
+            commit(consumer);
+        }
+    }
+
+    private void release(int records) {
+        windowLock.lock();
+        try {
+            inFlight.addAndGet(-records);
+            windowFreed.signalAll();
+        } finally {
+            windowLock.unlock();
+        }
+    }
+
+    private static TopicPartition partition(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+
+    /**
+     * Dispatched offsets of one partition that are not processed yet.
+     */
+    private static final class PartitionProgress {
+
+        private final TreeSet<Long> unfinished = new TreeSet<>();
+        private long next = -1;
+        private long committed = -1;
+
+        synchronized void dispatched(long offset) {
+            unfinished.add(offset);
+            next = Math.max(next, offset + 1);
+        }
+
+        synchronized void completed(long offset) {
+            unfinished.remove(offset);
+        }
+
+        /**
+         * @return The offset below which every dispatched record is processed, or -1 if it is already committed.
+         */
+        synchronized long committable() {
+            long offset = unfinished.isEmpty() ? next : unfinished.first();
+            return offset > committed ? offset : -1;
+        }
+
+        synchronized void committed(long offset) {
+            committed = Math.max(committed, offset);
+        }
+    }
+}
@@ -3,12 +3,26 @@ package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
 import com.vishal.aiyoutube.topic_management_service.dto.StatusUpdateEvent;
 import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
 import com.vishal.aiyoutube.topic_management_service.exceptions.StatusSyncException;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
 import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
-import lombok.RequiredArgsConstructor;
+import com.vishal.aiyoutube.topic_management_service.service.TopicChangedEvent;
+import com.vishal.aiyoutube.topic_management_service.service.TopicWriteRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 
 /**
  * Kafka Consumer responsible for tracking the real-time progress of the analysis pipeline.
@@ -17,62 +31,149 @@ import org.springframework.transaction.annotation.Transactional;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class StatusUpdateConsumer {
 
+    private static final String TOPIC = "topic-status-updates";
+
+    /**
+     * Id of the retry listener's container, paused per partition while a retry record is not due.
+     */
+    static final String RETRY_LISTENER_ID = "status-retry-listener";
+
     /**
-     * Repository used to perform lookups and updates on the 'topics' table.
+     * Repository used to perform the guarded status updates on the 'topics' table.
      */
     private final TopicRepository topicRepository;
 
+    /**
+     * Publishes TopicChangedEvent so cached responses are invalidated once the update commits.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * One transaction per attempt, so a write aborted by a concurrent writer can be retried.
+     */
+    private final TransactionTemplate transactionTemplate;
+    private final TopicWriteRetry writeRetry;
+
+    /**
+     * Sends updates for topics not (yet) in the table, and failed writes, to the delayed retry topics.
+     */
+    private final RetryTopicProducer retryTopicProducer;
+
+    private final Counter appliedUpdates;
+    private final Counter staleUpdates;
+    private final Counter unknownTopicUpdates;
+    private final Counter coalescedUpdates;
+
+    public StatusUpdateConsumer(TopicRepository topicRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                TransactionTemplate transactionTemplate,
+                                TopicWriteRetry writeRetry,
+                                RetryTopicProducer retryTopicProducer,
+                                MeterRegistry meterRegistry) {
+        this.topicRepository = topicRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.writeRetry = writeRetry;
+        this.retryTopicProducer = retryTopicProducer;
+        this.appliedUpdates = statusUpdateCounter(meterRegistry, "applied");
+        this.staleUpdates = statusUpdateCounter(meterRegistry, "stale-skipped");
+        this.unknownTopicUpdates = statusUpdateCounter(meterRegistry, "unknown-topic");
+        this.coalescedUpdates = statusUpdateCounter(meterRegistry, "coalesced");
+    }
+
     /**
      * Consumes status updates from both YouTube Service (Service 2) and AI Service (Service 3).
+     * Active when batch mode (topic.kafka.status.batch.enabled) is switched off.
      * * OPERATION:
      * 1. Extracts the incoming status string and Topic UUID.
      * 2. Maps the string to the internal TopicStatusEntity enum.
-     * 3. Performs an atomic database update to reflect the current pipeline stage.
+     * 3. Performs a single guarded UPDATE that only moves the topic forward in the pipeline.
      *
      * @param event The DTO containing the topic ID, status string, and optional detail message.
      */
-    @Transactional
     @KafkaListener(
-            topics = "topic-status-updates",
+            topics = TOPIC,
             groupId = "topic-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${topic.kafka.status.batch.enabled:true}}"
     )
     public void consumeStatusUpdate(StatusUpdateEvent event) {
         log.info("Kafka Consumer: Received status [{}] for Topic ID [{}]",
                 event.getStatus(), event.getTopicId());
 
-        // Basic validation to prevent processing of corrupted messages
-        if (event.getTopicId() == null) {
-            log.error("Discarding event: Received StatusUpdateEvent with null Topic ID");
-            return;
-        }
+        applyLatestStatuses(List.of(event), -1);
+    }
 
-        // Locate the record in PostgreSQL before attempting an update
-        topicRepository.findById(event.getTopicId()).ifPresentOrElse(topic -> {
-            try {
-                /**
-                 * ENUM MAPPING:
-                 * Converts the incoming string (e.g., "extracting") into the
-                 * typed Enum (TopicStatusEntity.EXTRACTING).
-                 */
-                TopicStatusEntity newStatus = TopicStatusEntity.valueOf(event.getStatus().toUpperCase());
+    /**
+     * Batch mode of the listener above.
+     * * OPERATION:
+     * 1. Receives a whole poll of status events at once.
+     * 2. Keeps only the furthest status per topic: since updates never move a topic backwards,
+     *    writing that one is equivalent to applying the events one by one.
+     * 3. Writes one guarded UPDATE per topic, all in a single transaction, in topic id order.
+     * 4. Updates for topics not in the table yet (the status beat the topic's commit), or the whole
+     *    poll if its transaction fails, go to the delayed retry topics; the poll is committed.
+     *
+     * @param events The status events of one poll, in partition order.
+     */
+    @KafkaListener(
+            topics = TOPIC,
+            groupId = "topic-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${topic.kafka.status.batch.enabled:true}"
+    )
+    public void consumeStatusUpdates(List<StatusUpdateEvent> events) {
+        log.info("Kafka Consumer: Received batch of {} status updates", events.size());
 
-                topic.setStatus(newStatus);
+        applyLatestStatuses(events, -1);
+    }
 
-                /**
-                 * TRANSACTIONAL COMMIT:
-                 * saveAndFlush ensures the persistence provider pushes the change to the
-                 * database immediately. This is vital for the frontend polling mechanism
-                 * to see the change instantly.
-                 */
-                topicRepository.saveAndFlush(topic);
+    /**
+     * Consumes the delayed retry topics of 'topic-status-updates' (topic-status-updates-retry-N).
+     * * OPERATION:
+     * 1. Backs off until the record is due (its stage's backoff has elapsed), pausing only its partition.
+     * 2. Applies it like the single-record listener.
+     * 3. If the topic is still unknown or the write fails, forwards it to the next stage,
+     *    or to topic-status-updates-dlt after the last one.
+     *
+     * @param record A status event with its retry headers.
+     */
+    @KafkaListener(
+            id = RETRY_LISTENER_ID,
+            topics = "#{@retryTopicProducer.retryTopics('" + TOPIC + "')}",
+            groupId = "topic-service-group",
+            containerFactory = "retryKafkaListenerContainerFactory",
+            autoStartup = "${topic.kafka.retry.enabled:true}"
+    )
+    public void consumeStatusRetry(ConsumerRecord<String, StatusUpdateEvent> record) {
+        retryTopicProducer.backOffUntilDue(record, RETRY_LISTENER_ID);
+        int stage = RetryTopicProducer.stageOf(record);
+        log.info("Kafka Consumer: Retrying status [{}] for Topic ID [{}] (stage {})",
+                record.value().getStatus(), record.value().getTopicId(), stage);
 
-                log.info("Database Updated: Topic {} is now {}", event.getTopicId(), newStatus);
+        if (applyLatestStatuses(List.of(record.value()), stage)) {
+            retryTopicProducer.recovered(TOPIC, stage);
+        }
+    }
 
-            } catch (IllegalArgumentException e) {
+    /**
+     * @param stage The retry stage the events were consumed at, -1 for the main topic.
+     * @return True when every event was applied or found stale, false when some went to the next retry stage.
+     */
+    private boolean applyLatestStatuses(List<StatusUpdateEvent> events, int stage) {
+        // Sorted by topic id, so concurrent batches take the rows' locks in the same order (no deadlocks)
+        Map<UUID, StatusUpdateEvent> latestByTopic = new TreeMap<>();
+
+        for (StatusUpdateEvent event : events) {
+            // Basic validation to prevent processing of corrupted messages
+            if (event.getTopicId() == null) {
+                log.error("Discarding event: Received StatusUpdateEvent with null Topic ID");
+                continue;
+            }
+
+            if (parseStatus(event) == null) {
                 /**
                  * DOMAIN VALIDATION ERROR:
                  * Occurs if a downstream service sends a status string that isn't
@@ -80,15 +181,110 @@ public class StatusUpdateConsumer {
                  */
                 log.error("Validation Failure: Status '{}' does not match TopicStatusEntity enums.",
                         event.getStatus());
-            } catch (Exception e) {
-                /**
-                 * PERSISTENCE FAILURE:
-                 * Wraps unexpected runtime or SQL errors in a StatusSyncException
-                 * to ensure the failure is explicitly tracked in logs.
-                 */
-                throw new StatusSyncException(
-                        "Unexpected error updating status for Topic ID " + event.getTopicId(), e);
+                continue;
+            }
+
+            // Furthest status wins; on a tie (COMPLETED vs FAILED) the first one, as sequential updates would
+            latestByTopic.merge(event.getTopicId(), event, (current, incoming) -> {
+                coalescedUpdates.increment();
+                return parseStatus(incoming).getRank() > parseStatus(current).getRank() ? incoming : current;
+            });
+        }
+
+        if (latestByTopic.isEmpty()) {
+            return true;
+        }
+        List<StatusUpdateEvent> unknownTopics = new ArrayList<>();
+        try {
+            writeRetry.run("status", () -> {
+                // Outcomes are counted once the transaction has committed, not once per attempt
+                List<Counter> outcomes = new ArrayList<>(latestByTopic.size());
+                unknownTopics.clear();
+                transactionTemplate.executeWithoutResult(status -> latestByTopic.forEach((topicId, event) -> {
+                    Counter outcome = advanceStatus(topicId, parseStatus(event));
+                    outcomes.add(outcome);
+                    if (outcome == unknownTopicUpdates) {
+                        unknownTopics.add(event);
+                    }
+                }));
+                outcomes.forEach(Counter::increment);
+            });
+        } catch (RuntimeException e) {
+            if (!retryTopicProducer.isEnabled()) {
+                throw e;
+            }
+            latestByTopic.values().forEach(event -> retryTopicProducer.forward(TOPIC, key(event), event, stage, e));
+            return false;
+        }
+
+        if (!retryTopicProducer.isEnabled()) {
+            return true;
+        }
+        StatusSyncException notFound = new StatusSyncException("Topic ID not found in topics table", null);
+        unknownTopics.forEach(event -> retryTopicProducer.forward(TOPIC, key(event), event, stage, notFound));
+        return unknownTopics.isEmpty();
+    }
+
+    /**
+     * ENUM MAPPING:
+     * Converts the incoming string (e.g., "extracting") into the typed Enum (TopicStatusEntity.EXTRACTING).
+     *
+     * @return The status, or null when the string matches no TopicStatusEntity.
+     */
+    private static TopicStatusEntity parseStatus(StatusUpdateEvent event) {
+        try {
+            return TopicStatusEntity.valueOf(String.valueOf(event.getStatus()).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String key(StatusUpdateEvent event) {
+        return event.getTopicId().toString();
+    }
+
+    /**
+     * @return The outcome counter to increment once the transaction commits.
+     */
+    private Counter advanceStatus(UUID topicId, TopicStatusEntity newStatus) {
+        try {
+            /**
+             * SET-BASED UPDATE:
+             * One UPDATE ... WHERE id = ? AND rank(status) < rank(new) statement: no entity load,
+             * no flush of unrelated columns, and stale events cannot move a topic backwards.
+             */
+            int updated = topicRepository.advanceStatus(topicId, newStatus.name(), newStatus.getRank(), LocalDateTime.now());
+
+            if (updated == 1) {
+                eventPublisher.publishEvent(new TopicChangedEvent(topicId));
+                log.info("Database Updated: Topic {} is now {}", topicId, newStatus);
+                return appliedUpdates;
+            } else if (topicRepository.existsById(topicId)) {
+                log.info("Stale Status Skip: Topic {} is already at or past {}", topicId, newStatus);
+                return staleUpdates;
+            } else {
+                log.warn("Database Sync Skip: Topic ID {} not found in topics table", topicId);
+                return unknownTopicUpdates;
             }
-        }, () -> log.warn("Database Sync Skip: Topic ID {} not found in topics table", event.getTopicId()));
+
+        } catch (ConcurrencyFailureException e) {
+            // Aborted by a concurrent writer (e.g. deadlock victim): left to TopicWriteRetry
+            throw e;
+        } catch (Exception e) {
+            /**
+             * PERSISTENCE FAILURE:
+             * Wraps unexpected runtime or SQL errors in a StatusSyncException
+             * to ensure the failure is explicitly tracked in logs.
+             */
+            throw new StatusSyncException(
+                    "Unexpected error updating status for Topic ID " + topicId, e);
+        }
+    }
+
+    private static Counter statusUpdateCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("topic.status.updates")
+                .description("Topic status update events by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.producer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.KafkaBackoffException;
+import org.springframework.kafka.listener.KafkaConsumerBackoffManager;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking retry of consumed events through delayed retry topics and a dead-letter topic.
+ * * TOPICS:
+ * An event of {@code <topic>} that could not be processed is republished to
+ * {@code <topic>-retry-0}, then {@code -retry-1}, ... up to {@code attempts} stages, each due after
+ * an exponentially growing delay; when the last stage fails too it goes to {@code <topic>-dlt}, where
+ * it stays until replayed (DeadLetterReplayService). The listener commits past the failed record
+ * right away, so the records behind it on the partition are not held up.
+ * * DELAY:
+ * The due time is carried in a header. Each retry topic has a single delay, so its records become due
+ * in partition order. When the head record of a partition is not due yet, the retry listener pauses
+ * just that partition until it is and the error handler seeks back to the record (KafkaBackoffException,
+ * as spring-kafka's own retry topics do); the consumer thread never sleeps, so due records of other
+ * stages and partitions keep flowing, and no delay counts against max.poll.interval.ms.
+ * * ORDER:
+ * Records keep their key (the topic id), so retries of one topic stay in order within a stage.
+ */
+@Slf4j
+@Service
+public class RetryTopicProducer {
+
+    public static final String STAGE_HEADER = "topic-retry-stage";
+    public static final String DUE_AT_HEADER = "topic-retry-due-at";
+    public static final String ORIGINAL_TOPIC_HEADER = "topic-retry-original-topic";
+    public static final String EXCEPTION_HEADER = "topic-retry-exception";
+
+    /**
+     * Topics whose consumers retry through this producer.
+     */
+    public static final List<String> RETRIED_TOPICS = List.of("analysis-completed-events", "topic-status-updates");
+
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final KafkaConsumerBackoffManager backoffManager;
+    private final boolean enabled;
+    private final int attempts;
+    private final long initialDelayMillis;
+    private final double multiplier;
+    private final long maxDelayMillis;
+    private final int partitions;
+
+    public RetryTopicProducer(KafkaTemplate<String, Object> kafkaTemplate,
+                              MeterRegistry meterRegistry,
+                              KafkaConsumerBackoffManager backoffManager,
+                              @Value("${topic.kafka.retry.enabled:true}") boolean enabled,
+                              @Value("${topic.kafka.retry.attempts:3}") int attempts,
+                              @Value("${topic.kafka.retry.initial-delay:1s}") Duration initialDelay,
+                              @Value("${topic.kafka.retry.multiplier:4}") double multiplier,
+                              @Value("${topic.kafka.retry.max-delay:1m}") Duration maxDelay,
+                              @Value("${topic.kafka.retry.partitions:3}") int partitions) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.backoffManager = backoffManager;
+        this.enabled = enabled;
+        this.attempts = Math.max(1, attempts);
+        this.initialDelayMillis = initialDelay.toMillis();
+        this.multiplier = Math.max(1, multiplier);
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.partitions = partitions;
+    }
+
+    /**
+     * @return False when failures should be rethrown to the container's error handler instead.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The retry topics of a main topic, stage 0 first (the retry listeners subscribe to these).
+     */
+    public String[] retryTopics(String topic) {
+        String[] topics = new String[attempts];
+        for (int stage = 0; stage < attempts; stage++) {
+            topics[stage] = retryTopic(topic, stage);
+        }
+        return topics;
+    }
+
+    public static String retryTopic(String topic, int stage) {
+        return topic + "-retry-" + stage;
+    }
+
+    public static String deadLetterTopic(String topic) {
+        return topic + "-dlt";
+    }
+
+    /**
+     * @return Retry and dead-letter topics to create at startup.
+     */
+    public List<NewTopic> topicsToCreate() {
+        List<NewTopic> topics = new ArrayList<>();
+        for (String topic : RETRIED_TOPICS) {
+            for (String retryTopic : retryTopics(topic)) {
+                topics.add(TopicBuilder.name(retryTopic).partitions(partitions).replicas(1).build());
+            }
+            topics.add(TopicBuilder.name(deadLetterTopic(topic)).partitions(partitions).replicas(1).build());
+        }
+        return topics;
+    }
+
+    /**
+     * Republishes a failed event to the next retry stage, or to the dead-letter topic after the last one.
+     * The send is synchronous: the caller commits the failed record's offset only once it is stored.
+     *
+     * @param topic       The main topic the event was first consumed from.
+     * @param key         The record key (the topic id), kept so retries stay ordered per topic.
+     * @param event       The event to retry.
+     * @param failedStage The stage that failed: -1 for the main topic, otherwise the retry stage.
+     * @param cause       Why processing failed; its message travels in a header.
+     */
+    public void forward(String topic, String key, Object event, int failedStage, Exception cause) {
+        int stage = failedStage + 1;
+        boolean deadLetter = stage >= attempts;
+        String destination = deadLetter ? deadLetterTopic(topic) : retryTopic(topic, stage);
+
+        ProducerRecord<String, Object> record = new ProducerRecord<>(destination, key, event);
+        record.headers().add(STAGE_HEADER, bytes(String.valueOf(stage)));
+        record.headers().add(ORIGINAL_TOPIC_HEADER, bytes(topic));
+        record.headers().add(EXCEPTION_HEADER, bytes(String.valueOf(cause.getMessage())));
+        if (!deadLetter) {
+            record.headers().add(DUE_AT_HEADER, bytes(String.valueOf(System.currentTimeMillis() + delayMillis(stage))));
+        }
+
+        try {
+            kafkaTemplate.send(record).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while forwarding to " + destination, e);
+        } catch (ExecutionException | TimeoutException e) {
+            // Not stored: the caller rethrows so the container redelivers the original record
+            throw new IllegalStateException("Unable to forward failed record to " + destination, e);
+        }
+
+        String label = deadLetter ? "dlt" : "retry-" + stage;
+        Counter.builder("topic.kafka.retry.forwarded")
+                .description("Failed records republished to a retry or dead-letter topic")
+                .tag("topic", topic)
+                .tag("destination", label)
+                .register(meterRegistry)
+                .increment();
+        if (deadLetter) {
+            log.error("Dead letter: record {} of {} failed {} retries, sent to {}: {}",
+                    key, topic, attempts, destination, cause.getMessage());
+        } else {
+            log.warn("Retry: record {} of {} sent to {}: {}", key, topic, destination, cause.getMessage());
+        }
+    }
+
+    /**
+     * Backs off a retry record that is not due yet; called by the retry listeners before processing it.
+     * Pauses the record's partition in the listener's container until the due time and throws, so the
+     * error handler seeks back to the record, which is redelivered once the partition resumes.
+     *
+     * @param record     The consumed retry record.
+     * @param listenerId The id of the consuming @KafkaListener, whose container is paused.
+     * @throws KafkaBackoffException when the record is not due yet.
+     */
+    public void backOffUntilDue(ConsumerRecord<?, ?> record, String listenerId) {
+        Header dueAt = record.headers().lastHeader(DUE_AT_HEADER);
+        if (dueAt == null) {
+            return;
+        }
+        long dueTimestamp = Long.parseLong(new String(dueAt.value(), StandardCharsets.UTF_8));
+        backoffManager.backOffIfNecessary(backoffManager.createContext(dueTimestamp, listenerId,
+                new TopicPartition(record.topic(), record.partition()), null));
+    }
+
+    /**
+     * @return The retry stage a record was consumed at (-1 for a record from the main topic).
+     */
+    public static int stageOf(ConsumerRecord<?, ?> record) {
+        Header stage = record.headers().lastHeader(STAGE_HEADER);
+        return stage == null ? -1 : Integer.parseInt(new String(stage.value(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Counts a record that succeeded on a retry stage.
+     */
+    public void recovered(String topic, int stage) {
+        Counter.builder("topic.kafka.retry.recovered")
+                .description("Records processed successfully on a retry topic")
+                .tag("topic", topic)
+                .tag("stage", "retry-" + stage)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Stage n waits initial-delay * multiplier^n, capped at max-delay.
+     */
+    long delayMillis(int stage) {
+        return (long) Math.min(maxDelayMillis, initialDelayMillis * Math.pow(multiplier, stage));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
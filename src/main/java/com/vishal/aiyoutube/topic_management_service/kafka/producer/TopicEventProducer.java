@@ -7,12 +7,18 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Kafka Producer service responsible for broadcasting new research requests.
  * This class triggers the start of the multi-agent pipeline by notifying
  * the YouTube Processing Service to begin transcript extraction.
+ * Called by TopicOutboxRelay only: submissions write to the outbox, never to Kafka directly.
  */
 @Slf4j
 @Service
@@ -20,7 +26,8 @@ import java.util.concurrent.CompletableFuture;
 public class TopicEventProducer {
 
     /**
-     * Spring Kafka template configured for TopicSubmittedEvent payloads.
+     * Spring Kafka template configured for TopicSubmittedEvent payloads
+     * (idempotent, compressed, lingering; see KafkaProducerConfig).
      */
     private final KafkaTemplate<String, TopicSubmittedEvent> kafkaTemplate;
 
@@ -29,36 +36,39 @@ public class TopicEventProducer {
      */
     private static final String TOPIC_NAME = "topic-submitted-events";
 
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
     /**
-     * Publishes a TopicSubmittedEvent to Kafka asynchronously.
-     * * @param event The DTO containing the topic UUID and the SEO-normalized query.
+     * Publishes a batch of TopicSubmittedEvents and waits until the broker has acknowledged all of them.
+     * * BATCHING:
+     * Every send is handed to the producer before the first one is awaited, so the batch leaves
+     * in a few compressed produce requests (linger.ms) instead of one round trip per event.
+     *
+     * @param events The events to publish, in outbox order.
+     * @throws IllegalStateException when any event was not acknowledged; the caller keeps the batch.
      */
-    public void sendTopicSubmittedEvent(TopicSubmittedEvent event) {
-        log.info("Attempting to publish TopicSubmittedEvent for ID: {}", event.getTopicId());
-
+    public void sendTopicSubmittedEvents(List<TopicSubmittedEvent> events) {
         /**
          * PARTITIONING STRATEGY:
          * We use the 'topicId' as the Kafka Message Key.
          * This ensures that all events related to the same research topic are
          * routed to the same Kafka partition, preserving message order if needed.
          */
-        CompletableFuture<SendResult<String, TopicSubmittedEvent>> future =
-                kafkaTemplate.send(TOPIC_NAME, event.getTopicId().toString(), event);
+        List<CompletableFuture<SendResult<String, TopicSubmittedEvent>>> futures = new ArrayList<>(events.size());
+        for (TopicSubmittedEvent event : events) {
+            futures.add(kafkaTemplate.send(TOPIC_NAME, event.getTopicId().toString(), event));
+        }
 
-        /**
-         * ASYNCHRONOUS CALLBACK:
-         * We use CompletableFuture to handle the result of the produce request
-         * without blocking the main execution thread.
-         */
-        future.whenComplete((result, ex) -> {
-            if (ex == null) {
-                // SUCCESS: Log metadata for traceability
-                log.info("Sent message=[{}] with offset=[{}] to partition=[{}]",event.getTopicId(),result.getRecordMetadata().offset(),
-                        result.getRecordMetadata().partition());
-            } else {
-                // FAILURE: Log error for alerting/monitoring
-                log.error("Unable to send message=[{}] due to : {}",event.getTopicId(), ex.getMessage());
-            }
-        });
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing TopicSubmittedEvents", e);
+        } catch (ExecutionException | TimeoutException e) {
+            // FAILURE: Log error for alerting/monitoring
+            log.error("Unable to publish batch of {} TopicSubmittedEvents due to : {}", events.size(), e.getMessage());
+            throw new IllegalStateException("Unable to publish TopicSubmittedEvents", e);
+        }
+        log.info("Sent {} TopicSubmittedEvents to {}", events.size(), TOPIC_NAME);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.producer;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicSubmittedEvent;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicOutboxEntity;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicOutboxRepository;
+import com.vishal.aiyoutube.topic_management_service.service.TopicOutboxWrittenEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains the 'topic_outbox' table to the 'topic-submitted-events' Kafka topic.
+ * * FLOW:
+ * 1. In one transaction, locks the oldest batch-size rows (FOR UPDATE SKIP LOCKED).
+ * 2. Publishes them with one TopicEventProducer call and waits for the broker's acknowledgements.
+ * 3. Deletes the rows and commits. If publishing fails the transaction rolls back, the rows stay,
+ *    and the next pass retries them after {@code interval}.
+ * 4. A full batch is followed immediately by the next one; otherwise the relay parks until a submission
+ *    on this node commits an outbox row (TopicOutboxWrittenEvent, after commit) or {@code interval}
+ *    passes. The interval is only a safety net for rows left by failed passes or other nodes, so an
+ *    idle service runs one locking query every few seconds instead of 20 a second.
+ * * DELIVERY:
+ * At least once: a crash between the acknowledgement and the commit republishes the batch, which the
+ * downstream consumer already tolerates (duplicates of the same topic id). The idempotent producer
+ * removes duplicates caused by its own internal retries.
+ */
+@Slf4j
+@Component
+public class TopicOutboxRelay {
+
+    private final TopicOutboxRepository outboxRepository;
+    private final TopicEventProducer eventProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration interval;
+
+    private final DistributionSummary batchSizes;
+    private final Timer relayLag;
+    private final Counter failures;
+
+    private volatile boolean running;
+    private volatile Thread relayThread;
+
+    public TopicOutboxRelay(TopicOutboxRepository outboxRepository,
+                            TopicEventProducer eventProducer,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${topic.outbox.relay.enabled:true}") boolean enabled,
+                            @Value("${topic.outbox.relay.batch-size:500}") int batchSize,
+                            @Value("${topic.outbox.relay.interval:5s}") Duration interval) {
+        this.outboxRepository = outboxRepository;
+        this.eventProducer = eventProducer;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.interval = interval;
+        this.batchSizes = DistributionSummary.builder("topic.outbox.relay.batch")
+                .description("TopicSubmittedEvents published per relay batch")
+                .register(meterRegistry);
+        this.relayLag = Timer.builder("topic.outbox.relay.lag")
+                .description("Time from the submission's commit until its event was acknowledged by Kafka")
+                .register(meterRegistry);
+        this.failures = Counter.builder("topic.outbox.relay.failures")
+                .description("Relay batches rolled back because publishing failed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        relayThread = Thread.ofVirtual().name("topic-outbox-relay").start(this::run);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+            relayThread.join(interval.toMillis() + 5_000);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            int relayed;
+            try {
+                relayed = relayBatch();
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("Outbox relay: batch failed, retrying in {}: {}", interval, e.getMessage());
+                relayed = 0;
+            }
+            if (relayed < batchSize) {
+                // Returns early on a wake-up (including one signalled while the batch ran) or on stop()
+                LockSupport.parkNanos(this, interval.toNanos());
+            }
+        }
+    }
+
+    /**
+     * Wakes the relay once a submission's outbox row has committed (or immediately, when the
+     * event is published outside a transaction).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOutboxWritten(TopicOutboxWrittenEvent event) {
+        Thread thread = relayThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Publishes and deletes one batch of outbox rows.
+     *
+     * @return The number of events relayed (0 when the outbox is empty).
+     */
+    public int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<TopicOutboxEntity> batch = outboxRepository.lockNextBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            eventProducer.sendTopicSubmittedEvents(batch.stream()
+                    .map(row -> new TopicSubmittedEvent(row.getTopicId(), row.getNormalizedQuery()))
+                    .toList());
+            outboxRepository.deleteAllInBatch(batch);
+
+            LocalDateTime now = LocalDateTime.now();
+            batch.forEach(row -> relayLag.record(Duration.between(row.getCreatedAt(), now)));
+            batchSizes.record(batch.size());
+            return batch.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+}
@@ -0,0 +1,61 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Kafka value deserializer reading every EventFormat, chosen per record by its content-type header.
+ * Records without the header (producers that predate it) are read as JSON, so JSON and binary
+ * producers can share a topic. JsonDeserializer's settings (trusted packages, type mappings,
+ * type headers) apply to both formats.
+ */
+public class EventDeserializer implements Deserializer<Object> {
+
+    private final Map<EventFormat, JsonDeserializer<Object>> delegates = new EnumMap<>(EventFormat.class);
+
+    public EventDeserializer() {
+        for (EventFormat format : EventFormat.values()) {
+            delegates.put(format, new JsonDeserializer<>(format.objectMapper()));
+        }
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegates.values().forEach(delegate -> delegate.configure(configs, isKey));
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return delegates.get(EventFormat.JSON).deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        return delegates.get(formatOf(headers)).deserialize(topic, headers, data);
+    }
+
+    private static EventFormat formatOf(Headers headers) {
+        Header contentType = headers.lastHeader(EventFormat.CONTENT_TYPE_HEADER);
+        if (contentType == null) {
+            return EventFormat.JSON;
+        }
+        String value = new String(contentType.value(), StandardCharsets.UTF_8);
+        EventFormat format = EventFormat.fromContentType(value);
+        if (format == null) {
+            throw new SerializationException("Unsupported event content-type: " + value);
+        }
+        return format;
+    }
+
+    @Override
+    public void close() {
+        delegates.values().forEach(JsonDeserializer::close);
+    }
+}
@@ -0,0 +1,71 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.serde;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.util.Locale;
+
+/**
+ * Wire formats of the inter-service Kafka events, announced in the record's content-type header.
+ * * FORMATS:
+ * - JSON: the original encoding; records without a content-type header are JSON.
+ * - SMILE: Jackson's binary JSON. Same data model and type headers, but field names are written
+ *   once per record and repeated string values (video titles, URLs) are back-referenced, so large
+ *   AnalysisCompletedEvents shrink and parse faster.
+ */
+public enum EventFormat {
+
+    JSON("application/json"),
+    SMILE("application/x-jackson-smile");
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+
+    private final String contentType;
+
+    EventFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * @return A mapper configured like Spring Kafka's JSON default (unknown properties ignored).
+     */
+    public ObjectMapper objectMapper() {
+        if (this == JSON) {
+            return JacksonUtils.enhancedObjectMapper();
+        }
+        return SmileMapper.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .addModule(new JavaTimeModule())
+                .build();
+    }
+
+    /**
+     * @param value A configured format name, e.g. "json" or "smile".
+     */
+    public static EventFormat of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return The format announced by a content-type header value, or null when none matches.
+     */
+    public static EventFormat fromContentType(String contentType) {
+        for (EventFormat format : values()) {
+            if (format.contentType.equalsIgnoreCase(contentType.trim())) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
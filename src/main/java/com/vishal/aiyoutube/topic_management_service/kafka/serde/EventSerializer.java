@@ -0,0 +1,100 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.serde;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka value serializer writing each topic's events in its configured EventFormat.
+ * * CONFIG (producer properties):
+ * - {@value #FORMAT_CONFIG}: default format, "json" unless set.
+ * - {@value #TOPIC_FORMATS_CONFIG}: per-topic overrides as "topic:format" pairs separated by commas.
+ *   An override also covers the topic's retry and dead-letter topics ("&lt;topic&gt;-...").
+ * JsonSerializer's own settings (type headers, type mappings) apply to both formats.
+ * * ROLLOUT:
+ * Every record carries a content-type header and EventDeserializer reads both formats, so consumers
+ * are upgraded first and a topic is then switched to SMILE producer by producer, while JSON records
+ * from services not yet switched keep flowing on the same topic.
+ */
+public class EventSerializer implements Serializer<Object> {
+
+    public static final String FORMAT_CONFIG = "topic.serde.format";
+    public static final String TOPIC_FORMATS_CONFIG = "topic.serde.topic-formats";
+
+    private final Map<EventFormat, JsonSerializer<Object>> delegates = new EnumMap<>(EventFormat.class);
+    private final Map<String, EventFormat> topicFormats = new HashMap<>();
+    private EventFormat defaultFormat = EventFormat.JSON;
+
+    public EventSerializer() {
+        for (EventFormat format : EventFormat.values()) {
+            delegates.put(format, new JsonSerializer<>(format.objectMapper()));
+        }
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegates.values().forEach(delegate -> delegate.configure(configs, isKey));
+
+        Object format = configs.get(FORMAT_CONFIG);
+        if (format != null && !format.toString().isBlank()) {
+            defaultFormat = EventFormat.of(format.toString());
+        }
+        Object overrides = configs.get(TOPIC_FORMATS_CONFIG);
+        if (overrides != null) {
+            for (String pair : overrides.toString().split(",")) {
+                if (pair.isBlank()) {
+                    continue;
+                }
+                String[] topicAndFormat = pair.split(":");
+                if (topicAndFormat.length != 2) {
+                    throw new IllegalArgumentException("Expected topic:format in " + TOPIC_FORMATS_CONFIG + ", got: " + pair);
+                }
+                topicFormats.put(topicAndFormat[0].trim(), EventFormat.of(topicAndFormat[1]));
+            }
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        // No headers to announce the format in: only JSON is readable without one
+        return serialize(topic, new RecordHeaders(), data, EventFormat.JSON);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        return serialize(topic, headers, data, formatFor(topic));
+    }
+
+    /**
+     * @return The topic's configured format: its own override, its main topic's override, or the default.
+     */
+    public EventFormat formatFor(String topic) {
+        EventFormat format = topicFormats.get(topic);
+        if (format != null) {
+            return format;
+        }
+        for (Map.Entry<String, EventFormat> override : topicFormats.entrySet()) {
+            if (topic.startsWith(override.getKey() + "-")) {
+                return override.getValue();
+            }
+        }
+        return defaultFormat;
+    }
+
+    private byte[] serialize(String topic, Headers headers, Object data, EventFormat format) {
+        headers.remove(EventFormat.CONTENT_TYPE_HEADER);
+        headers.add(EventFormat.CONTENT_TYPE_HEADER, format.contentType().getBytes(StandardCharsets.UTF_8));
+        return delegates.get(format).serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        delegates.values().forEach(JsonSerializer::close);
+    }
+}
@@ -0,0 +1,14 @@
+package com.vishal.aiyoutube.topic_management_service.repository;
+
+import com.vishal.aiyoutube.topic_management_service.entity.QueryNormalizationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the persisted raw-to-normalized query mappings
+ * stored in the 'query_normalizations' table.
+ * The primary key is the canonicalized raw query, so {@code findById} is the lookup path.
+ */
+@Repository
+public interface QueryNormalizationRepository extends JpaRepository<QueryNormalizationEntity, String> {
+}
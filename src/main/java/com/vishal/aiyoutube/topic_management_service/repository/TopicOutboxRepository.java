@@ -0,0 +1,24 @@
+package com.vishal.aiyoutube.topic_management_service.repository;
+
+import com.vishal.aiyoutube.topic_management_service.entity.TopicOutboxEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for the pending TopicSubmittedEvents stored in the 'topic_outbox' table.
+ */
+@Repository
+public interface TopicOutboxRepository extends JpaRepository<TopicOutboxEntity, Long> {
+
+    /**
+     * Locks the oldest pending rows for the current transaction.
+     * SKIP LOCKED: rows already claimed by a relay on another node are passed over instead of
+     * waited for, so several nodes drain disjoint batches concurrently.
+     */
+    @Query(value = "SELECT * FROM topic_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<TopicOutboxEntity> lockNextBatch(@Param("limit") int limit);
+}
@@ -1,9 +1,20 @@
 package com.vishal.aiyoutube.topic_management_service.repository;
 
+import com.vishal.aiyoutube.topic_management_service.entity.NormalizationSourceEntity;
 import com.vishal.aiyoutube.topic_management_service.entity.TopicEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,15 +27,173 @@ import java.util.UUID;
 public interface TopicRepository extends JpaRepository<TopicEntity, UUID> {
 
     /**
-     * Finds an existing topic based on the AI-normalized search keywords.
+     * Loads a topic together with its embedded analysis result and all video insights in one
+     * SQL statement (LEFT JOIN on video_insights), so mapping it to a TopicResponse triggers no
+     * lazy loads and needs no open session. Runs in its own read-only transaction: Hibernate
+     * keeps no dirty-checking snapshots and never flushes.
+     * * USAGE:
+     * Read path of the polling endpoint (GET /api/v1/topics/{id}), which the dashboard hits
+     * every 2 seconds per open report.
+     *
+     * @param id The unique UUID of the research topic.
+     * @return An Optional containing the fully initialized topic.
+     */
+    @Transactional(readOnly = true)
+    @EntityGraph(attributePaths = "videoInsights")
+    @Query("select t from TopicEntity t where t.id = :id")
+    Optional<TopicEntity> findWithInsightsById(@Param("id") UUID id);
+
+    /**
+     * Reads only a topic's revision counter (a primary-key lookup on one column), so the
+     * polling endpoint can answer a conditional GET without loading the insights collection.
+     *
+     * @param id The unique UUID of the research topic.
+     * @return The current version, if the topic exists.
+     */
+    @Transactional(readOnly = true)
+    @Query("select t.version from TopicEntity t where t.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    /**
+     * Finds an existing topic by the fingerprint of its normalized keywords.
      * This method is critical for the system's deduplication logic.
      * * USAGE:
-     * When a new request arrives, the service layer calls this method using the
-     * Grok-normalized query. If a result is found, the system returns the existing
-     * report instead of triggering a new, expensive AI analysis pipeline.
+     * When a new request arrives, the service layer fingerprints the Grok-normalized query and
+     * looks it up through the unique index, so keyword order ("camera review iphone 16" vs
+     * "iphone 16 review camera") does not trigger a second, expensive AI analysis pipeline.
      *
-     * @param normalizedQuery The unified, SEO-optimized search term (e.g., "India Union Budget 2026").
+     * @param queryFingerprint The 32-character fingerprint produced by QueryFingerprint.
      * @return An Optional containing the topic if it was previously processed and stored.
      */
-    Optional<TopicEntity> findByNormalizedQuery(String normalizedQuery);
+    Optional<TopicEntity> findByQueryFingerprint(String queryFingerprint);
+
+    /**
+     * Atomically inserts a new PENDING topic unless one with the same fingerprint exists.
+     * * RACE SAFETY:
+     * Concurrent submissions (across threads or service instances) of the same topic both reach
+     * this statement; the unique index lets exactly one insert win, and the loser's statement
+     * waits for the winner to commit and then inserts nothing.
+     *
+     * @return 1 if the topic was inserted, 0 if a topic with this fingerprint already existed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO topics (id, raw_query, normalized_query, query_fingerprint, normalization_source, " +
+            "status, version, created_at, updated_at) " +
+            "VALUES (:id, :rawQuery, :normalizedQuery, :queryFingerprint, :normalizationSource, :status, 0, :now, :now) " +
+            "ON CONFLICT (query_fingerprint) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id,
+                       @Param("rawQuery") String rawQuery,
+                       @Param("normalizedQuery") String normalizedQuery,
+                       @Param("queryFingerprint") String queryFingerprint,
+                       @Param("normalizationSource") String normalizationSource,
+                       @Param("status") String status,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Moves a topic to a new pipeline status in one statement, without loading the entity.
+     * * GUARD:
+     * The row is only updated while its current status ranks below the new one (the CASE mirrors
+     * TopicStatusEntity#getRank), so an out-of-order EXTRACTING arriving after COMPLETED is a no-op.
+     * The version is bumped in the same statement to keep ETags and change events in step; being
+     * atomic it needs no version check itself, and an analysis write that read the topic before it
+     * fails its optimistic check and is retried instead of writing the old status back.
+     *
+     * @param id     The unique UUID of the research topic.
+     * @param status The new status name.
+     * @param rank   The new status' rank.
+     * @param now    The update timestamp.
+     * @return 1 if the status advanced, 0 if the update was stale or the topic does not exist.
+     */
+    @Modifying
+    @Query(value = "UPDATE topics SET status = :status, version = version + 1, updated_at = :now " +
+            "WHERE id = :id AND (CASE status WHEN 'EXTRACTING' THEN 1 WHEN 'ANALYZING' THEN 2 " +
+            "WHEN 'COMPLETED' THEN 3 WHEN 'FAILED' THEN 3 ELSE 0 END) < :rank", nativeQuery = true)
+    int advanceStatus(@Param("id") UUID id,
+                      @Param("status") String status,
+                      @Param("rank") int rank,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Topics created before fingerprints existed, for the startup backfill.
+     * Duplicates already marked with their owner are left out, so a finished backfill returns nothing.
+     * Keyset-paged on id, because rows whose fingerprint is taken stay null and would
+     * otherwise be returned again within a run.
+     *
+     * @param afterId  The last id of the previous page.
+     * @param pageable Page size (sorting is fixed to id).
+     */
+    @Query("select t.id as id, t.normalizedQuery as normalizedQuery from TopicEntity t " +
+            "where t.queryFingerprint is null and t.fingerprintOwnerId is null " +
+            "and t.normalizedQuery is not null and t.id > :afterId " +
+            "order by t.id")
+    List<TopicQuery> findFingerprintBackfillCandidates(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Normalized queries of topics in the given status, keyset-paged on id.
+     * Used to rebuild the in-memory near-duplicate index on startup.
+     *
+     * @param status   Usually COMPLETED: only finished reports are worth reusing.
+     * @param afterId  The last id of the previous page.
+     * @param pageable Page size (sorting is fixed to id).
+     */
+    @Query("select t.id as id, t.normalizedQuery as normalizedQuery from TopicEntity t " +
+            "where t.status = :status and t.normalizedQuery is not null and t.id > :afterId " +
+            "order by t.id")
+    List<TopicQuery> findQueriesByStatus(@Param("status") TopicStatusEntity status,
+                                         @Param("afterId") UUID afterId,
+                                         Pageable pageable);
+
+    /**
+     * Sets a backfilled fingerprint unless another topic already owns it, in which case the
+     * older duplicate stays unfingerprinted (and is no longer a dedup target); see markFingerprintDuplicate.
+     *
+     * @return 1 if the fingerprint was set, 0 if it was already taken.
+     */
+    @Modifying
+    @Query(value = "UPDATE topics SET query_fingerprint = :queryFingerprint WHERE id = :id " +
+            "AND NOT EXISTS (SELECT 1 FROM topics WHERE query_fingerprint = :queryFingerprint)", nativeQuery = true)
+    int backfillFingerprint(@Param("id") UUID id, @Param("queryFingerprint") String queryFingerprint);
+
+    /**
+     * Records which topic owns the fingerprint a backfill candidate could not take, so the
+     * candidate is not scanned again on the next start.
+     *
+     * @return 1 if the owner was recorded, 0 if no topic owns the fingerprint (any more).
+     */
+    @Modifying
+    @Query(value = "UPDATE topics SET fingerprint_owner_id = (SELECT id FROM topics WHERE query_fingerprint = :queryFingerprint) " +
+            "WHERE id = :id AND EXISTS (SELECT 1 FROM topics WHERE query_fingerprint = :queryFingerprint)", nativeQuery = true)
+    int markFingerprintDuplicate(@Param("id") UUID id, @Param("queryFingerprint") String queryFingerprint);
+
+    /**
+     * Streams (raw query, normalized query) pairs used to train the local keyword extractor.
+     * Topics normalized by the extractor itself are excluded so it only learns from Grok output.
+     *
+     * @param excludedSource The source to leave out (LOCAL).
+     * @param pageable       Page window over the corpus, newest topics first when sorted by createdAt.
+     * @return A slice of query pairs.
+     */
+    @Query("select t.rawQuery as rawQuery, t.normalizedQuery as normalizedQuery from TopicEntity t " +
+            "where t.normalizedQuery is not null " +
+            "and (t.normalizationSource is null or t.normalizationSource <> :excludedSource)")
+    Slice<QueryPair> findNormalizationCorpus(@Param("excludedSource") NormalizationSourceEntity excludedSource,
+                                             Pageable pageable);
+
+    /**
+     * Closed projection of a topic's raw and normalized query.
+     */
+    interface QueryPair {
+        String getRawQuery();
+
+        String getNormalizedQuery();
+    }
+
+    /**
+     * Closed projection of a topic's id and normalized query.
+     */
+    interface TopicQuery {
+        UUID getId();
+
+        String getNormalizedQuery();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.vishal.aiyoutube.topic_management_service.repository;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk write path for video insights, used by the analysis merge instead of one INSERT per segment.
+ * * STRATEGY:
+ * 1. Up to {@code copy-threshold} segments: one JDBC batch per {@code batch-size} rows. With
+ *    reWriteBatchedInserts=true on the datasource URL, pgjdbc sends each batch as multi-row
+ *    INSERT ... VALUES (...), (...) statements.
+ * 2. Above it, on PostgreSQL: COPY into a transaction-scoped temp table, then a single
+ *    INSERT ... SELECT into video_insights.
+ * * ROWS:
+ * Both paths write the same columns the entity mapping does and skip segments the topic already
+ * has (ON CONFLICT DO NOTHING on uk_video_insights_topic_video_ts). Rows are inserted in list
+ * order, so seq follows the order of the segments. Must run inside the caller's transaction.
+ */
+@Slf4j
+@Repository
+public class VideoInsightBatchWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO video_insights (id, topic_id, video_id, video_title, " +
+            "video_url, timestamp, best_explanation, segment_summary) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String COPY_TABLE_SQL = "CREATE TEMP TABLE video_insights_load (ord int, id uuid, " +
+            "video_id varchar(255), video_title varchar(255), video_url varchar(255), timestamp varchar(255), " +
+            "best_explanation text, segment_summary text) ON COMMIT DROP";
+
+    private static final String COPY_SQL = "COPY video_insights_load FROM STDIN (FORMAT csv)";
+
+    private static final String COPY_MERGE_SQL = "INSERT INTO video_insights (id, topic_id, video_id, video_title, " +
+            "video_url, timestamp, best_explanation, segment_summary) " +
+            "SELECT id, ?, video_id, video_title, video_url, timestamp, best_explanation, segment_summary " +
+            "FROM video_insights_load ORDER BY ord ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int copyThreshold;
+
+    public VideoInsightBatchWriter(JdbcTemplate jdbcTemplate,
+                                   @Value("${topic.insights.batch-size:500}") int batchSize,
+                                   @Value("${topic.insights.copy-threshold:5000}") int copyThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.copyThreshold = copyThreshold;
+    }
+
+    /**
+     * Appends a topic's new segments, skipping those it already has.
+     *
+     * @param topicId  The unique UUID of the research topic.
+     * @param segments Segments already deduplicated among themselves, in insertion order.
+     */
+    public void insertAll(UUID topicId, List<VideoSegmentDTO> segments) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        if (copyThreshold > 0 && segments.size() >= copyThreshold && Boolean.TRUE.equals(
+                jdbcTemplate.execute((Connection connection) -> connection.isWrapperFor(PGConnection.class)))) {
+            jdbcTemplate.execute((Connection connection) -> copy(connection, topicId, segments));
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, segments, batchSize, (statement, segment) -> {
+            statement.setObject(1, UUID.randomUUID());
+            statement.setObject(2, topicId);
+            statement.setString(3, segment.getVideoId());
+            statement.setString(4, segment.getVideoTitle());
+            statement.setString(5, segment.getVideoUrl());
+            statement.setString(6, segment.getTimestamp());
+            statement.setString(7, segment.getBestExplanation());
+            statement.setString(8, segment.getSegmentSummary());
+        });
+    }
+
+    private int copy(Connection connection, UUID topicId, List<VideoSegmentDTO> segments) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(COPY_TABLE_SQL);
+        }
+
+        StringBuilder csv = new StringBuilder(segments.size() * 256);
+        for (int i = 0; i < segments.size(); i++) {
+            VideoSegmentDTO segment = segments.get(i);
+            csv.append(i).append(',').append(UUID.randomUUID());
+            appendCsv(csv, segment.getVideoId());
+            appendCsv(csv, segment.getVideoTitle());
+            appendCsv(csv, segment.getVideoUrl());
+            appendCsv(csv, segment.getTimestamp());
+            appendCsv(csv, segment.getBestExplanation());
+            appendCsv(csv, segment.getSegmentSummary());
+            csv.append('\n');
+        }
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("COPY of " + segments.size() + " video insights failed", e);
+        }
+
+        int inserted;
+        try (var merge = connection.prepareStatement(COPY_MERGE_SQL)) {
+            merge.setObject(1, topicId);
+            inserted = merge.executeUpdate();
+        }
+        // Dropped right away, so another topic of the same batch transaction can COPY again
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE video_insights_load");
+        }
+        log.debug("COPY merge: {} of {} segment(s) inserted for Topic {}", inserted, segments.size(), topicId);
+        return inserted;
+    }
+
+    /**
+     * CSV field: null stays an unquoted empty field (COPY reads it as NULL), anything else is
+     * quoted with embedded quotes doubled, so an empty string stays an empty string.
+     */
+    private static void appendCsv(StringBuilder csv, String value) {
+        csv.append(',');
+        if (value != null) {
+            csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
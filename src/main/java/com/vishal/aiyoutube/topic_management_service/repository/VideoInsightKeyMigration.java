@@ -0,0 +1,97 @@
+package com.vishal.aiyoutube.topic_management_service.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Startup migration owning the video_insights natural key (topic_id, video_id, timestamp) on PostgreSQL.
+ * * FLOW:
+ * 1. Runs once the schema update has finished and before listeners or the web server start.
+ * 2. If the key is missing or still treats NULLs as distinct, locks the table against writers, deletes
+ * duplicate moments (keeping the first inserted, by seq) and rebuilds the key NULL-safe: NULLS NOT DISTINCT
+ * on PostgreSQL 15+, a unique index over coalesced columns before that.
+ * 3. Verifies the result and aborts startup otherwise, since ON CONFLICT DO NOTHING silently stops
+ * deduplicating segment merges without it.
+ * ddl-auto=update only creates a unique key when no index of that name exists, so it never replaces the rebuilt key.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class VideoInsightKeyMigration {
+
+    static final String KEY_NAME = "uk_video_insights_topic_video_ts";
+
+    private static final String KEY_DEFINITION_SQL = "SELECT indexdef FROM pg_indexes " +
+            "WHERE schemaname = current_schema() AND indexname = '" + KEY_NAME + "'";
+
+    private static final String DELETE_DUPLICATES_SQL = "DELETE FROM video_insights WHERE id IN (" +
+            "SELECT id FROM (SELECT id, row_number() OVER (PARTITION BY %s ORDER BY seq) AS rn " +
+            "FROM video_insights) ranked WHERE rn > 1)";
+
+    private static final String KEY_COLUMNS = "topic_id, video_id, \"timestamp\"";
+
+    private static final String COALESCED_KEY_COLUMNS = "topic_id, coalesce(video_id, ''), coalesce(\"timestamp\", '')";
+
+    private static final String NULLS_NOT_DISTINCT_SQL = "ALTER TABLE video_insights ADD CONSTRAINT " + KEY_NAME +
+            " UNIQUE NULLS NOT DISTINCT (" + KEY_COLUMNS + ")";
+
+    private static final String COALESCED_INDEX_SQL = "CREATE UNIQUE INDEX " + KEY_NAME +
+            " ON video_insights (" + COALESCED_KEY_COLUMNS + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> connection.isWrapperFor(PGConnection.class)))) {
+            return;
+        }
+        int majorVersion = jdbcTemplate.execute((Connection connection) -> connection.getMetaData().getDatabaseMajorVersion());
+        if (isNullSafe(keyDefinition(), majorVersion)) {
+            return;
+        }
+
+        int removed = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE video_insights IN SHARE ROW EXCLUSIVE MODE");
+            jdbcTemplate.execute("ALTER TABLE video_insights DROP CONSTRAINT IF EXISTS " + KEY_NAME);
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + KEY_NAME);
+            if (majorVersion >= 15) {
+                int deleted = jdbcTemplate.update(DELETE_DUPLICATES_SQL.formatted(KEY_COLUMNS));
+                jdbcTemplate.execute(NULLS_NOT_DISTINCT_SQL);
+                return deleted;
+            }
+            int deleted = jdbcTemplate.update(DELETE_DUPLICATES_SQL.formatted(COALESCED_KEY_COLUMNS));
+            jdbcTemplate.execute(COALESCED_INDEX_SQL);
+            return deleted;
+        });
+
+        String definition = keyDefinition();
+        if (!isNullSafe(definition, majorVersion)) {
+            throw new IllegalStateException("video_insights key " + KEY_NAME + " is missing or not NULL-safe after " +
+                    "migration (found: " + definition + "); segment merges would store duplicates");
+        }
+        log.info("Rebuilt video_insights key {} after removing {} duplicate insights: {}", KEY_NAME, removed, definition);
+    }
+
+    private String keyDefinition() {
+        List<String> definitions = jdbcTemplate.queryForList(KEY_DEFINITION_SQL, String.class);
+        return definitions.isEmpty() ? null : definitions.get(0);
+    }
+
+    static boolean isNullSafe(String definition, int majorVersion) {
+        if (definition == null || !definition.startsWith("CREATE UNIQUE INDEX")) {
+            return false;
+        }
+        return majorVersion >= 15 ? definition.contains("NULLS NOT DISTINCT") : definition.contains("COALESCE");
+    }
+}
@@ -0,0 +1,38 @@
+package com.vishal.aiyoutube.topic_management_service.repository;
+
+import com.vishal.aiyoutube.topic_management_service.entity.VideoInsightEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository interface for {@link VideoInsightEntity} rows, accessed independently of their topic.
+ * Serves the incremental read path without loading a topic's whole insights collection; bulk
+ * appends go through {@link VideoInsightBatchWriter}.
+ */
+@Repository
+public interface VideoInsightRepository extends JpaRepository<VideoInsightEntity, UUID> {
+
+    /**
+     * Returns a topic's insights inserted after the given cursor, oldest first.
+     * * USAGE:
+     * Backs GET /api/v1/topics/{id}/highlights?after={cursor}: a range scan on the
+     * (topic_id, seq) index, so a poll costs O(new rows) however many insights the topic has.
+     *
+     * @param topicId  The unique UUID of the research topic.
+     * @param after    The last seq the client has seen (0 for none).
+     * @param pageable Page size (sorting is fixed to seq).
+     * @return At most one page of newer insights.
+     */
+    @Transactional(readOnly = true)
+    @Query("select i from VideoInsightEntity i where i.topic.id = :topicId and i.seq > :after order by i.seq")
+    List<VideoInsightEntity> findByTopicAfter(@Param("topicId") UUID topicId,
+                                              @Param("after") long after,
+                                              Pageable pageable);
+}
@@ -0,0 +1,162 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.dto.DeadLetterReplayResponse;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Replays dead-letter records (see RetryTopicProducer) once the cause of their failure is fixed.
+ * * OPERATION:
+ * 1. Reads '<topic>-dlt' from the offsets committed by the 'topic-service-dlt-replay' group.
+ * 2. Republishes each record, key and value unchanged, to '<topic>', where it starts over as a
+ *    fresh event (retry stages included).
+ * 3. Commits the replay group's offsets after each poll's sends are acknowledged, so a record is
+ *    never lost; after a crash in between it may be replayed twice, which the consumers tolerate.
+ * 4. Stops at a record this release still cannot deserialize (dead-lettered as raw bytes by
+ *    KafkaConsumerConfig), leaving it and the records behind it for a release that can read them.
+ * Replays on one node are serialized; the admin endpoint is not meant to be called concurrently.
+ */
+@Slf4j
+@Service
+public class DeadLetterReplayService {
+
+    private static final String REPLAY_GROUP = "topic-service-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(DeadLetterReplayService.class);
+
+    private final ConsumerFactory<String, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public DeadLetterReplayService(ConsumerFactory<String, Object> consumerFactory,
+                                   KafkaTemplate<String, Object> kafkaTemplate,
+                                   MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param topic      The main topic whose dead letters to replay (one of RetryTopicProducer.RETRIED_TOPICS).
+     * @param maxRecords Upper bound on records republished by this call.
+     * @throws IllegalArgumentException when the topic has no dead-letter topic.
+     */
+    public synchronized DeadLetterReplayResponse replay(String topic, int maxRecords) {
+        if (!RetryTopicProducer.RETRIED_TOPICS.contains(topic)) {
+            throw new IllegalArgumentException("No dead-letter topic for: " + topic);
+        }
+        String deadLetterTopic = RetryTopicProducer.deadLetterTopic(topic);
+
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(Math.max(1, maxRecords)));
+
+        try (Consumer<String, Object> consumer = consumerFactory.createConsumer(REPLAY_GROUP, null, "-replay", overrides)) {
+            List<TopicPartition> partitions = consumer.partitionsFor(deadLetterTopic).stream()
+                    .map(info -> new TopicPartition(deadLetterTopic, info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+
+            int replayed = 0;
+            boolean unreadable = false;
+            while (replayed < maxRecords && !unreadable) {
+                ConsumerRecords<String, Object> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                Map<TopicPartition, OffsetAndMetadata> processed = new HashMap<>();
+                for (ConsumerRecord<String, Object> record : records) {
+                    if (replayed >= maxRecords) {
+                        break;
+                    }
+                    if (isUnreadable(record)) {
+                        log.warn("DLT replay: record {} of {} at offset {} is still unreadable, stopping before it",
+                                record.key(), deadLetterTopic, record.offset());
+                        unreadable = true;
+                        break;
+                    }
+                    send(topic, record);
+                    processed.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                consumer.commitSync(processed);
+            }
+
+            long remaining = remaining(consumer, partitions);
+            Counter.builder("topic.kafka.dlt.replayed")
+                    .description("Dead-letter records republished to their original topic")
+                    .tag("topic", topic)
+                    .register(meterRegistry)
+                    .increment(replayed);
+            log.info("DLT replay: {} record(s) of {} republished to {}, {} remaining", replayed, deadLetterTopic, topic, remaining);
+
+            return DeadLetterReplayResponse.builder()
+                    .deadLetterTopic(deadLetterTopic)
+                    .targetTopic(topic)
+                    .replayed(replayed)
+                    .remaining(remaining)
+                    .build();
+        }
+    }
+
+    private void send(String topic, ConsumerRecord<String, Object> record) {
+        try {
+            kafkaTemplate.send(topic, record.key(), record.value()).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying to " + topic, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Unable to replay dead-letter record to " + topic, e);
+        }
+    }
+
+    /**
+     * A null value with a deserialization failure header: republishing it would send an empty record.
+     */
+    private static boolean isUnreadable(ConsumerRecord<String, Object> record) {
+        return record.value() == null && SerializationUtils.getExceptionFromHeader(record,
+                SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR) != null;
+    }
+
+    /**
+     * Records between the replay group's committed offsets (or the log start) and the log end.
+     */
+    private static long remaining(Consumer<String, Object> consumer, List<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+        Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+
+        long remaining = 0;
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            long from = offset == null ? beginning.get(partition) : Math.max(offset.offset(), beginning.get(partition));
+            remaining += end.get(partition) - from;
+        }
+        return remaining;
+    }
+}
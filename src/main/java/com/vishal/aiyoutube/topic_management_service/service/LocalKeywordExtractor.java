@@ -0,0 +1,209 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.entity.NormalizationSourceEntity;
+import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deterministic, in-process keyword extractor used when Grok is slow, rate-limited or failing.
+ * Produces the same 5-6 keyword shape as the Grok SEO agent.
+ * * ALGORITHM:
+ * 1. Tokenize the canonicalized query and drop stopwords, conversational filler and stray letters.
+ * 2. Stem each token (light suffix stripping) so "reviews"/"review" share statistics.
+ * 3. Weight each stem by how often Grok kept it when it appeared in a historical raw query
+ *    (Laplace-smoothed keep rate learned from the topics table), plus a small bonus for numbers.
+ * 4. Keep the six highest-weighted tokens in their original order.
+ */
+@Slf4j
+@Component
+public class LocalKeywordExtractor {
+
+    private static final int MAX_KEYWORDS = 6;
+    private static final int CORPUS_PAGE_SIZE = 1000;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "about", "above", "after", "again", "all", "am", "an", "and", "any", "are", "as", "at",
+            "be", "because", "been", "before", "being", "between", "both", "but", "by", "can", "could",
+            "did", "do", "does", "doing", "down", "during", "each", "few", "for", "from", "further",
+            "had", "has", "have", "having", "he", "her", "here", "hers", "him", "his", "how", "i", "if",
+            "in", "into", "is", "it", "its", "just", "let", "me", "more", "most", "my", "no", "nor", "not",
+            "of", "off", "on", "once", "only", "or", "other", "our", "out", "over", "own", "same", "she",
+            "should", "so", "some", "such", "than", "that", "the", "their", "them", "then", "there",
+            "these", "they", "this", "those", "through", "to", "too", "under", "until", "up", "very",
+            "was", "we", "were", "what", "when", "where", "which", "while", "who", "whom", "why", "will",
+            "with", "would", "you", "your", "yours",
+            // Conversational filler common in research requests
+            "please", "tell", "show", "give", "explain", "know", "want", "need", "find", "looking",
+            "something", "anything", "thing", "things", "like", "really", "also", "much", "many", "lot");
+
+    /**
+     * Per-stem count of historical raw queries containing the stem.
+     */
+    private final Map<String, AtomicInteger> seenCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Per-stem count of those raw queries whose Grok-normalized form kept the stem.
+     */
+    private final Map<String, AtomicInteger> keptCounts = new ConcurrentHashMap<>();
+
+    private final TopicRepository topicRepository;
+    private final int corpusSize;
+
+    public LocalKeywordExtractor(
+            TopicRepository topicRepository,
+            @Value("${topic.normalization.local.corpus-size:50000}") int corpusSize
+    ) {
+        this.topicRepository = topicRepository;
+        this.corpusSize = corpusSize;
+    }
+
+    /**
+     * Warms the term statistics from the most recent Grok-normalized topics.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCorpus() {
+        int loaded = 0;
+        PageRequest page = PageRequest.of(0, CORPUS_PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt"));
+        try {
+            while (loaded < corpusSize) {
+                Slice<TopicRepository.QueryPair> slice =
+                        topicRepository.findNormalizationCorpus(NormalizationSourceEntity.LOCAL, page);
+                slice.forEach(pair -> learn(pair.getRawQuery(), pair.getNormalizedQuery()));
+                loaded += slice.getNumberOfElements();
+                if (!slice.hasNext()) {
+                    break;
+                }
+                page = page.next();
+            }
+            log.info("Local keyword extractor trained on {} historical queries ({} stems)", loaded, seenCounts.size());
+        } catch (Exception e) {
+            log.warn("Local keyword extractor could not load its corpus; using unweighted extraction: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records one Grok normalization so the extractor keeps learning while the service runs.
+     *
+     * @param rawQuery        The user's original query.
+     * @param normalizedQuery The keywords Grok produced for it.
+     */
+    public void learn(String rawQuery, String normalizedQuery) {
+        Set<String> kept = new HashSet<>();
+        for (String token : tokenize(normalizedQuery)) {
+            kept.add(stem(token));
+        }
+        Set<String> seen = new HashSet<>();
+        for (String token : tokenize(rawQuery)) {
+            String stem = stem(token);
+            if (isCandidate(token) && seen.add(stem)) {
+                seenCounts.computeIfAbsent(stem, key -> new AtomicInteger()).incrementAndGet();
+                if (kept.contains(stem)) {
+                    keptCounts.computeIfAbsent(stem, key -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Extracts up to six keywords from a raw query.
+     *
+     * @param rawQuery The user's original query.
+     * @return A space-separated keyword string in the same shape as the sanitized Grok output,
+     * except that letters of any script are kept.
+     * @throws AnalysisProcessingException if the query contains no letters or digits at all.
+     */
+    public String extract(String rawQuery) {
+        List<String> tokens = tokenize(rawQuery);
+
+        List<String> candidates = new ArrayList<>();
+        Set<String> stems = new HashSet<>();
+        for (String token : tokens) {
+            if (isCandidate(token) && stems.add(stem(token))) {
+                candidates.add(token);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = tokens.stream().distinct().toList();
+        }
+        if (candidates.isEmpty()) {
+            // An empty result would share one fingerprint (and so one topic) with every other such query
+            throw new AnalysisProcessingException("Query has no searchable keywords: " + rawQuery, null);
+        }
+
+        // Rank by weight but emit in query order, so the keywords still read naturally
+        Set<String> selected = new HashSet<>(candidates.stream()
+                .sorted(Comparator.comparingDouble(this::weight).reversed())
+                .limit(MAX_KEYWORDS)
+                .toList());
+
+        // Tokens are already canonical (lowercase letters and digits); sanitize() would also strip
+        // every non-ASCII letter and reduce a non-Latin query to nothing
+        return String.join(" ", candidates.stream()
+                .filter(selected::contains)
+                .toList());
+    }
+
+    /**
+     * Laplace-smoothed probability that Grok keeps this term, with a bonus for numbers
+     * (years, model numbers) which are almost always significant in search queries.
+     */
+    double weight(String token) {
+        String stem = stem(token);
+        int seen = count(seenCounts, stem);
+        int kept = count(keptCounts, stem);
+        double keepRate = (kept + 1.0) / (seen + 2.0);
+        return token.chars().anyMatch(Character::isDigit) ? keepRate + 0.25 : keepRate;
+    }
+
+    /**
+     * Stopwords and stray single letters (e.g. the "s" left behind by "india's") are never keywords.
+     */
+    private static boolean isCandidate(String token) {
+        return !STOPWORDS.contains(token) && (token.length() > 1 || Character.isDigit(token.charAt(0)));
+    }
+
+    private static int count(Map<String, AtomicInteger> counts, String stem) {
+        AtomicInteger count = counts.get(stem);
+        return count == null ? 0 : count.get();
+    }
+
+    private static List<String> tokenize(String text) {
+        String canonical = QueryNormalizationService.canonicalize(text);
+        return canonical.isEmpty() ? List.of() : Arrays.asList(canonical.split(" "));
+    }
+
+    /**
+     * Light English suffix stripping; deliberately conservative so stems stay recognizable.
+     */
+    static String stem(String token) {
+        int length = token.length();
+        if (length > 4 && token.endsWith("ies")) {
+            return token.substring(0, length - 3) + "y";
+        }
+        if (length > 5 && token.endsWith("ing")) {
+            return token.substring(0, length - 3);
+        }
+        if (length > 4 && token.endsWith("ed")) {
+            return token.substring(0, length - 2);
+        }
+        if (length > 4 && (token.endsWith("ches") || token.endsWith("shes") || token.endsWith("xes"))) {
+            return token.substring(0, length - 2);
+        }
+        if (length > 3 && token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us")) {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+}
@@ -0,0 +1,12 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.entity.NormalizationSourceEntity;
+
+/**
+ * Result of normalizing a raw user query.
+ *
+ * @param query  The sanitized 5-6 keyword search string.
+ * @param source The strategy that produced the keywords.
+ */
+public record NormalizedQuery(String query, NormalizationSourceEntity source) {
+}
@@ -0,0 +1,60 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Order-insensitive fingerprint of a normalized query, used as the topic deduplication key.
+ * * ALGORITHM:
+ * 1. Canonicalize (NFKC, lowercase, punctuation to spaces) exactly like the normalization cache key.
+ * 2. Split into tokens, drop duplicates and sort, so "iphone 16 review camera" and
+ *    "camera review iphone 16" produce the same token set.
+ * 3. SHA-256 the space-joined set and keep the first 128 bits as 32 hex characters:
+ *    fixed width, cheap to index, and collision-free for any realistic number of topics.
+ */
+public final class QueryFingerprint {
+
+    private static final int FINGERPRINT_BYTES = 16;
+
+    private QueryFingerprint() {
+    }
+
+    /**
+     * @param normalizedQuery The normalized search keywords.
+     * @return The 32-character lowercase hex fingerprint.
+     */
+    public static String of(String normalizedQuery) {
+        String tokenSet = String.join(" ", tokens(normalizedQuery));
+
+        byte[] digest = sha256().digest(tokenSet.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, FINGERPRINT_BYTES);
+    }
+
+    /**
+     * The canonical token set a fingerprint is computed from (distinct, sorted).
+     * Also the shingle set for near-duplicate matching in {@link TopicSimilarityIndex}.
+     *
+     * @param normalizedQuery The normalized search keywords.
+     * @return The sorted, distinct, canonicalized tokens.
+     */
+    public static List<String> tokens(String normalizedQuery) {
+        return Arrays.stream(QueryNormalizationService.canonicalize(normalizedQuery).split(" "))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
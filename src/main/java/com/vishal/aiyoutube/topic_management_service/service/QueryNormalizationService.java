@@ -0,0 +1,289 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vishal.aiyoutube.topic_management_service.config.GrokClient;
+import com.vishal.aiyoutube.topic_management_service.entity.NormalizationSourceEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.QueryNormalizationEntity;
+import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import com.vishal.aiyoutube.topic_management_service.repository.QueryNormalizationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Turns raw user queries into the 5-6 keyword search strings used for YouTube searching
+ * and topic deduplication.
+ * * LOOKUP ORDER:
+ * 1. In-process Caffeine cache (size- and TTL-bounded, per node).
+ * 2. Persisted 'query_normalizations' table (shared across nodes, survives restarts).
+ * 3. Grok AI round trip, whose sanitized result is written back to both tiers.
+ * 4. Local keyword extraction, when Grok fails or misses the configured latency budget.
+ *    Local results are tagged LOCAL and never cached.
+ */
+@Slf4j
+@Service
+public class QueryNormalizationService {
+
+    static final String SEO_SYSTEM_PROMPT = "You are a YouTube Search SEO expert. " +
+            "Convert the user's request into a single search string of 5 to 6 keywords. " +
+            "Rules: Return ONLY keywords, no quotes, no backticks, no lists.";
+
+    private static final int MAX_KEYWORDS = 6;
+
+    // Combining marks are part of the word (Devanagari vowel signs, decomposed accents), not punctuation
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{M}\\p{N}\\s]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final String PATH_MEMORY = "memory";
+    private static final String PATH_DATABASE = "database";
+    private static final String PATH_GROK = "grok";
+    private static final String PATH_LOCAL = "local";
+
+    private final GrokClient grokClient;
+    private final QueryNormalizationRepository normalizationRepository;
+    private final SingleFlight<String, NormalizedQuery> normalizationFlight;
+    private final ExecutorService topicTaskExecutor;
+    private final LocalKeywordExtractor localExtractor;
+
+    /**
+     * Whether Grok failures and budget overruns fall back to the local extractor.
+     */
+    private final boolean localFallbackEnabled;
+
+    /**
+     * Maximum time to wait for Grok before using the local result; zero disables the budget.
+     */
+    private final Duration latencyBudget;
+
+    /**
+     * End-to-end normalization latency per resolution path (memory, database, grok, local).
+     */
+    private final Map<String, Timer> latencyTimers;
+
+    /**
+     * First-tier cache keyed on the canonicalized raw query.
+     */
+    private final Cache<String, String> normalizationCache;
+
+    public QueryNormalizationService(
+            GrokClient grokClient,
+            QueryNormalizationRepository normalizationRepository,
+            SingleFlight<String, NormalizedQuery> normalizationFlight,
+            ExecutorService topicTaskExecutor,
+            LocalKeywordExtractor localExtractor,
+            MeterRegistry meterRegistry,
+            @Value("${topic.normalization.cache.max-size:10000}") long maxSize,
+            @Value("${topic.normalization.cache.ttl:6h}") Duration ttl,
+            @Value("${topic.normalization.local.fallback-enabled:true}") boolean localFallbackEnabled,
+            @Value("${topic.normalization.latency-budget:2000ms}") Duration latencyBudget
+    ) {
+        this.grokClient = grokClient;
+        this.normalizationRepository = normalizationRepository;
+        this.normalizationFlight = normalizationFlight;
+        this.topicTaskExecutor = topicTaskExecutor;
+        this.localExtractor = localExtractor;
+        this.localFallbackEnabled = localFallbackEnabled;
+        this.latencyBudget = latencyBudget;
+        this.latencyTimers = Map.of(
+                PATH_MEMORY, latencyTimer(meterRegistry, PATH_MEMORY),
+                PATH_DATABASE, latencyTimer(meterRegistry, PATH_DATABASE),
+                PATH_GROK, latencyTimer(meterRegistry, PATH_GROK),
+                PATH_LOCAL, latencyTimer(meterRegistry, PATH_LOCAL));
+        this.normalizationCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        // Publishes hit/miss/eviction/size stats under 'cache.*{cache=topic.normalization}'
+        CaffeineCacheMetrics.monitor(meterRegistry, normalizationCache, "topic.normalization");
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String path) {
+        return Timer.builder("topic.normalization.latency")
+                .description("Time to resolve a normalized query, by resolution path")
+                .tag("path", path)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolves the normalized search string for a raw query, consulting the cache tiers
+     * before falling back to Grok. Blocks the caller; see {@link #normalizeAsync}.
+     *
+     * @param rawQuery The user's original query.
+     * @return The sanitized 5-6 keyword search string and the strategy that produced it.
+     */
+    public NormalizedQuery normalize(String rawQuery) {
+        return SingleFlight.await(normalizeAsync(rawQuery));
+    }
+
+    /**
+     * Non-blocking variant of {@link #normalize}. Memory-tier hits complete immediately;
+     * the table lookup and mapping write run on the topic task executor, and the Grok call
+     * holds no thread while waiting.
+     *
+     * @param rawQuery The user's original query.
+     * @return A future of the sanitized 5-6 keyword search string and its source.
+     */
+    public CompletableFuture<NormalizedQuery> normalizeAsync(String rawQuery) {
+        long startNanos = System.nanoTime();
+        String queryKey = canonicalize(rawQuery);
+
+        String cached = normalizationCache.getIfPresent(queryKey);
+        if (cached != null) {
+            log.debug("Normalization cache hit (memory) for key: {}", queryKey);
+            record(PATH_MEMORY, startNanos);
+            return CompletableFuture.completedFuture(new NormalizedQuery(cached, NormalizationSourceEntity.GROK));
+        }
+
+        // Identical raw queries arriving together share a single database/Grok resolution
+        return normalizationFlight.executeAsync(queryKey, () -> resolve(queryKey, rawQuery, startNanos));
+    }
+
+    /**
+     * Second-tier lookup followed by the Grok call (or the local fallback). Runs once per in-flight key.
+     */
+    private CompletableFuture<NormalizedQuery> resolve(String queryKey, String rawQuery, long startNanos) {
+        return CompletableFuture.supplyAsync(() -> normalizationRepository.findById(queryKey), topicTaskExecutor)
+                .thenCompose(persisted -> {
+                    if (persisted.isPresent()) {
+                        log.debug("Normalization cache hit (database) for key: {}", queryKey);
+                        String normalized = persisted.get().getNormalizedQuery();
+                        normalizationCache.put(queryKey, normalized);
+                        record(PATH_DATABASE, startNanos);
+                        return CompletableFuture.completedFuture(
+                                new NormalizedQuery(normalized, NormalizationSourceEntity.GROK));
+                    }
+
+                    return askGrok(rawQuery).toFuture()
+                            .thenApplyAsync(result -> {
+                                log.info("Sanitized query for YouTube ({}): {}", result.source(), result.query());
+
+                                if (result.source() == NormalizationSourceEntity.GROK) {
+                                    normalizationCache.put(queryKey, result.query());
+                                    persistMapping(queryKey, result.query());
+                                    localExtractor.learn(rawQuery, result.query());
+                                    record(PATH_GROK, startNanos);
+                                } else {
+                                    // Local results are not cached, so the next request gets another chance at Grok quality
+                                    record(PATH_LOCAL, startNanos);
+                                }
+                                return result;
+                            }, topicTaskExecutor);
+                });
+    }
+
+    /**
+     * Calls Grok, substituting the local extractor's keywords when the call fails, returns no usable
+     * keywords or, in latency-budget mode, has not answered within the budget.
+     */
+    private Mono<NormalizedQuery> askGrok(String rawQuery) {
+        Mono<NormalizedQuery> grok = grokClient
+                .chatAsync(SEO_SYSTEM_PROMPT, rawQuery, QueryNormalizationService::hasUsableKeywords)
+                .map(aiResponse -> new NormalizedQuery(sanitize(aiResponse), NormalizationSourceEntity.GROK))
+                // sanitize() keeps ASCII only, so e.g. a non-Latin answer comes back empty; it must not become a topic key
+                .filter(result -> !result.query().isEmpty())
+                .switchIfEmpty(Mono.error(() -> new AnalysisProcessingException("Grok returned no usable keywords", null)));
+
+        if (!localFallbackEnabled) {
+            return grok;
+        }
+        if (!latencyBudget.isZero()) {
+            grok = grok.timeout(latencyBudget);
+        }
+        return grok.onErrorResume(e -> {
+            log.warn("Grok normalization unavailable ({}); using local keyword extraction", e.toString());
+            return Mono.fromSupplier(() ->
+                    new NormalizedQuery(localExtractor.extract(rawQuery), NormalizationSourceEntity.LOCAL));
+        });
+    }
+
+    private void record(String path, long startNanos) {
+        latencyTimers.get(path).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes the learned mapping to the shared table. A concurrent insert of the same key
+     * by another node is harmless, so constraint violations are ignored.
+     */
+    private void persistMapping(String queryKey, String normalized) {
+        try {
+            normalizationRepository.save(QueryNormalizationEntity.builder()
+                    .queryKey(queryKey)
+                    .normalizedQuery(normalized)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Normalization mapping for '{}' already persisted by another writer", queryKey);
+        }
+    }
+
+    /**
+     * Builds the cache key for a raw query: Unicode-normalized, lowercased,
+     * punctuation stripped and whitespace collapsed, so trivially different spellings
+     * of the same request ("AI job trends?" vs "ai  job trends") share one entry.
+     */
+    static String canonicalize(String rawQuery) {
+        if (rawQuery == null) {
+            return "";
+        }
+        String lowered = Normalizer.normalize(rawQuery, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(NON_WORD.matcher(lowered).replaceAll(" ")).replaceAll(" ").trim();
+    }
+
+    /**
+     * Decides whether a (streamed, possibly partial) completion already determines the final
+     * normalized query: {@link #sanitize} only keeps the first line and the first six words,
+     * so anything after the first newline or the sixth complete word is discarded anyway.
+     */
+    static boolean hasUsableKeywords(CharSequence partial) {
+        int completedWords = 0;
+        boolean inWord = false;
+        for (int i = 0; i < partial.length(); i++) {
+            char c = partial.charAt(i);
+            if (c == '\n') {
+                return true;
+            }
+            if (Character.isWhitespace(c)) {
+                if (inWord && ++completedWords >= MAX_KEYWORDS) {
+                    return true;
+                }
+                inWord = false;
+            } else {
+                inWord = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reduces the raw AI completion to a single line of at most six plain keywords.
+     */
+    static String sanitize(String aiResponse) {
+        String cleanedResponse = aiResponse.split("\\n")[0]
+                .replaceAll("[\\\"'`]", "")
+                .replaceAll("[^a-zA-Z0-9\\s]", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+
+        String[] words = cleanedResponse.split(" ");
+        return words.length > MAX_KEYWORDS ?
+                String.join(" ", Arrays.copyOfRange(words, 0, MAX_KEYWORDS)) : cleanedResponse;
+    }
+}
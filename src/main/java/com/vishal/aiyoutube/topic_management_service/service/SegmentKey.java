@@ -0,0 +1,15 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+
+/**
+ * Identity of a video insight within its topic: the same moment of the same video.
+ * Mirrors the uk_video_insights_topic_video_ts constraint, so a hash set of keys deduplicates
+ * incoming segments in O(1) each before they reach the database.
+ */
+record SegmentKey(String videoId, String timestamp) {
+
+    static SegmentKey of(VideoSegmentDTO segment) {
+        return new SegmentKey(segment.getVideoId(), segment.getTimestamp());
+    }
+}
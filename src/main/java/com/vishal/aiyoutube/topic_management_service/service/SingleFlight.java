@@ -0,0 +1,117 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent executions of the same keyed unit of work.
+ * * BEHAVIOUR:
+ * The first caller for a key (the "leader") runs the work; every caller arriving while it is
+ * still in flight (a "coalesced" caller) waits for and receives the leader's result or exception.
+ * The key is released as soon as the leader finishes, so results are never cached here.
+ * Both blocking ({@link #execute}) and non-blocking ({@link #executeAsync}) callers share the same flights.
+ *
+ * @param <K> The key identifying identical work (e.g. a canonicalized query).
+ * @param <V> The shared result type.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaderCounter;
+    private final Counter coalescedCounter;
+
+    /**
+     * @param name     Flight name, used as the 'flight' tag on the request counters.
+     * @param registry Registry receiving 'topic.singleflight.requests{role=leader|coalesced}'.
+     */
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.leaderCounter = Counter.builder("topic.singleflight.requests")
+                .description("Requests that executed the shared work themselves")
+                .tag("flight", name)
+                .tag("role", "leader")
+                .register(registry);
+        this.coalescedCounter = Counter.builder("topic.singleflight.requests")
+                .description("Requests that piggy-backed on an identical in-flight request")
+                .tag("flight", name)
+                .tag("role", "coalesced")
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code work} for {@code key} unless an identical execution is already in flight,
+     * in which case the caller blocks until that execution completes and shares its outcome.
+     *
+     * @param key  The coalescing key.
+     * @param work The work to execute when this caller becomes the leader.
+     * @return The (possibly shared) result.
+     */
+    public V execute(K key, Supplier<V> work) {
+        return await(executeAsync(key, () -> CompletableFuture.completedFuture(work.get())));
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}: starts {@code work} for {@code key} unless an
+     * identical execution is already in flight, and returns a future of the shared outcome.
+     * The key is released when the leader's future completes, not when this method returns.
+     *
+     * @param key  The coalescing key.
+     * @param work Supplies the leader's asynchronous work.
+     * @return A future completing with the (possibly shared) result.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> work) {
+        CompletableFuture<V> leaderFuture = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, leaderFuture);
+
+        if (existing != null) {
+            coalescedCounter.increment();
+            return existing;
+        }
+
+        leaderCounter.increment();
+        leaderFuture.whenComplete((result, ex) -> inFlight.remove(key, leaderFuture));
+        try {
+            work.get().whenComplete((result, ex) -> {
+                if (ex != null) {
+                    leaderFuture.completeExceptionally(unwrap(ex));
+                } else {
+                    leaderFuture.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            leaderFuture.completeExceptionally(e);
+        }
+        return leaderFuture;
+    }
+
+    /**
+     * Number of keys currently being executed by a leader.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Joins a future, rethrowing the original runtime exception instead of its CompletionException wrapper.
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
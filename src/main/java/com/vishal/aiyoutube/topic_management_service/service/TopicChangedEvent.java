@@ -0,0 +1,13 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import java.util.UUID;
+
+/**
+ * In-process application event published whenever a topic's persisted state (status, analysis
+ * result or insights) is written. Listeners that keep derived state, such as the TopicResponse
+ * cache, react after the writing transaction commits.
+ *
+ * @param topicId The topic that changed.
+ */
+public record TopicChangedEvent(UUID topicId) {
+}
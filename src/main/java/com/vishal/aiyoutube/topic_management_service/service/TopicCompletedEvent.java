@@ -0,0 +1,14 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import java.util.UUID;
+
+/**
+ * In-process application event published when an analysis write moves a topic to COMPLETED.
+ * The similarity index only picks it up after the writing transaction commits, so a rolled-back
+ * completion is never offered for reuse.
+ *
+ * @param topicId         The topic that completed.
+ * @param normalizedQuery The topic's normalized keywords.
+ */
+public record TopicCompletedEvent(UUID topicId, String normalizedQuery) {
+}
@@ -0,0 +1,320 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.dto.StatusUpdateEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.dto.VideoInsightResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.exceptions.EventStreamLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server-Sent Events fan-out of topic progress, replacing the 2 second polling loop.
+ * * EVENTS (the event id is always the topic version, see TopicEntity#version):
+ * - 'snapshot':   the full TopicResponse; sent on connect, on a resume gap and once the topic is final.
+ * - 'status':     a StatusUpdateEvent for every pipeline stage change.
+ * - 'highlights': only the VideoInsightResponses the client has not seen yet.
+ * * FLOW:
+ * 1. Every committed write publishes a TopicChangedEvent; for topics with open streams the new
+ *    state is loaded once (through the response cache) and diffed per stream on a virtual thread.
+ * 2. A reconnecting EventSource sends Last-Event-ID; if it matches the current version nothing is
+ *    replayed, otherwise a snapshot closes the gap.
+ * 3. Idle streams hold no thread: Tomcat parks them in its poller until a write or heartbeat.
+ * * LIMITS:
+ * At most {@code max-streams} streams are open per node; beyond that clients get 503 and poll.
+ */
+@Slf4j
+@Component
+public class TopicEventBroadcaster {
+
+    private final TopicService topicService;
+    private final ExecutorService topicTaskExecutor;
+    private final int maxStreams;
+    private final Duration streamTimeout;
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final Counter rejections;
+
+    public TopicEventBroadcaster(
+            TopicService topicService,
+            @Qualifier("topicTaskExecutor") ExecutorService topicTaskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${topic.events.max-streams:10000}") int maxStreams,
+            @Value("${topic.events.timeout:30m}") Duration streamTimeout,
+            @Value("${topic.events.heartbeat:15s}") Duration heartbeat
+    ) {
+        this.topicService = topicService;
+        this.topicTaskExecutor = topicTaskExecutor;
+        this.maxStreams = maxStreams;
+        this.streamTimeout = streamTimeout;
+
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("topic-events-heartbeat").daemon().factory());
+        heartbeatScheduler.scheduleAtFixedRate(this::heartbeat,
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("topic.events.streams.open", openStreams, AtomicInteger::get)
+                .description("Open topic event (SSE) streams on this node")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("topic.events.rejections")
+                .description("Topic event streams refused because the node was at max-streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens an event stream for a topic.
+     *
+     * @param topicId     The unique UUID of the research topic.
+     * @param lastEventId The Last-Event-ID sent by a reconnecting EventSource, or null.
+     * @return The emitter, already holding the initial snapshot unless the client is up to date.
+     * @throws EventStreamLimitException when this node is at its stream cap.
+     */
+    public SseEmitter open(UUID topicId, String lastEventId) {
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            rejections.increment();
+            throw new EventStreamLimitException("Event stream limit of " + maxStreams + " reached");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(topicId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        // Registered before the initial read, so a write committing in between is not lost. Added inside
+        // compute, which excludes unsubscribe dropping the topic's emptied set: the stream can never land
+        // in a set that is no longer in the map (unreachable for pushes, and never given back on close)
+        subscribers.compute(topicId, (id, watching) -> {
+            Set<Subscriber> set = watching != null ? watching : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        try {
+            subscriber.resume(topicService.getTopicDetails(topicId), parseVersion(lastEventId));
+        } catch (RuntimeException e) {
+            unsubscribe(subscriber);
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * Pushes a committed change to every stream open for the topic. Runs after the response
+     * cache has dropped the stale entry, so the reload sees the committed state.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTopicChanged(TopicChangedEvent event) {
+        Set<Subscriber> watching = subscribers.get(event.topicId());
+        if (watching == null || watching.isEmpty()) {
+            return;
+        }
+        topicTaskExecutor.execute(() -> broadcast(event.topicId()));
+    }
+
+    public int openStreams() {
+        return openStreams.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        subscribers.values().forEach(watching -> watching.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void broadcast(UUID topicId) {
+        Set<Subscriber> watching = subscribers.get(topicId);
+        if (watching == null) {
+            return;
+        }
+        TopicResponse current;
+        try {
+            current = topicService.getTopicDetails(topicId);
+        } catch (RuntimeException e) {
+            log.warn("Event stream: could not load topic {}: {}", topicId, e.getMessage());
+            return;
+        }
+        // One virtual thread per stream, so a client with a full socket buffer only delays itself
+        watching.forEach(subscriber -> dispatch(() -> subscriber.push(current)));
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(watching -> watching.forEach(subscriber -> dispatch(subscriber::heartbeat)));
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            topicTaskExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Event stream dispatch skipped during shutdown");
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.topicId, (id, watching) -> {
+            removed[0] = watching.remove(subscriber);
+            return watching.isEmpty() ? null : watching;
+        });
+        if (removed[0]) {
+            openStreams.decrementAndGet();
+        }
+    }
+
+    private static Long parseVersion(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isFinal(TopicStatusEntity status) {
+        return status == TopicStatusEntity.COMPLETED || status == TopicStatusEntity.FAILED;
+    }
+
+    private static String highlightKey(VideoInsightResponse highlight) {
+        return highlight.getVideoUrl() + '@' + highlight.getTimestamp();
+    }
+
+    /**
+     * One open stream and what its client has already been sent. All sends to a stream are
+     * serialized by its lock; versions only move forward, so a reload that lost a race is dropped.
+     */
+    private final class Subscriber {
+
+        private final UUID topicId;
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Set<String> sentHighlights = new HashSet<>();
+        private long version = -1;
+        private TopicStatusEntity status;
+        private boolean closed;
+
+        private Subscriber(UUID topicId, SseEmitter emitter) {
+            this.topicId = topicId;
+            this.emitter = emitter;
+        }
+
+        void resume(TopicResponse current, Long lastEventId) {
+            lock.lock();
+            try {
+                boolean upToDate = lastEventId != null && lastEventId.equals(current.getVersion());
+                if (!upToDate || isFinal(current.getStatus())) {
+                    send("snapshot", current.getVersion(), current);
+                }
+                remember(current);
+                completeIfFinal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void push(TopicResponse current) {
+            lock.lock();
+            try {
+                if (closed || current.getVersion() <= version) {
+                    return;
+                }
+                if (isFinal(current.getStatus())) {
+                    send("snapshot", current.getVersion(), current);
+                } else {
+                    if (current.getStatus() != status) {
+                        send("status", current.getVersion(),
+                                new StatusUpdateEvent(topicId, current.getStatus().name(), null));
+                    }
+                    List<VideoInsightResponse> fresh = current.getVideoHighlights().stream()
+                            .filter(highlight -> !sentHighlights.contains(highlightKey(highlight)))
+                            .toList();
+                    if (!fresh.isEmpty()) {
+                        send("highlights", current.getVersion(), fresh);
+                    }
+                }
+                remember(current);
+                completeIfFinal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void heartbeat() {
+            // Skip rather than queue behind a send that is still blocked on this client
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                if (!closed) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void send(String name, long eventVersion, Object data) {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().id(String.valueOf(eventVersion)).name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Event stream for topic {} closed by client: {}", topicId, e.getMessage());
+                close();
+            }
+        }
+
+        private void remember(TopicResponse current) {
+            version = current.getVersion();
+            status = current.getStatus();
+            current.getVideoHighlights().forEach(highlight -> sentHighlights.add(highlightKey(highlight)));
+        }
+
+        private void completeIfFinal() {
+            if (!closed && isFinal(status)) {
+                closed = true;
+                emitter.complete();
+                unsubscribe(this);
+            }
+        }
+
+        private void close() {
+            closed = true;
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One-off startup job assigning query fingerprints to topics created before the column existed.
+ * Idempotent: a topic whose fingerprint is already taken is marked with the owning topic, so once every
+ * topic has a fingerprint or an owner, each run is a single empty query.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TopicFingerprintBackfill {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final TopicRepository topicRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        UUID afterId = new UUID(0, 0);
+        int assigned = 0;
+        int duplicates = 0;
+        try {
+            while (true) {
+                List<TopicRepository.TopicQuery> page =
+                        topicRepository.findFingerprintBackfillCandidates(afterId, PageRequest.ofSize(PAGE_SIZE));
+                if (page.isEmpty()) {
+                    break;
+                }
+                int updated = transactionTemplate.execute(status -> page.stream()
+                        .mapToInt(candidate -> {
+                            String fingerprint = QueryFingerprint.of(candidate.getNormalizedQuery());
+                            if (topicRepository.backfillFingerprint(candidate.getId(), fingerprint) == 1) {
+                                return 1;
+                            }
+                            topicRepository.markFingerprintDuplicate(candidate.getId(), fingerprint);
+                            return 0;
+                        })
+                        .sum());
+                assigned += updated;
+                duplicates += page.size() - updated;
+                afterId = page.get(page.size() - 1).getId();
+            }
+            if (assigned + duplicates > 0) {
+                log.info("Fingerprint backfill: {} topics fingerprinted, {} duplicates marked with their owner",
+                        assigned, duplicates);
+            }
+        } catch (Exception e) {
+            log.warn("Fingerprint backfill stopped early; it resumes on next start: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import java.util.UUID;
+
+/**
+ * In-process application event published when a submission writes a row to the topic outbox.
+ * The outbox relay is woken once the writing transaction commits, so the event goes out right
+ * away instead of on the relay's next idle poll.
+ *
+ * @param topicId The submitted topic.
+ */
+public record TopicOutboxWrittenEvent(UUID topicId) {
+}
@@ -0,0 +1,121 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded, read-through cache of assembled TopicResponse objects for the polling endpoint.
+ * * EXPIRY:
+ * - COMPLETED / FAILED topics no longer change: kept for the long terminal TTL.
+ * - In-progress topics are invalidated on every write (see {@link #onTopicChanged}); their short
+ *   TTL only bounds staleness on instances that did not consume the write's Kafka event.
+ * - Unknown ids are negatively cached for a moment so a tab polling a bad id cannot hammer Postgres.
+ * * CONSISTENCY:
+ * Loads run inside Caffeine's atomic per-key compute and invalidation happens after the writing
+ * transaction commits, so a load racing a write can never leave the pre-commit state cached.
+ * Cached responses are shared between requests and must not be mutated.
+ */
+@Slf4j
+@Component
+public class TopicResponseCache {
+
+    private final Cache<UUID, CachedResponse> cache;
+
+    /**
+     * @param response Null for an unknown topic id (negative entry).
+     */
+    private record CachedResponse(TopicResponse response) {
+    }
+
+    public TopicResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${topic.response-cache.max-size:10000}") long maxSize,
+            @Value("${topic.response-cache.terminal-ttl:1h}") Duration terminalTtl,
+            @Value("${topic.response-cache.in-progress-ttl:10s}") Duration inProgressTtl,
+            @Value("${topic.response-cache.negative-ttl:2s}") Duration negativeTtl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<UUID, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(UUID topicId, CachedResponse cached, long currentTime) {
+                        return ttl(cached).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(UUID topicId, CachedResponse cached, long currentTime, long currentDuration) {
+                        return ttl(cached).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(UUID topicId, CachedResponse cached, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    private Duration ttl(CachedResponse cached) {
+                        if (cached.response() == null) {
+                            return negativeTtl;
+                        }
+                        TopicStatusEntity status = cached.response().getStatus();
+                        return status == TopicStatusEntity.COMPLETED || status == TopicStatusEntity.FAILED
+                                ? terminalTtl : inProgressTtl;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // Publishes hit/miss/eviction/size stats under 'cache.*{cache=topic.response}'
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "topic.response");
+    }
+
+    /**
+     * Returns the cached response for a topic, loading (and caching) it on a miss.
+     *
+     * @param topicId The unique UUID of the research topic.
+     * @param loader  Builds the response from the database; returns null when the topic does not exist.
+     * @return The response, or null for an unknown topic.
+     */
+    public TopicResponse get(UUID topicId, Function<UUID, TopicResponse> loader) {
+        return cache.get(topicId, id -> new CachedResponse(loader.apply(id))).response();
+    }
+
+    /**
+     * @return The cached response, or null when absent or negatively cached. Never loads.
+     */
+    public TopicResponse getIfPresent(UUID topicId) {
+        CachedResponse cached = cache.getIfPresent(topicId);
+        return cached == null ? null : cached.response();
+    }
+
+    public void invalidate(UUID topicId) {
+        cache.invalidate(topicId);
+    }
+
+    /**
+     * Drops the entry once the write that changed the topic has committed (or immediately,
+     * when the event is published outside a transaction). Ordered first, so listeners that
+     * re-read the topic after commit (e.g. the event stream fan-out) never see the stale entry.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTopicChanged(TopicChangedEvent event) {
+        log.debug("Invalidating cached response for topic {}", event.topicId());
+        invalidate(event.topicId());
+    }
+}
@@ -1,10 +1,13 @@
 package com.vishal.aiyoutube.topic_management_service.service;
 
 import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.HighlightPageResponse;
 import com.vishal.aiyoutube.topic_management_service.dto.TopicRequest;
 import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Core Service interface defining the business logic for Research Topic management.
@@ -15,16 +18,30 @@ public interface TopicService {
     /**
      * The primary entry point for a new user research request.
      * * EXECUTION FLOW:
-     * 1. Performs SEO normalization on the raw query via Grok AI agents.
-     * 2. Checks PostgreSQL for existing reports to prevent duplicate AI costs.
-     * 3. Persists the TopicEntity with an initial status of PENDING.
-     * 4. Dispatches a TopicSubmittedEvent to Kafka to trigger downstream microservices.
+     * 1. Performs SEO normalization on the raw query via Grok AI agents
+     *    (skipped when the raw query is already in the normalization cache).
+     * 2. Checks PostgreSQL for existing reports (by order-insensitive query fingerprint)
+     *    to prevent duplicate AI costs.
+     * 3. Persists the TopicEntity with an initial status of PENDING (insert-or-return-existing).
+     * 4. Records a TopicSubmittedEvent in the transactional outbox, in the same transaction;
+     *    TopicOutboxRelay publishes it to Kafka to trigger downstream microservices.
      *
      * @param request The DTO containing the user's raw query string.
      * @return A TopicResponse containing the assigned UUID and the initial PENDING status.
      */
     TopicResponse createTopicRequest(TopicRequest request);
 
+    /**
+     * Non-blocking variant of {@link #createTopicRequest(TopicRequest)}.
+     * * USAGE:
+     * Used by the REST layer so a submission does not pin a servlet thread while
+     * waiting on Grok normalization; the future completes once the topic is persisted.
+     *
+     * @param request The DTO containing the user's raw query string.
+     * @return A future of the TopicResponse containing the assigned UUID and current status.
+     */
+    CompletableFuture<TopicResponse> createTopicRequestAsync(TopicRequest request);
+
     /**
      * Retrieves the current state, progress messages, and synthesized insights for a topic.
      * * USAGE:
@@ -36,6 +53,29 @@ public interface TopicService {
      */
     TopicResponse getTopicDetails(UUID topicId);
 
+    /**
+     * Returns the topic's current version without assembling the full response.
+     * * USAGE:
+     * Backs conditional GETs: the controller compares it with the client's If-None-Match
+     * and answers 304 Not Modified when nothing changed since the last poll.
+     *
+     * @param topicId The unique UUID of the research topic.
+     * @return The monotonically increasing version.
+     */
+    long getTopicVersion(UUID topicId);
+
+    /**
+     * Returns the video highlights added to a topic after the given cursor.
+     * * USAGE:
+     * Lets a polling client fetch only new highlights while the topic is ANALYZING instead of
+     * re-downloading the whole list; the returned nextCursor is passed back on the next call.
+     *
+     * @param topicId The unique UUID of the research topic.
+     * @param after   The cursor from the previous page (0 to start from the beginning).
+     * @return The new highlights (bounded page) and the cursor to continue from.
+     */
+    HighlightPageResponse getTopicHighlights(UUID topicId, long after);
+
     /**
      * Finalizes the research topic once the Llama-3 synthesis agents have finished.
      * * EXECUTION FLOW:
@@ -48,6 +88,20 @@ public interface TopicService {
      */
     void updateTopicWithAnalysis(AnalysisCompletedEvent event);
 
+    /**
+     * Batch variant of {@link #updateTopicWithAnalysis(AnalysisCompletedEvent)} for one Kafka poll.
+     * * EXECUTION FLOW:
+     * 1. Groups the events by topic, keeping their arrival order within each topic.
+     * 2. Applies each topic's partial results in memory exactly as the single-event path would
+     *    (segments merged and deduplicated, the latest final summary wins).
+     * 3. Persists every touched topic once, all in a single transaction.
+     * An unknown topic fails the whole transaction (AnalysisProcessingException), as in the
+     * single-event path, so the consumer can send its events to the retry topics.
+     *
+     * @param events The events of one poll, in partition order.
+     */
+    void updateTopicsWithAnalysis(List<AnalysisCompletedEvent> events);
+
     /**
      * Gracefully handles errors encountered within the asynchronous pipeline.
      * * USAGE:
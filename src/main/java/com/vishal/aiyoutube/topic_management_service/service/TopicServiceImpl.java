@@ -1,101 +1,239 @@
 package com.vishal.aiyoutube.topic_management_service.service;
 
-import com.vishal.aiyoutube.topic_management_service.config.GrokClient;
 import com.vishal.aiyoutube.topic_management_service.dto.*;
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
 import com.vishal.aiyoutube.topic_management_service.entity.*;
 import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
-import com.vishal.aiyoutube.topic_management_service.kafka.producer.TopicEventProducer;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicOutboxRepository;
 import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightBatchWriter;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
  * Implementation of the TopicService responsible for the end-to-end lifecycle of research topics.
- * Manages SEO normalization via Grok AI, persistent deduplication, and Kafka event orchestration.
+ * Delegates SEO normalization to the QueryNormalizationService and manages persistent deduplication
+ * and Kafka event orchestration.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TopicServiceImpl implements TopicService {
 
+    private static final int HIGHLIGHT_PAGE_SIZE = 100;
+
     private final TopicRepository topicRepository;
-    private final TopicEventProducer eventProducer;
-    private final GrokClient grokClient;
+    private final VideoInsightRepository videoInsightRepository;
+    private final VideoInsightBatchWriter videoInsightWriter;
+    private final TopicOutboxRepository outboxRepository;
+    private final QueryNormalizationService normalizationService;
+    private final TransactionTemplate transactionTemplate;
+    private final SingleFlight<String, TopicResponse> topicCreationFlight;
+    private final ExecutorService topicTaskExecutor;
+    private final TopicSimilarityIndex similarityIndex;
+    private final TopicResponseCache responseCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
-    @Transactional
     public TopicResponse createTopicRequest(TopicRequest request) {
-        log.info("Processing original user request: {}", request.getQuery());
-
-        String aiResponse = grokClient.chat(
-                "You are a YouTube Search SEO expert. " +
-                        "Convert the user's request into a single search string of 5 to 6 keywords. " +
-                        "Rules: Return ONLY keywords, no quotes, no backticks, no lists.",
-                request.getQuery()
-        );
-
-        String cleanedResponse = aiResponse.split("\\n")[0]
-                .replaceAll("[\\\"'`]", "")
-                .replaceAll("[^a-zA-Z0-9\\s]", "")
-                .replaceAll("\\s+", " ")
-                .trim();
+        return SingleFlight.await(createTopicRequestAsync(request));
+    }
 
-        String[] words = cleanedResponse.split(" ");
-        String unifiedQuery = words.length > 6 ?
-                String.join(" ", java.util.Arrays.copyOfRange(words, 0, 6)) : cleanedResponse;
+    @Override
+    public CompletableFuture<TopicResponse> createTopicRequestAsync(TopicRequest request) {
+        log.info("Processing original user request: {}", request.getQuery());
 
-        log.info("Sanitized query for YouTube: {}", unifiedQuery);
+        // Normalization runs outside the transaction so a Grok round trip never holds a DB connection
+        return normalizationService.normalizeAsync(request.getQuery())
+                // Concurrent submissions that normalize to the same keyword set share one find-or-create,
+                // so only one TopicEntity is inserted and one TopicSubmittedEvent is published
+                .thenCompose(normalized -> {
+                    String fingerprint = QueryFingerprint.of(normalized.query());
+                    return topicCreationFlight.executeAsync(fingerprint,
+                            () -> CompletableFuture.supplyAsync(
+                                    () -> transactionTemplate.execute(status -> findOrCreateTopic(request, normalized, fingerprint)),
+                                    topicTaskExecutor));
+                });
+    }
 
-        Optional<TopicEntity> existingTopic = topicRepository.findByNormalizedQuery(unifiedQuery);
+    /**
+     * Deduplicates on the query fingerprint, then on similarity to completed topics, and persists a new PENDING topic when none exists.
+     * The insert is INSERT ... ON CONFLICT DO NOTHING, so a concurrent submission on another
+     * instance cannot create a duplicate; the loser returns the winner's topic instead.
+     * Must run inside a transaction.
+     */
+    private TopicResponse findOrCreateTopic(TopicRequest request, NormalizedQuery normalized, String fingerprint) {
+        String unifiedQuery = normalized.query();
+        Optional<TopicEntity> existingTopic = topicRepository.findByQueryFingerprint(fingerprint);
         if (existingTopic.isPresent()) {
             log.info("Deduplication: Found existing record for: {}", unifiedQuery);
             return mapToResponse(existingTopic.get());
         }
 
+        // Near-duplicate of a finished report (e.g. one keyword swapped): reuse it instead of re-running the pipeline
+        Optional<TopicEntity> similarTopic = similarityIndex.findSimilar(unifiedQuery).flatMap(topicRepository::findById);
+        if (similarTopic.isPresent()) {
+            log.info("Deduplication: Reusing similar completed topic '{}' for: {}",
+                    similarTopic.get().getNormalizedQuery(), unifiedQuery);
+            return mapToResponse(similarTopic.get());
+        }
+
         TopicEntity entity = TopicEntity.builder()
+                .id(UUID.randomUUID())
                 .rawQuery(request.getQuery())
                 .normalizedQuery(unifiedQuery)
+                .queryFingerprint(fingerprint)
+                .normalizationSource(normalized.source())
                 .status(TopicStatusEntity.PENDING)
+                // The native insert writes version 0 itself; the response is mapped from this entity, not re-read,
+                // and clients seed If-None-Match / waitFor with its version
+                .version(0L)
                 .videoInsights(new ArrayList<>())
                 .build();
 
-        entity = topicRepository.save(entity);
-        eventProducer.sendTopicSubmittedEvent(new TopicSubmittedEvent(entity.getId(), unifiedQuery));
+        int inserted = topicRepository.insertIfAbsent(entity.getId(), entity.getRawQuery(), unifiedQuery, fingerprint,
+                normalized.source().name(), entity.getStatus().name(), LocalDateTime.now());
+        if (inserted == 0) {
+            log.info("Deduplication: Concurrent submission created the record for: {}", unifiedQuery);
+            return mapToResponse(topicRepository.findByQueryFingerprint(fingerprint)
+                    .orElseThrow(() -> new AnalysisProcessingException("Topic vanished after insert conflict: " + fingerprint, null)));
+        }
+
+        // Outbox row in the same transaction: the event is published (by TopicOutboxRelay) if and only if the topic commits
+        outboxRepository.save(TopicOutboxEntity.builder()
+                .topicId(entity.getId())
+                .normalizedQuery(unifiedQuery)
+                .build());
+        eventPublisher.publishEvent(new TopicOutboxWrittenEvent(entity.getId()));
 
         return mapToResponse(entity);
     }
 
+    /**
+     * Served from the TopicResponse cache; a miss costs one read-only query (the entity graph
+     * fetch), after which the mapping walks already-initialized insights without a session.
+     */
     @Override
     public TopicResponse getTopicDetails(UUID topicId) {
-        TopicEntity entity = topicRepository.findById(topicId)
+        TopicResponse response = responseCache.get(topicId, id -> topicRepository.findWithInsightsById(id)
+                .map(this::mapToResponse)
+                .orElse(null));
+        if (response == null) {
+            throw new AnalysisProcessingException("Topic not found: " + topicId, null);
+        }
+        return response;
+    }
+
+    /**
+     * Answered from the response cache when possible (it is invalidated on every write),
+     * otherwise with a single-column primary-key lookup.
+     */
+    @Override
+    public long getTopicVersion(UUID topicId) {
+        TopicResponse cached = responseCache.getIfPresent(topicId);
+        if (cached != null && cached.getVersion() != null) {
+            return cached.getVersion();
+        }
+        return topicRepository.findVersionById(topicId)
                 .orElseThrow(() -> new AnalysisProcessingException("Topic not found: " + topicId, null));
-        return mapToResponse(entity);
+    }
+
+    /**
+     * A range scan on the (topic_id, seq) index; the topic's existence is only checked
+     * when the page comes back empty.
+     */
+    @Override
+    public HighlightPageResponse getTopicHighlights(UUID topicId, long after) {
+        List<VideoInsightEntity> rows = videoInsightRepository.findByTopicAfter(
+                topicId, after, PageRequest.ofSize(HIGHLIGHT_PAGE_SIZE));
+        if (rows.isEmpty() && !topicRepository.existsById(topicId)) {
+            throw new AnalysisProcessingException("Topic not found: " + topicId, null);
+        }
+
+        return HighlightPageResponse.builder()
+                .topicId(topicId)
+                .highlights(rows.stream().map(this::mapToHighlight).collect(Collectors.toList()))
+                .nextCursor(rows.isEmpty() ? after : rows.get(rows.size() - 1).getSeq())
+                .hasMore(rows.size() == HIGHLIGHT_PAGE_SIZE)
+                .build();
     }
 
     @Override
     @Transactional
     public void handleTopicFailure(UUID topicId, String reason) {
-        topicRepository.findById(topicId).ifPresent(entity -> {
-            entity.setStatus(TopicStatusEntity.FAILED);
-            topicRepository.save(entity);
-            log.error("Pipeline failure for {}: {}", topicId, reason);
-        });
+        // One guarded UPDATE, like status events: no insights load, and a topic already COMPLETED stays so
+        TopicStatusEntity failed = TopicStatusEntity.FAILED;
+        if (topicRepository.advanceStatus(topicId, failed.name(), failed.getRank(), LocalDateTime.now()) == 1) {
+            eventPublisher.publishEvent(new TopicChangedEvent(topicId));
+        }
+        log.error("Pipeline failure for {}: {}", topicId, reason);
     }
 
     @Override
     @Transactional
     public void updateTopicWithAnalysis(AnalysisCompletedEvent event) {
+        // Optimistic: a concurrent write to this topic makes the commit fail its @Version check (see TopicWriteRetry)
         TopicEntity entity = topicRepository.findById(event.getTopicId())
                 .orElseThrow(() -> new AnalysisProcessingException("Sync error: Topic ID not found", null));
 
+        Map<SegmentKey, VideoSegmentDTO> merged = new LinkedHashMap<>();
+        applyAnalysis(entity, event, merged);
+        videoInsightWriter.insertAll(entity.getId(), new ArrayList<>(merged.values()));
+        entity.touch();
+        topicRepository.save(entity);
+        eventPublisher.publishEvent(new TopicChangedEvent(entity.getId()));
+    }
+
+    @Override
+    @Transactional
+    public void updateTopicsWithAnalysis(List<AnalysisCompletedEvent> events) {
+        // Sorted by topic id, so two batches flushing overlapping topics always take row locks in the same order
+        Map<UUID, List<AnalysisCompletedEvent>> eventsByTopic = events.stream()
+                .filter(event -> event.getTopicId() != null)
+                .collect(Collectors.groupingBy(AnalysisCompletedEvent::getTopicId, TreeMap::new, Collectors.toList()));
+
+        eventsByTopic.forEach((topicId, topicEvents) -> {
+            // Usually the analysis beat the topic's commit: failing lets the consumer retry it later
+            TopicEntity entity = topicRepository.findById(topicId)
+                    .orElseThrow(() -> new AnalysisProcessingException("Sync error: Topic ID not found: " + topicId, null));
+            // Shared across the topic's events, so a segment repeated within the batch is inserted once
+            Map<SegmentKey, VideoSegmentDTO> merged = new LinkedHashMap<>();
+            topicEvents.forEach(event -> applyAnalysis(entity, event, merged));
+            videoInsightWriter.insertAll(topicId, new ArrayList<>(merged.values()));
+            entity.touch();
+            topicRepository.save(entity);
+            eventPublisher.publishEvent(new TopicChangedEvent(topicId));
+        });
+    }
+
+    /**
+     * Merges one (partial or final) analysis result into the topic: a final summary completes the
+     * topic, and segments not yet present (by video and timestamp) become new insights.
+     * * SEGMENT MERGE:
+     * Incoming segments are deduplicated into {@code merged} by SegmentKey, in arrival order; the
+     * caller appends them with one VideoInsightBatchWriter call, whose ON CONFLICT DO NOTHING lets
+     * the unique (topic_id, video_id, timestamp) constraint reject the ones the topic already has,
+     * so its existing insights are never loaded.
+     */
+    private void applyAnalysis(TopicEntity entity, AnalysisCompletedEvent event, Map<SegmentKey, VideoSegmentDTO> merged) {
         boolean isFinal = event.getFinalSummary() != null &&
                 !event.getFinalSummary().contains("Analyzing video");
 
@@ -107,30 +245,13 @@ public class TopicServiceImpl implements TopicService {
                     event.getConsensusPercentage(),
                     event.getCommonClaims()
             ));
+            // Indexed after commit: a conflict, failed lane or dead-lettered record rolls this completion back
+            eventPublisher.publishEvent(new TopicCompletedEvent(entity.getId(), entity.getNormalizedQuery()));
         }
 
         if (event.getSegments() != null) {
-            if (entity.getVideoInsights() == null) entity.setVideoInsights(new ArrayList<>());
-
-            for (var segDTO : event.getSegments()) {
-                boolean alreadyExists = entity.getVideoInsights().stream()
-                        .anyMatch(existing -> existing.getVideoId().equals(segDTO.getVideoId()) &&
-                                existing.getTimestamp().equals(segDTO.getTimestamp()));
-
-                if (!alreadyExists) {
-                    entity.getVideoInsights().add(VideoInsightEntity.builder()
-                            .topic(entity)
-                            .videoId(segDTO.getVideoId())
-                            .videoTitle(segDTO.getVideoTitle())
-                            .videoUrl(segDTO.getVideoUrl())
-                            .timestamp(segDTO.getTimestamp())
-                            .bestExplanation(segDTO.getBestExplanation())
-                            .segmentSummary(segDTO.getSegmentSummary())
-                            .build());
-                }
-            }
+            event.getSegments().forEach(segment -> merged.putIfAbsent(SegmentKey.of(segment), segment));
         }
-        topicRepository.save(entity);
     }
 
     /**
@@ -146,6 +267,7 @@ public class TopicServiceImpl implements TopicService {
                 .topicId(entity.getId())
                 .query(entity.getNormalizedQuery() != null ? entity.getNormalizedQuery() : entity.getRawQuery())
                 .status(entity.getStatus())
+                .version(entity.getVersion())
 
                 // 2. Safe Summary Mapping
                 .summary(hasResult && result.getFinalSummary() != null
@@ -164,14 +286,18 @@ public class TopicServiceImpl implements TopicService {
                 // 4. Safe List Mapping
                 .videoHighlights(entity.getVideoInsights() == null ? new ArrayList<>() :
                         entity.getVideoInsights().stream()
-                                .map(i -> VideoInsightResponse.builder()
-                                        .videoTitle(i.getVideoTitle())
-                                        .videoUrl(i.getVideoUrl())
-                                        .timestamp(i.getTimestamp())
-                                        .explanation(i.getBestExplanation())
-                                        .summary(i.getSegmentSummary())
-                                        .build())
+                                .map(this::mapToHighlight)
                                 .collect(Collectors.toList()))
                 .build();
     }
+
+    private VideoInsightResponse mapToHighlight(VideoInsightEntity insight) {
+        return VideoInsightResponse.builder()
+                .videoTitle(insight.getVideoTitle())
+                .videoUrl(insight.getVideoUrl())
+                .timestamp(insight.getTimestamp())
+                .explanation(insight.getBestExplanation())
+                .summary(insight.getSegmentSummary())
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-topic registry of long-poll requests waiting for a topic's version to move past the one
+ * the client already has.
+ * * COST:
+ * A parked request is one small Waiter in a concurrent set keyed by topic: no thread, no timer
+ * (the servlet container times the request out), O(1) to add and to remove. A write wakes only
+ * the waiters of its own topic and loads the new state once for all of them.
+ * * WAKE-UP:
+ * The Kafka consumers publish TopicChangedEvent on every status or analysis write; waiters are
+ * released after that write commits. A write consumed by another instance is not seen here, so
+ * such a waiter only learns of it when its timeout expires and the client polls again.
+ */
+@Slf4j
+@Component
+public class TopicVersionWaiters {
+
+    private final TopicService topicService;
+    private final ExecutorService topicTaskExecutor;
+
+    /**
+     * Upper bound for a client-requested wait.
+     */
+    @Getter
+    private final Duration maxTimeout;
+
+    private final Map<UUID, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger parked = new AtomicInteger();
+
+    public TopicVersionWaiters(
+            TopicService topicService,
+            @Qualifier("topicTaskExecutor") ExecutorService topicTaskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${topic.long-poll.max-timeout:30s}") Duration maxTimeout
+    ) {
+        this.topicService = topicService;
+        this.topicTaskExecutor = topicTaskExecutor;
+        this.maxTimeout = maxTimeout;
+
+        Gauge.builder("topic.long-poll.waiters", parked, AtomicInteger::get)
+                .description("Long-poll requests parked until their topic changes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits until the topic's version differs from {@code knownVersion}.
+     * * USAGE:
+     * Completes immediately when the topic has already moved on. Otherwise the future completes
+     * with the new state on the next committed write; the caller cancels it on timeout, which
+     * also deregisters the waiter.
+     *
+     * @param topicId      The unique UUID of the research topic.
+     * @param knownVersion The version the client already has (its ETag).
+     * @return A future of the changed topic.
+     */
+    public CompletableFuture<TopicResponse> awaitChange(UUID topicId, long knownVersion) {
+        Waiter waiter = new Waiter(topicId, knownVersion, new CompletableFuture<>());
+        register(waiter);
+        waiter.future.whenComplete((response, error) -> deregister(waiter));
+
+        // Checked after registering, so a write committing in between cannot be missed
+        try {
+            if (topicService.getTopicVersion(topicId) != knownVersion) {
+                waiter.future.complete(topicService.getTopicDetails(topicId));
+            }
+        } catch (RuntimeException e) {
+            waiter.future.cancel(false);
+            throw e;
+        }
+        return waiter.future;
+    }
+
+    /**
+     * Releases the topic's waiters once the write has committed. Ordered after the response
+     * cache invalidation, so the reload sees the committed state.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTopicChanged(TopicChangedEvent event) {
+        if (!waiters.containsKey(event.topicId())) {
+            return;
+        }
+        topicTaskExecutor.execute(() -> wake(event.topicId()));
+    }
+
+    public int parked() {
+        return parked.get();
+    }
+
+    private void wake(UUID topicId) {
+        Set<Waiter> waiting = waiters.remove(topicId);
+        if (waiting == null) {
+            return;
+        }
+        // Detached from the map, so nothing else adds to or removes from this set any more
+        parked.addAndGet(-waiting.size());
+        TopicResponse current;
+        try {
+            current = topicService.getTopicDetails(topicId);
+        } catch (RuntimeException e) {
+            log.warn("Long poll: could not load topic {}: {}", topicId, e.getMessage());
+            waiting.forEach(waiter -> waiter.future.completeExceptionally(e));
+            return;
+        }
+        for (Waiter waiter : waiting) {
+            if (current.getVersion() != waiter.knownVersion) {
+                waiter.future.complete(current);
+            } else {
+                // Registered after this write committed and already up to date: keep waiting
+                register(waiter);
+            }
+        }
+    }
+
+    /**
+     * Adds the waiter unless its future has already completed. The check runs inside compute, which
+     * excludes deregister on the same topic: a timeout or cancel either happened before it and the
+     * waiter is skipped, or its deregister runs after it and removes the waiter again.
+     */
+    private void register(Waiter waiter) {
+        waiters.compute(waiter.topicId, (id, waiting) -> {
+            if (waiter.future.isDone()) {
+                return waiting;
+            }
+            Set<Waiter> set = waiting != null ? waiting : ConcurrentHashMap.newKeySet();
+            if (set.add(waiter)) {
+                parked.incrementAndGet();
+            }
+            return set;
+        });
+    }
+
+    private void deregister(Waiter waiter) {
+        waiters.computeIfPresent(waiter.topicId, (id, waiting) -> {
+            if (waiting.remove(waiter)) {
+                parked.decrementAndGet();
+            }
+            return waiting.isEmpty() ? null : waiting;
+        });
+    }
+
+    private record Waiter(UUID topicId, long knownVersion, CompletableFuture<TopicResponse> future) {
+
+        // Identity semantics: two requests waiting for the same version are distinct waiters
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
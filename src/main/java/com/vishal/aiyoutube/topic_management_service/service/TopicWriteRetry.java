@@ -0,0 +1,91 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded, jittered retry of topic write transactions that lost a concurrency race.
+ * * WHEN:
+ * Two writers read the same topic version and the second flush fails its @Version check
+ * (ObjectOptimisticLockingFailureException), or the database aborts one of two transactions that
+ * lock the same rows (deadlock / lock timeout). Both surface as Spring's ConcurrencyFailureException;
+ * everything else is rethrown at once.
+ * * BACKOFF:
+ * Full jitter: attempt n sleeps a random time in [0, min(max-backoff, initial-backoff * 2^(n-1))],
+ * so writers that collided once do not collide again in lockstep.
+ * * USAGE:
+ * The work must open its own transaction (a @Transactional service call or a TransactionTemplate),
+ * so each attempt rereads the topic in a fresh persistence context.
+ */
+@Slf4j
+@Component
+public class TopicWriteRetry {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public TopicWriteRetry(MeterRegistry meterRegistry,
+                           @Value("${topic.write-retry.max-attempts:5}") int maxAttempts,
+                           @Value("${topic.write-retry.initial-backoff:20ms}") Duration initialBackoff,
+                           @Value("${topic.write-retry.max-backoff:500ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    /**
+     * Runs the write, retrying it after a concurrency conflict.
+     *
+     * @param operation Metric tag naming the write path (e.g. "analysis", "status").
+     * @param write     The transactional write.
+     * @throws ConcurrencyFailureException when the last attempt also conflicted.
+     */
+    public void run(String operation, Runnable write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write.run();
+                return;
+            } catch (ConcurrencyFailureException e) {
+                counter("topic.write.conflicts", "Topic writes that failed on a concurrent update", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("topic.write.retries.exhausted", "Topic writes given up after max-attempts conflicts", operation).increment();
+                    log.warn("Write conflict: {} gave up after {} attempts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                counter("topic.write.retries", "Topic writes retried after a conflict", operation).increment();
+                log.debug("Write conflict: retrying {} (attempt {} of {})", operation, attempt + 1, maxAttempts);
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    private void backOff(int attempt, ConcurrencyFailureException conflict) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Counter counter(String name, String description, String operation) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vishal.aiyoutube.topic_management_service.dto.GrokChatResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the original GrokClient request/response handling (maps + ObjectMapper
+ * serialization, String body + full GrokChatResponse binding) with the pre-serialized template
+ * and the streaming completion parser.
+ * * RUN:
+ * mvn test-compile, then execute {@link #main} with the test classpath; the GC profiler reports
+ * the allocation rate ('gc.alloc.rate.norm', bytes/op) next to throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GrokClientBenchmark {
+
+    private static final String SYSTEM_PROMPT = "You are a YouTube Search SEO expert. " +
+            "Convert the user's request into a single search string of 5 to 6 keywords. " +
+            "Rules: Return ONLY keywords, no quotes, no backticks, no lists.";
+
+    private static final String USER_PROMPT = "What are the \"biggest\" changes in India's Union Budget 2026 for salaried people?";
+
+    private static final byte[] RESPONSE = ("{\"id\":\"chatcmpl-7c1f0a4e-3b1d-4c39-9a8e-2f0f7f6a8d11\"," +
+            "\"object\":\"chat.completion\",\"created\":1767225600,\"model\":\"llama-3.1-8b-instant\"," +
+            "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\"," +
+            "\"content\":\"India Union Budget 2026 salaried tax changes\"},\"logprobs\":null,\"finish_reason\":\"stop\"}]," +
+            "\"usage\":{\"queue_time\":0.017,\"prompt_tokens\":74,\"prompt_time\":0.004,\"completion_tokens\":9," +
+            "\"completion_time\":0.012,\"total_tokens\":83,\"total_time\":0.016}," +
+            "\"system_fingerprint\":\"fp_9ceb6f9f1e\",\"x_groq\":{\"id\":\"req_01jg3zq5c1e8v9w2k7m4x6y0ab\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper lenientMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final GrokCompletionParser completionParser = new GrokCompletionParser();
+
+    private GrokClient grokClient;
+
+    @Setup
+    public void setUp() {
+        grokClient = new GrokClient(WebClient.create(), null, null);
+        ReflectionTestUtils.setField(grokClient, "model", "llama-3.1-8b-instant");
+        ReflectionTestUtils.setField(grokClient, "temperature", 0.7);
+        ReflectionTestUtils.setField(grokClient, "maxTokens", 32);
+        ReflectionTestUtils.setField(grokClient, "stopSequences", List.of("\n"));
+    }
+
+    @Benchmark
+    public byte[] legacyRequestBody() throws IOException {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "llama-3.1-8b-instant");
+        requestBody.put("temperature", 0.7);
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", SYSTEM_PROMPT));
+        messages.add(Map.of("role", "user", "content", USER_PROMPT));
+        requestBody.put("messages", messages);
+
+        return lenientMapper.writeValueAsBytes(requestBody);
+    }
+
+    @Benchmark
+    public byte[] templatedRequestBody() {
+        return grokClient.renderRequestBody(SYSTEM_PROMPT, USER_PROMPT, false);
+    }
+
+    @Benchmark
+    public String legacyResponseParse() throws IOException {
+        String rawResponse = new String(RESPONSE, StandardCharsets.UTF_8);
+        GrokChatResponse response = lenientMapper.readValue(rawResponse, GrokChatResponse.class);
+        return response.getChoices().get(0).getMessage().getContent();
+    }
+
+    @Benchmark
+    public String streamingResponseParse() throws IOException {
+        try (InputStream in = DefaultDataBufferFactory.sharedInstance.wrap(RESPONSE).asInputStream()) {
+            return completionParser.parseCompletion(in).content();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GrokClientBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,173 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import com.vishal.aiyoutube.topic_management_service.exceptions.GrokOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies the Groq concurrency limiter: permits are never leaked by subscribers that cancel
+ * around the grant, queued calls are shed when the queue is full or their deadline passes,
+ * and the limit follows AIMD on successes, timeouts and 429s.
+ */
+class GrokConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void cancellationsRacingTheGrantNeverLeakPermits() {
+        GrokConcurrencyLimiter limiter = limiter(4, 4, 10_000, Duration.ofSeconds(10));
+
+        // Latency-budget timeouts and losing hedges: subscribers cancel at random points while
+        // permits are granted from the fast path and from drain() on other threads
+        Flux.range(0, 5_000)
+                .flatMap(i -> limiter.run(() -> Mono.delay(Duration.ofNanos(ThreadLocalRandom.current().nextLong(500_000))))
+                        .timeout(Duration.ofNanos(ThreadLocalRandom.current().nextLong(500_000)))
+                        .onErrorResume(e -> Mono.empty()), 256)
+                .blockLast(Duration.ofSeconds(30));
+
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.queueDepth()).isZero();
+        assertThat(limiter.run(() -> Mono.just("ok")).block(Duration.ofSeconds(1))).isEqualTo("ok");
+    }
+
+    @Test
+    void waiterCancelledBetweenGrantAndDeliveryReturnsItsPermit() {
+        GrokConcurrencyLimiter limiter = limiter(2, 2, 10, Duration.ofSeconds(10));
+        // Both waiters queue behind a rate-limit pause and are granted by the same drain() pass
+        limiter.observe(HttpStatusCode.valueOf(200),
+                headers("x-ratelimit-remaining-requests", "0", "x-ratelimit-reset-requests", "100ms"));
+
+        AtomicReference<Disposable> second = new AtomicReference<>();
+        Mono<String> first = limiter.run(() -> {
+            // Runs while drain() is still delivering: the second waiter is granted but not yet handed its permit
+            second.get().dispose();
+            return Mono.just("first");
+        });
+        CompletableFuture<String> firstResult = first.toFuture();
+        second.set(limiter.run(() -> Mono.just("second")).subscribe());
+        assertThat(limiter.queueDepth()).isEqualTo(2);
+
+        assertThat(firstResult).succeedsWithin(Duration.ofSeconds(5)).isEqualTo("first");
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void cancelledWaiterLeavesTheQueueAndReleasesNothing() {
+        GrokConcurrencyLimiter limiter = limiter(1, 1, 10, Duration.ofSeconds(10));
+        Sinks.Empty<Void> holder = Sinks.empty();
+        Disposable running = limiter.run(holder::asMono).subscribe();
+        Disposable waiting = limiter.run(() -> Mono.just("queued")).subscribe();
+        assertThat(limiter.queueDepth()).isEqualTo(1);
+
+        waiting.dispose();
+        assertThat(limiter.queueDepth()).isZero();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+
+        running.dispose();
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void queuedCallsAreShedWhenFullOrPastTheirDeadline() {
+        GrokConcurrencyLimiter limiter = limiter(1, 1, 1, Duration.ofMillis(100));
+        Disposable running = limiter.run(Mono::never).subscribe();
+        Mono<String> queued = limiter.run(() -> Mono.just("late"));
+        Disposable waiting = queued.subscribe(value -> { }, error -> { });
+
+        assertThatThrownBy(() -> limiter.run(() -> Mono.just("rejected")).block())
+                .isInstanceOf(GrokOverloadedException.class)
+                .hasMessageContaining("queue is full");
+        assertThatThrownBy(() -> limiter.run(() -> Mono.just("expired")).block())
+                .isInstanceOf(GrokOverloadedException.class);
+
+        // The first waiter expires too, leaving the queue and the permit count as they were
+        awaitQueueDepth(limiter, 0);
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.counter("grok.limiter.rejections", "reason", "deadline").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("grok.limiter.rejections", "reason", "queue-full").count()).isEqualTo(2);
+
+        waiting.dispose();
+        running.dispose();
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void limitGrowsAdditivelyAndShrinksOnTimeoutsAndRateLimits() {
+        GrokConcurrencyLimiter limiter = limiter(10, 40, 10, Duration.ofSeconds(1));
+
+        limiter.run(() -> Mono.just("ok")).block();
+        assertThat(limiter.currentLimit()).isCloseTo(10.1, within(1e-9));
+
+        // Other failures are neutral, timeouts shrink by 10%
+        assertThatThrownBy(() -> limiter.run(() -> Mono.error(new IllegalStateException("bad request"))).block());
+        assertThat(limiter.currentLimit()).isCloseTo(10.1, within(1e-9));
+        assertThatThrownBy(() -> limiter.run(() -> Mono.error(new TimeoutException("slow"))).block());
+        assertThat(limiter.currentLimit()).isCloseTo(9.09, within(1e-9));
+
+        limiter.observe(HttpStatusCode.valueOf(429), headers(HttpHeaders.RETRY_AFTER, "0"));
+        assertThat(limiter.currentLimit()).isCloseTo(4.545, within(1e-9));
+        for (int i = 0; i < 10; i++) {
+            limiter.observe(HttpStatusCode.valueOf(429), headers(HttpHeaders.RETRY_AFTER, "0"));
+        }
+        assertThat(limiter.currentLimit()).isEqualTo(1);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void exhaustedRateLimitBudgetPausesDispatchingUntilReset() {
+        GrokConcurrencyLimiter limiter = limiter(10, 20, 10, Duration.ofSeconds(5));
+        limiter.observe(HttpStatusCode.valueOf(200),
+                headers("x-ratelimit-remaining-requests", "0", "x-ratelimit-reset-requests", "300ms"));
+
+        long start = System.nanoTime();
+        assertThat(limiter.run(() -> Mono.just("ok")).block(Duration.ofSeconds(5))).isEqualTo("ok");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(250));
+        assertThat(limiter.currentLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void parsesGroqResetHints() {
+        assertThat(GrokConcurrencyLimiter.parseGroqDuration("2m59.56s")).isEqualTo(Duration.ofMillis(179_560));
+        assertThat(GrokConcurrencyLimiter.parseGroqDuration("7.66s")).isEqualTo(Duration.ofMillis(7_660));
+        assertThat(GrokConcurrencyLimiter.parseGroqDuration("120ms")).isEqualTo(Duration.ofMillis(120));
+        assertThat(GrokConcurrencyLimiter.parseGroqDuration("soon")).isNull();
+        assertThat(GrokConcurrencyLimiter.parseRetryAfter("1.5")).isEqualTo(Duration.ofMillis(1_500));
+        assertThat(GrokConcurrencyLimiter.parseRetryAfter(null)).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    private GrokConcurrencyLimiter limiter(int initialLimit, int maxLimit, int queueCapacity, Duration queueTimeout) {
+        return new GrokConcurrencyLimiter(meterRegistry, initialLimit, 1, maxLimit, queueCapacity, queueTimeout);
+    }
+
+    private static HttpHeaders headers(String... namesAndValues) {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.add(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return headers;
+    }
+
+    private static void awaitQueueDepth(GrokConcurrencyLimiter limiter, int depth) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (limiter.queueDepth() != depth) {
+            assertThat(System.currentTimeMillis()).as("queue drained").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
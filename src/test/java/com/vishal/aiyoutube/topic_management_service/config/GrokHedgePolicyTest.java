@@ -0,0 +1,106 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the hedge budget and percentile delay of {@link GrokHedgePolicy}, and that a primary
+ * call cancelled because its hedge won still contributes a latency sample.
+ */
+class GrokHedgePolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void budgetAllowsAtMostMaxRateOfCallsToHedge() {
+        GrokHedgePolicy policy = policy(0.05, Duration.ofSeconds(1));
+
+        int hedges = 0;
+        for (int i = 0; i < 1000; i++) {
+            policy.onPrimary();
+            if (policy.tryHedge()) {
+                hedges++;
+            }
+        }
+
+        assertThat(hedges).isEqualTo(50);
+        assertThat(meterRegistry.counter("grok.hedge.requests", "outcome", "issued").count()).isEqualTo(50);
+        assertThat(meterRegistry.counter("grok.hedge.requests", "outcome", "skipped-budget").count()).isEqualTo(950);
+    }
+
+    @Test
+    void idleCreditsAreCapped() {
+        GrokHedgePolicy policy = policy(1, Duration.ofSeconds(1));
+        for (int i = 0; i < 100; i++) {
+            policy.onPrimary();
+        }
+
+        int burst = 0;
+        while (policy.tryHedge()) {
+            burst++;
+        }
+        assertThat(burst).isEqualTo(10);
+    }
+
+    @Test
+    void delayFollowsThePercentileOnceEnoughSamplesExist() {
+        GrokHedgePolicy policy = policy(0.05, Duration.ofSeconds(1));
+
+        for (int ms = 1; ms <= 99; ms++) {
+            policy.recordLatency(Duration.ofMillis(ms).toNanos());
+        }
+        assertThat(policy.delay()).isEqualTo(Duration.ofSeconds(1));
+
+        // Recomputed every 64 samples from 100 on: the p95 of 1..128 ms is the 122nd value
+        for (int ms = 100; ms <= 128; ms++) {
+            policy.recordLatency(Duration.ofMillis(ms).toNanos());
+        }
+        assertThat(policy.delay()).isEqualTo(Duration.ofMillis(122));
+    }
+
+    @Test
+    void primaryCancelledByAWinningHedgeIsStillSampled() {
+        // The primary model answers after 2 s, the hedge model at once
+        DisposableServer groqStub = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.post("/openai/v1/chat/completions", (req, res) ->
+                        req.receive().aggregate().asString().flatMap(body -> res
+                                .header("Content-Type", "application/json")
+                                .sendString(Mono.delay(body.contains("slow-model") ? Duration.ofSeconds(2) : Duration.ZERO)
+                                        .map(tick -> "{\"choices\":[{\"message\":{\"content\":\"" +
+                                                (body.contains("slow-model") ? "primary" : "hedge") + "\"}}]}"))
+                                .then())))
+                .bindNow();
+        try {
+            GrokHedgePolicy policy = new GrokHedgePolicy(meterRegistry, true, 0.95, Duration.ofMillis(100), 1, "fast-model");
+            GrokConcurrencyLimiter limiter = new GrokConcurrencyLimiter(meterRegistry, 4, 1, 4, 4, Duration.ofSeconds(5));
+            GrokClient grokClient = new GrokClient(new GrokConfig().grokWebClient(
+                    "http://localhost:" + groqStub.port(), 30, 4, limiter), limiter, policy);
+            ReflectionTestUtils.setField(grokClient, "apiKey", "test-key");
+            ReflectionTestUtils.setField(grokClient, "model", "slow-model");
+            ReflectionTestUtils.setField(grokClient, "temperature", 0.7);
+            ReflectionTestUtils.setField(grokClient, "maxTokens", 32);
+
+            assertThat(grokClient.chatAsync("system", "query").block(Duration.ofSeconds(5))).isEqualTo("hedge");
+
+            // One sample for the hedge's answer, one censored sample for the primary it cancelled
+            assertThat(policy.sampleCount()).isEqualTo(2);
+            assertThat(meterRegistry.counter("grok.hedge.requests", "outcome", "won").count()).isEqualTo(1);
+            assertThat(limiter.inFlight()).isZero();
+        } finally {
+            groqStub.disposeNow();
+        }
+    }
+
+    private GrokHedgePolicy policy(double maxRate, Duration initialDelay) {
+        return new GrokHedgePolicy(meterRegistry, true, 0.95, initialDelay, maxRate, "");
+    }
+}
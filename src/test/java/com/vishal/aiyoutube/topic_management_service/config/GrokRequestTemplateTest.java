@@ -0,0 +1,75 @@
+package com.vishal.aiyoutube.topic_management_service.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that template-rendered request bodies are valid JSON carrying the exact user prompt,
+ * and that the streaming parser extracts the same fields the bound DTO would, for full responses and stream chunks.
+ */
+class GrokRequestTemplateTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void renderedBodyEscapesUserPrompt() throws Exception {
+        GrokClient grokClient = new GrokClient(WebClient.create(), null, null);
+        ReflectionTestUtils.setField(grokClient, "model", "llama-3.1-8b-instant");
+        ReflectionTestUtils.setField(grokClient, "temperature", 0.7);
+        ReflectionTestUtils.setField(grokClient, "maxTokens", 32);
+        ReflectionTestUtils.setField(grokClient, "stopSequences", List.of("\n"));
+
+        String userPrompt = "budget \"2026\" \\ tax\nslabs \u0001 ₹ 🚀 " + GrokRequestTemplate.USER_PROMPT_MARKER;
+        JsonNode body = mapper.readTree(grokClient.renderRequestBody("system prompt", userPrompt, true));
+
+        assertThat(body.get("model").asText()).isEqualTo("llama-3.1-8b-instant");
+        assertThat(body.get("max_tokens").asInt()).isEqualTo(32);
+        assertThat(body.get("stop").get(0).asText()).isEqualTo("\n");
+        assertThat(body.get("stream").asBoolean()).isTrue();
+        assertThat(body.get("stream_options").get("include_usage").asBoolean()).isTrue();
+        assertThat(body.get("messages").get(0).get("content").asText()).isEqualTo("system prompt");
+        assertThat(body.get("messages").get(1).get("content").asText()).isEqualTo(userPrompt);
+    }
+
+    @Test
+    void parserExtractsFirstChoiceAndUsage() throws Exception {
+        String response = "{\"id\":\"x\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\"," +
+                "\"content\":\"first\",\"tool_calls\":[{\"a\":[1,2]}]}},{\"message\":{\"content\":\"second\"}}]," +
+                "\"usage\":{\"prompt_tokens\":74,\"prompt_time\":0.004,\"completion_tokens\":9,\"total_tokens\":83}}";
+
+        GrokCompletionParser.Completion completion = new GrokCompletionParser()
+                .parseCompletion(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(completion.hasChoices()).isTrue();
+        assertThat(completion.content()).isEqualTo("first");
+        assertThat(completion.usage().getPrompt_tokens()).isEqualTo(74);
+        assertThat(completion.usage().getCompletion_tokens()).isEqualTo(9);
+        assertThat(completion.usage().getTotal_tokens()).isEqualTo(83);
+
+        assertThat(new GrokCompletionParser().parseCompletion(
+                new ByteArrayInputStream("{\"choices\":[]}".getBytes(StandardCharsets.UTF_8))).hasChoices()).isFalse();
+    }
+
+    @Test
+    void chunkParserReadsDeltaAndFinalUsage() throws Exception {
+        GrokCompletionParser parser = new GrokCompletionParser();
+
+        GrokCompletionParser.Completion delta = parser.parseChunk("{\"choices\":[{\"delta\":{\"content\":\" tax\"}}]}");
+        assertThat(delta.content()).isEqualTo(" tax");
+        assertThat(delta.usage()).isNull();
+
+        GrokCompletionParser.Completion last = parser.parseChunk(
+                "{\"choices\":[],\"usage\":{\"prompt_tokens\":74,\"completion_tokens\":9,\"total_tokens\":83}}");
+        assertThat(last.content()).isNull();
+        assertThat(last.usage().getTotal_tokens()).isEqualTo(83);
+    }
+}
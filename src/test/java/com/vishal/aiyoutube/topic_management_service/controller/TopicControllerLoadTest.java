@@ -0,0 +1,176 @@
+package com.vishal.aiyoutube.topic_management_service.controller;
+
+import com.vishal.aiyoutube.topic_management_service.config.GrokClient;
+import com.vishal.aiyoutube.topic_management_service.config.GrokConcurrencyLimiter;
+import com.vishal.aiyoutube.topic_management_service.config.GrokHedgePolicy;
+import com.vishal.aiyoutube.topic_management_service.config.GrokConfig;
+import com.vishal.aiyoutube.topic_management_service.repository.QueryNormalizationRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicOutboxRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightBatchWriter;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightRepository;
+import com.vishal.aiyoutube.topic_management_service.service.LocalKeywordExtractor;
+import com.vishal.aiyoutube.topic_management_service.service.QueryNormalizationService;
+import com.vishal.aiyoutube.topic_management_service.service.SingleFlight;
+import com.vishal.aiyoutube.topic_management_service.service.TopicEventBroadcaster;
+import com.vishal.aiyoutube.topic_management_service.service.TopicResponseCache;
+import com.vishal.aiyoutube.topic_management_service.service.TopicServiceImpl;
+import com.vishal.aiyoutube.topic_management_service.service.TopicSimilarityIndex;
+import com.vishal.aiyoutube.topic_management_service.service.TopicVersionWaiters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Load test for the non-blocking submission path.
+ * Holds every Groq call open at a local stub until all submissions have arrived, proving that
+ * far more submissions can be in flight than Tomcat's default 200 request threads.
+ */
+class TopicControllerLoadTest {
+
+    private static final int CONCURRENT_SUBMISSIONS = 1000;
+    private static final int TOMCAT_DEFAULT_MAX_THREADS = 200;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger responseCounter = new AtomicInteger();
+    private final CountDownLatch allArrived = new CountDownLatch(CONCURRENT_SUBMISSIONS);
+    private final Sinks.Empty<Void> release = Sinks.empty();
+
+    private DisposableServer groqStub;
+    private ExecutorService topicTaskExecutor;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        groqStub = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.post("/openai/v1/chat/completions", (req, res) -> {
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    allArrived.countDown();
+                    return req.receive().then()
+                            .then(release.asMono())
+                            .then(res.header("Content-Type", "application/json")
+                                    .sendString(Mono.fromSupplier(() -> completion(responseCounter.incrementAndGet())))
+                                    .then())
+                            .doFinally(signal -> inFlight.decrementAndGet());
+                }))
+                .bindNow();
+
+        // The stub holds every call until all have arrived, so the limiter must admit them all at once
+        GrokConcurrencyLimiter concurrencyLimiter = new GrokConcurrencyLimiter(new SimpleMeterRegistry(),
+                CONCURRENT_SUBMISSIONS, 1, CONCURRENT_SUBMISSIONS, 0, Duration.ofSeconds(1));
+        GrokClient grokClient = new GrokClient(new GrokConfig().grokWebClient(
+                "http://localhost:" + groqStub.port(), 30, CONCURRENT_SUBMISSIONS * 2, concurrencyLimiter),
+                concurrencyLimiter,
+                new GrokHedgePolicy(new SimpleMeterRegistry(), false, 0.95, Duration.ofSeconds(1), 0.05, ""));
+        ReflectionTestUtils.setField(grokClient, "apiKey", "test-key");
+        ReflectionTestUtils.setField(grokClient, "model", "stub-model");
+        ReflectionTestUtils.setField(grokClient, "temperature", 0.7);
+
+        QueryNormalizationRepository normalizationRepository = mock(QueryNormalizationRepository.class);
+        when(normalizationRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        TopicRepository topicRepository = mock(TopicRepository.class);
+        when(topicRepository.findByQueryFingerprint(anyString())).thenReturn(Optional.empty());
+        when(topicRepository.insertIfAbsent(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        topicTaskExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+        QueryNormalizationService normalizationService = new QueryNormalizationService(
+                grokClient, normalizationRepository, new SingleFlight<>("normalization", meterRegistry),
+                topicTaskExecutor, new LocalKeywordExtractor(topicRepository, 0), meterRegistry,
+                10_000, Duration.ofHours(1), false, Duration.ZERO);
+
+        TopicServiceImpl topicService = new TopicServiceImpl(
+                topicRepository,
+                mock(VideoInsightRepository.class),
+                mock(VideoInsightBatchWriter.class),
+                mock(TopicOutboxRepository.class),
+                normalizationService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SingleFlight<>("topic-creation", meterRegistry),
+                topicTaskExecutor,
+                new TopicSimilarityIndex(topicRepository, topicTaskExecutor, true, 0.6),
+                new TopicResponseCache(meterRegistry, 10_000, Duration.ofHours(1), Duration.ofSeconds(10), Duration.ofSeconds(2)),
+                event -> { });
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new TopicController(topicService,
+                mock(TopicEventBroadcaster.class), mock(TopicVersionWaiters.class))).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        groqStub.disposeNow();
+        topicTaskExecutor.close();
+    }
+
+    @Test
+    void submissionsInFlightExceedServletThreadPool() throws Exception {
+        List<MvcResult> pending = new ArrayList<>();
+
+        // A single test thread starts every submission; none of them can complete until released
+        for (int i = 0; i < CONCURRENT_SUBMISSIONS; i++) {
+            pending.add(mockMvc.perform(post("/api/v1/topics")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"query\":\"viral topic number " + i + "\"}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn());
+        }
+
+        assertThat(allArrived.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(peakInFlight.get()).isEqualTo(CONCURRENT_SUBMISSIONS)
+                .isGreaterThan(TOMCAT_DEFAULT_MAX_THREADS);
+        assertThat(ManagementFactory.getThreadMXBean().getThreadCount())
+                .isLessThan(TOMCAT_DEFAULT_MAX_THREADS);
+
+        release.tryEmitEmpty();
+
+        for (MvcResult result : pending) {
+            result.getAsyncResult(TimeUnit.SECONDS.toMillis(30));
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.version").value(0));
+        }
+    }
+
+    private static String completion(int n) {
+        return "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"viral topic keywords " + n + "\"}}]," +
+                "\"usage\":{\"prompt_tokens\":40,\"completion_tokens\":6,\"total_tokens\":46}}";
+    }
+}
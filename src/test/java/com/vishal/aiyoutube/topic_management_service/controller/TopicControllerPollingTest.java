@@ -0,0 +1,176 @@
+package com.vishal.aiyoutube.topic_management_service.controller;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.service.TopicChangedEvent;
+import com.vishal.aiyoutube.topic_management_service.service.TopicEventBroadcaster;
+import com.vishal.aiyoutube.topic_management_service.service.TopicService;
+import com.vishal.aiyoutube.topic_management_service.service.TopicVersionWaiters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the conditional GET of the polling endpoint: the topic version goes out as an ETag, and a
+ * poll whose If-None-Match still matches gets a bodiless 304 without the topic details being loaded.
+ * Also covers the long-poll variant (?waitFor=) against a real TopicVersionWaiters: an immediate 200
+ * when the version has already moved on, a 200 on the next change, and a 304 on timeout.
+ */
+class TopicControllerPollingTest {
+
+    private static final UUID TOPIC_ID = UUID.randomUUID();
+
+    private final TopicService topicService = mock(TopicService.class);
+    private final ExecutorService topicTaskExecutor = Executors.newSingleThreadExecutor();
+    private TopicVersionWaiters versionWaiters;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        versionWaiters = new TopicVersionWaiters(topicService, topicTaskExecutor, new SimpleMeterRegistry(),
+                Duration.ofSeconds(30));
+        mockMvc = MockMvcBuilders.standaloneSetup(new TopicController(topicService,
+                mock(TopicEventBroadcaster.class), versionWaiters)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        topicTaskExecutor.shutdownNow();
+    }
+
+    @Test
+    void pollSendsTheTopicVersionAsETag() throws Exception {
+        when(topicService.getTopicVersion(TOPIC_ID)).thenReturn(3L);
+        when(topicService.getTopicDetails(TOPIC_ID)).thenReturn(topic(3, TopicStatusEntity.ANALYZING));
+
+        mockMvc.perform(get("/api/v1/topics/{id}", TOPIC_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.status").value("ANALYZING"))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void unchangedTopicAnswers304WithoutLoadingDetails() throws Exception {
+        when(topicService.getTopicVersion(TOPIC_ID)).thenReturn(3L);
+
+        mockMvc.perform(get("/api/v1/topics/{id}", TOPIC_ID).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(topicService, never()).getTopicDetails(any());
+    }
+
+    @Test
+    void staleETagGetsTheNewState() throws Exception {
+        when(topicService.getTopicVersion(TOPIC_ID)).thenReturn(4L);
+        when(topicService.getTopicDetails(TOPIC_ID)).thenReturn(topic(4, TopicStatusEntity.COMPLETED));
+
+        mockMvc.perform(get("/api/v1/topics/{id}", TOPIC_ID).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    void longPollAnswersAtOnceWhenTheVersionAlreadyMovedOn() throws Exception {
+        when(topicService.getTopicVersion(TOPIC_ID)).thenReturn(4L);
+        when(topicService.getTopicDetails(TOPIC_ID)).thenReturn(topic(4, TopicStatusEntity.ANALYZING));
+
+        MvcResult parked = mockMvc.perform(get("/api/v1/topics/{id}", TOPIC_ID).param("waitFor", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(parked))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+        assertThat(versionWaiters.parked()).isZero();
+    }
+
+    @Test
+    void longPollAnswersWithTheNextCommittedChange() throws Exception {
+        when(topicService.getTopicVersion(TOPIC_ID)).thenReturn(3L);
+        when(topicService.getTopicDetails(TOPIC_ID)).thenReturn(topic(4, TopicStatusEntity.COMPLETED));
+
+        MvcResult parked = mockMvc.perform(get("/api/v1/topics/{id}", TOPIC_ID).param("waitFor", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(versionWaiters.parked()).isEqualTo(1);
+        verify(topicService, never()).getTopicDetails(any());
+
+        versionWaiters.onTopicChanged(new TopicChangedEvent(TOPIC_ID));
+        parked.getAsyncResult(5_000);
+
+        mockMvc.perform(asyncDispatch(parked))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+        assertThat(versionWaiters.parked()).isZero();
+    }
+
+    @Test
+    void longPollAnswers304OnTimeoutAndDropsItsWaiter() throws Exception {
+        when(topicService.getTopicVersion(TOPIC_ID)).thenReturn(3L);
+
+        MvcResult parked = mockMvc.perform(get("/api/v1/topics/{id}", TOPIC_ID)
+                        .param("waitFor", "3")
+                        .param("timeout", "1s"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(versionWaiters.parked()).isEqualTo(1);
+
+        // MockMvc has no container timer: fire the async timeout as the servlet container would
+        MockAsyncContext asyncContext = (MockAsyncContext) parked.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        mockMvc.perform(asyncDispatch(parked))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onComplete(new AsyncEvent(asyncContext));
+        }
+        assertThat(versionWaiters.parked()).isZero();
+        verify(topicService, never()).getTopicDetails(any());
+    }
+
+    private static TopicResponse topic(long version, TopicStatusEntity status) {
+        return TopicResponse.builder()
+                .topicId(TOPIC_ID)
+                .query("best budget laptop 2025")
+                .status(status)
+                .version(version)
+                .build();
+    }
+}
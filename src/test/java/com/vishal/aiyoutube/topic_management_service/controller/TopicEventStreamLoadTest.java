@@ -0,0 +1,180 @@
+package com.vishal.aiyoutube.topic_management_service.controller;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.service.TopicChangedEvent;
+import com.vishal.aiyoutube.topic_management_service.service.TopicEventBroadcaster;
+import com.vishal.aiyoutube.topic_management_service.service.TopicService;
+import com.vishal.aiyoutube.topic_management_service.service.TopicVersionWaiters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import reactor.core.Disposable;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load test for the Server-Sent Events push channel.
+ * Opens thousands of concurrent streams against a real Tomcat limited to a handful of request
+ * threads and proves they all stay open through heartbeats and all receive a pushed change.
+ */
+@SpringBootTest(
+        classes = TopicEventStreamLoadTest.StreamTestConfig.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "server.tomcat.threads.max=" + TopicEventStreamLoadTest.TOMCAT_THREADS,
+                "server.tomcat.threads.min-spare=" + TopicEventStreamLoadTest.TOMCAT_THREADS,
+                "server.tomcat.accept-count=1000",
+                "topic.events.max-streams=" + TopicEventStreamLoadTest.CONCURRENT_STREAMS,
+                "topic.events.timeout=5m",
+                "topic.events.heartbeat=500ms"
+        })
+class TopicEventStreamLoadTest {
+
+    static final int CONCURRENT_STREAMS = 3000;
+    static final int TOMCAT_THREADS = 8;
+    private static final int MAX_CONNECTS_IN_FLIGHT = 200;
+
+    private static final UUID TOPIC_ID = UUID.randomUUID();
+    private static final AtomicReference<TopicResponse> CURRENT = new AtomicReference<>(topic(1, TopicStatusEntity.EXTRACTING));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TopicEventBroadcaster broadcaster;
+
+    @Test
+    void thousandsOfIdleStreamsShareASmallThreadBudget() throws InterruptedException {
+        CountDownLatch snapshots = new CountDownLatch(CONCURRENT_STREAMS);
+        CountDownLatch heartbeats = new CountDownLatch(CONCURRENT_STREAMS);
+        CountDownLatch statusEvents = new CountDownLatch(CONCURRENT_STREAMS);
+        Semaphore connecting = new Semaphore(MAX_CONNECTS_IN_FLIGHT);
+
+        ConnectionProvider connections = ConnectionProvider.builder("sse-load")
+                .maxConnections(CONCURRENT_STREAMS + 10)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient client = HttpClient.create(connections).baseUrl("http://localhost:" + port);
+        List<Disposable> streams = new ArrayList<>(CONCURRENT_STREAMS);
+
+        try {
+            for (int i = 0; i < CONCURRENT_STREAMS; i++) {
+                connecting.acquire();
+                boolean[] seen = new boolean[3];
+                streams.add(client.get()
+                        .uri("/api/v1/topics/" + TOPIC_ID + "/events")
+                        .responseContent()
+                        .asString()
+                        .subscribe(chunk -> {
+                            if (!seen[0] && chunk.contains("event:snapshot")) {
+                                seen[0] = true;
+                                snapshots.countDown();
+                                connecting.release();
+                            }
+                            if (!seen[1] && chunk.contains(":heartbeat")) {
+                                seen[1] = true;
+                                heartbeats.countDown();
+                            }
+                            if (!seen[2] && chunk.contains("event:status")) {
+                                seen[2] = true;
+                                statusEvents.countDown();
+                            }
+                        }, error -> connecting.release()));
+            }
+
+            assertThat(snapshots.await(60, TimeUnit.SECONDS)).as("all streams opened").isTrue();
+            assertThat(broadcaster.openStreams()).isEqualTo(CONCURRENT_STREAMS);
+            assertThat(heartbeats.await(30, TimeUnit.SECONDS)).as("all idle streams heartbeated").isTrue();
+
+            // No thread per stream: Tomcat never grew past its small request-thread budget
+            long tomcatThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().contains("-exec-"))
+                    .count();
+            assertThat(tomcatThreads).isLessThanOrEqualTo(TOMCAT_THREADS);
+
+            // The cap holds: one more stream is refused
+            Integer refused = client.get()
+                    .uri("/api/v1/topics/" + TOPIC_ID + "/events")
+                    .response()
+                    .map(response -> response.status().code())
+                    .block();
+            assertThat(refused).isEqualTo(503);
+
+            CURRENT.set(topic(2, TopicStatusEntity.ANALYZING));
+            broadcaster.onTopicChanged(new TopicChangedEvent(TOPIC_ID));
+            assertThat(statusEvents.await(30, TimeUnit.SECONDS)).as("every stream received the push").isTrue();
+        } finally {
+            streams.forEach(Disposable::dispose);
+            connections.dispose();
+        }
+    }
+
+    private static TopicResponse topic(long version, TopicStatusEntity status) {
+        return TopicResponse.builder()
+                .topicId(TOPIC_ID)
+                .query("iphone 16 review")
+                .status(status)
+                .version(version)
+                .videoHighlights(List.of())
+                .build();
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class
+    })
+    @Import({TopicController.class, TopicEventBroadcaster.class, TopicVersionWaiters.class})
+    static class StreamTestConfig {
+
+        @Bean
+        TopicService topicService() {
+            TopicService topicService = mock(TopicService.class);
+            when(topicService.getTopicDetails(any())).thenAnswer(invocation -> CURRENT.get());
+            return topicService;
+        }
+
+        @Bean(destroyMethod = "close")
+        ExecutorService topicTaskExecutor() {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.TopicEventProducer;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightBatchWriter;
+import com.vishal.aiyoutube.topic_management_service.service.QueryNormalizationService;
+import com.vishal.aiyoutube.topic_management_service.service.SingleFlight;
+import com.vishal.aiyoutube.topic_management_service.service.TopicChangedEvent;
+import com.vishal.aiyoutube.topic_management_service.service.TopicResponseCache;
+import com.vishal.aiyoutube.topic_management_service.service.TopicService;
+import com.vishal.aiyoutube.topic_management_service.service.TopicServiceImpl;
+import com.vishal.aiyoutube.topic_management_service.service.TopicSimilarityIndex;
+import com.vishal.aiyoutube.topic_management_service.service.TopicWriteRetry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.KafkaConsumerBackoffManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the batch listener coalesces a poll per topic, against H2 in PostgreSQL mode: however
+ * many partial events a topic has in the poll, it is loaded, updated and version-bumped once, the
+ * final summary wins over partial events around it, and a segment repeated across events is stored
+ * once. Covers both the key-ordered path (one transaction per topic) and the plain batch path (one
+ * transaction per poll).
+ * * BENCHMARK:
+ * {@link #batchPollsNeedFarFewerTransactionsThanSingleRecords()} replays the burst the batch listener
+ * was sized for: 20 topics x 100 events of 2 segments each, partial ones first and every topic's final
+ * event last (2,000 events), once through the single-record listener and once in polls of 500. Transaction and
+ * statement counts are asserted; the wall-clock time and throughput of both runs are logged.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:coalescing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "topic.kafka.retry.enabled=false",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TopicServiceImpl.class, TopicResponseCache.class, VideoInsightBatchWriter.class, TopicWriteRetry.class,
+        KeyOrderedDispatcher.class, RetryTopicProducer.class, AnalysisResultConsumer.class, SimpleMeterRegistry.class,
+        AnalysisBatchCoalescingTest.ChangeCounter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AnalysisBatchCoalescingTest {
+
+    private static final int TOPICS = 3;
+    private static final int PARTIALS_PER_TOPIC = 5;
+
+    private static final int BENCHMARK_TOPICS = 20;
+    private static final int BENCHMARK_EVENTS_PER_TOPIC = 100;
+    private static final int BENCHMARK_POLL_SIZE = 500;
+
+    @Autowired
+    private TopicService topicService;
+
+    @Autowired
+    private TopicWriteRetry writeRetry;
+
+    @Autowired
+    private KeyOrderedDispatcher dispatcher;
+
+    @Autowired
+    private RetryTopicProducer retryTopicProducer;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ChangeCounter changes;
+
+    @MockBean
+    private TopicEventProducer eventProducer;
+
+    @MockBean
+    private KafkaTemplate<String, Object> republishKafkaTemplate;
+
+    @MockBean
+    private KafkaConsumerBackoffManager retryBackoffManager;
+
+    @MockBean
+    private QueryNormalizationService normalizationService;
+
+    @MockBean
+    private SingleFlight<String, TopicResponse> topicCreationFlight;
+
+    @MockBean(name = "topicTaskExecutor")
+    private ExecutorService topicTaskExecutor;
+
+    @MockBean
+    private TopicSimilarityIndex similarityIndex;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void keyOrderedPollWritesEachTopicOnce() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (ExecutorService lanes = Executors.newVirtualThreadPerTaskExecutor()) {
+            KeyOrderedDispatcher keyOrdered = new KeyOrderedDispatcher(lanes, TOPICS, 5_000, 1, meterRegistry);
+            AnalysisResultConsumer consumer = new AnalysisResultConsumer(
+                    topicService, writeRetry, keyOrdered, retryTopicProducer, meterRegistry);
+            TopicPartition partition = new TopicPartition("analysis-completed-events", 0);
+            Consumer<?, ?> kafkaConsumer = mock(Consumer.class);
+            when(kafkaConsumer.assignment()).thenAnswer(invocation -> Set.of(partition));
+
+            assertPollIsCoalescedPerTopic(poll -> {
+                List<ConsumerRecord<String, AnalysisCompletedEvent>> records = new ArrayList<>();
+                for (AnalysisCompletedEvent event : poll) {
+                    records.add(new ConsumerRecord<>(partition.topic(), 0, records.size(), event.getTopicId().toString(), event));
+                }
+                consumer.consumeAnalysisResultsKeyOrdered(records, kafkaConsumer);
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (keyOrdered.inFlight() > 0) {
+                    assertThat(System.currentTimeMillis()).as("lanes done").isLessThan(deadline);
+                    Thread.onSpinWait();
+                }
+                // Everything written: the whole poll is committed
+                keyOrdered.commit(kafkaConsumer);
+                verify(kafkaConsumer).commitSync(Map.of(partition, new OffsetAndMetadata(poll.size())));
+            });
+        }
+        DistributionSummary perTransaction = meterRegistry.summary("topic.analysis.records-per-transaction");
+        assertThat(perTransaction.count()).isEqualTo(TOPICS);
+    }
+
+    @Test
+    void plainBatchPollWritesEachTopicOnceInOneTransaction() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AnalysisResultConsumer consumer = new AnalysisResultConsumer(
+                topicService, writeRetry, dispatcher, retryTopicProducer, meterRegistry);
+
+        assertPollIsCoalescedPerTopic(consumer::consumeAnalysisResults);
+        DistributionSummary perTransaction = meterRegistry.summary("topic.analysis.records-per-transaction");
+        assertThat(perTransaction.count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchPollsNeedFarFewerTransactionsThanSingleRecords() {
+        Run single = replayBurst(false);
+        Run batch = replayBurst(true);
+
+        log.info("Single-record: {} events in {} transactions, {} statements, {} ms ({} events/s)",
+                single.events, single.transactions, single.statements, single.millis, single.eventsPerSecond());
+        log.info("Batch of {}: {} events in {} transactions, {} statements, {} ms ({} events/s)",
+                BENCHMARK_POLL_SIZE, batch.events, batch.transactions, batch.statements, batch.millis,
+                batch.eventsPerSecond());
+
+        assertThat(single.transactions).isEqualTo(single.events);
+        assertThat(batch.transactions).isEqualTo(single.events / BENCHMARK_POLL_SIZE);
+        // Each poll loads and updates each of its topics once instead of once per event
+        assertThat(batch.statements * 10).isLessThan(single.statements);
+    }
+
+    /**
+     * Feeds one poll of interleaved partial events, each topic's final event and a late partial event
+     * after it to the listener, then checks every topic was written exactly once and ended up completed.
+     */
+    private void assertPollIsCoalescedPerTopic(java.util.function.Consumer<List<AnalysisCompletedEvent>> listener) {
+        List<UUID> topicIds = new ArrayList<>();
+        for (int topic = 0; topic < TOPICS; topic++) {
+            topicIds.add(saveTopic("coalesced topic " + topic));
+        }
+        Map<UUID, Long> versionsBefore = new ConcurrentHashMap<>();
+        topicIds.forEach(id -> versionsBefore.put(id, topicRepository.findById(id).orElseThrow().getVersion()));
+
+        List<AnalysisCompletedEvent> poll = new ArrayList<>();
+        for (int partial = 0; partial < PARTIALS_PER_TOPIC; partial++) {
+            for (UUID topicId : topicIds) {
+                // Every event repeats segment 0:0, as overlapping partial analyses do
+                poll.add(analysis(topicId, "Analyzing video " + partial, segment(0, 0), segment(partial, 1)));
+            }
+        }
+        topicIds.forEach(topicId -> poll.add(analysis(topicId, "Final summary for " + topicId, segment(0, 0))));
+        poll.add(analysis(topicIds.get(0), "Analyzing video " + PARTIALS_PER_TOPIC, segment(PARTIALS_PER_TOPIC, 1)));
+
+        changes.clear();
+        statistics.clear();
+        listener.accept(poll);
+
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(TOPICS);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(TOPICS);
+        for (UUID topicId : topicIds) {
+            TopicEntity topic = topicRepository.findById(topicId).orElseThrow();
+            assertThat(topic.getVersion()).as("version bumps").isEqualTo(versionsBefore.get(topicId) + 1);
+            assertThat(changes.of(topicId)).as("change notifications").isEqualTo(1);
+            assertThat(topic.getStatus()).isEqualTo(TopicStatusEntity.COMPLETED);
+            assertThat(topic.getAnalysisResult().getFinalSummary()).isEqualTo("Final summary for " + topicId);
+            int expectedInsights = 1 + PARTIALS_PER_TOPIC + (topicId.equals(topicIds.get(0)) ? 1 : 0);
+            assertThat(insightCount(topicId)).isEqualTo(expectedInsights);
+        }
+    }
+
+    /**
+     * Replays the benchmark burst through the single-record listener, or the plain batch listener in
+     * polls of BENCHMARK_POLL_SIZE, into fresh topics.
+     */
+    private Run replayBurst(boolean batched) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AnalysisResultConsumer consumer = new AnalysisResultConsumer(
+                topicService, writeRetry, dispatcher, retryTopicProducer, meterRegistry);
+
+        List<UUID> topicIds = new ArrayList<>();
+        for (int topic = 0; topic < BENCHMARK_TOPICS; topic++) {
+            topicIds.add(saveTopic((batched ? "batched" : "single") + " benchmark topic " + topic));
+        }
+        List<AnalysisCompletedEvent> events = new ArrayList<>();
+        int last = BENCHMARK_EVENTS_PER_TOPIC - 1;
+        for (int partial = 0; partial < last; partial++) {
+            for (UUID topicId : topicIds) {
+                events.add(analysis(topicId, "Analyzing video " + partial, segment(partial, 0), segment(partial, 1)));
+            }
+        }
+        topicIds.forEach(topicId -> events.add(analysis(topicId, "Final summary", segment(last, 0), segment(last, 1))));
+
+        statistics.clear();
+        long start = System.nanoTime();
+        if (batched) {
+            for (int from = 0; from < events.size(); from += BENCHMARK_POLL_SIZE) {
+                consumer.consumeAnalysisResults(events.subList(from, Math.min(from + BENCHMARK_POLL_SIZE, events.size())));
+            }
+        } else {
+            events.forEach(consumer::consumeAnalysisResult);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long statements = statistics.getPrepareStatementCount();
+
+        for (UUID topicId : topicIds) {
+            assertThat(topicRepository.findById(topicId).orElseThrow().getStatus()).isEqualTo(TopicStatusEntity.COMPLETED);
+            assertThat(insightCount(topicId)).isEqualTo(2L * BENCHMARK_EVENTS_PER_TOPIC);
+        }
+        long transactions = meterRegistry.summary("topic.analysis.records-per-transaction").count();
+        return new Run(events.size(), transactions, statements, millis);
+    }
+
+    private UUID saveTopic(String normalizedQuery) {
+        return topicRepository.save(TopicEntity.builder()
+                .rawQuery(normalizedQuery)
+                .normalizedQuery(normalizedQuery)
+                .status(TopicStatusEntity.ANALYZING)
+                .videoInsights(new ArrayList<>())
+                .build()).getId();
+    }
+
+    private long insightCount(UUID topicId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM video_insights WHERE topic_id = ?", Long.class, topicId);
+    }
+
+    private static VideoSegmentDTO segment(int video, int timestamp) {
+        return new VideoSegmentDTO("video-" + video, "Video " + video, "https://youtu.be/video-" + video,
+                "0:" + timestamp, "Explanation", "Summary");
+    }
+
+    private static AnalysisCompletedEvent analysis(UUID topicId, String summary, VideoSegmentDTO... segments) {
+        AnalysisCompletedEvent event = new AnalysisCompletedEvent();
+        event.setTopicId(topicId);
+        event.setFinalSummary(summary);
+        event.setSegments(List.of(segments));
+        return event;
+    }
+
+    private record Run(int events, long transactions, long statements, long millis) {
+
+        long eventsPerSecond() {
+            return events * 1000L / Math.max(millis, 1);
+        }
+    }
+
+    /**
+     * Counts the change notifications (one per committed topic write) the service publishes.
+     */
+    @TestConfiguration
+    static class ChangeCounter {
+
+        private final Map<UUID, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        @EventListener
+        void onTopicChanged(TopicChangedEvent event) {
+            counts.computeIfAbsent(event.topicId(), id -> new AtomicInteger()).incrementAndGet();
+        }
+
+        int of(UUID topicId) {
+            AtomicInteger count = counts.get(topicId);
+            return count == null ? 0 : count.get();
+        }
+
+        void clear() {
+            counts.clear();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.BatchConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput benchmark of {@link KeyOrderedDispatcher} on an embedded broker: one partition holding
+ * records for many topics, consumed by one batch listener whose persistence step is artificially
+ * slow, processed record by record versus key-ordered in parallel. Also checks that per-key order
+ * is kept, that offsets are committed to the end, and that a failed lane is retried from its
+ * first record. Finally checks that polls do not wait for each other: with one slow key, every
+ * other key finishes long before it does.
+ */
+@Slf4j
+@EmbeddedKafka(partitions = 1, topics = {KeyOrderedDispatcherThroughputTest.TOPIC,
+        KeyOrderedDispatcherThroughputTest.FAILURE_TOPIC, KeyOrderedDispatcherThroughputTest.SLOW_KEY_TOPIC})
+class KeyOrderedDispatcherThroughputTest {
+
+    static final String TOPIC = "analysis-throughput";
+    static final String FAILURE_TOPIC = "analysis-lane-failure";
+    static final String SLOW_KEY_TOPIC = "analysis-slow-key";
+
+    private static final int KEYS = 40;
+    private static final int RECORDS_PER_KEY = 30;
+    private static final int RECORDS = KEYS * RECORDS_PER_KEY;
+    private static final long SLOW_WRITE_MILLIS = 5;
+    private static final int MAX_PARALLELISM = 8;
+    private static final int MAX_POLL_RECORDS = 200;
+    private static final long SLOW_KEY_WRITE_MILLIS = 60;
+    private static final int MAX_IN_FLIGHT = 5_000;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long COMMIT_INTERVAL_MILLIS = 100;
+
+    private static final ExecutorService WORKERS = Executors.newVirtualThreadPerTaskExecutor();
+    private final KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher(WORKERS, MAX_PARALLELISM, MAX_IN_FLIGHT,
+            MAX_ATTEMPTS, new SimpleMeterRegistry());
+
+    @AfterAll
+    static void shutDown() {
+        WORKERS.close();
+    }
+
+    @Test
+    void keyOrderedDispatchOutrunsSequentialProcessingAndKeepsPerKeyOrder(EmbeddedKafkaBroker broker) throws Exception {
+        produce(broker, TOPIC);
+
+        Map<String, List<Integer>> sequential = new ConcurrentHashMap<>();
+        long sequentialMillis = consume(broker, TOPIC, "sequential", false,
+                (records, consumer, processed) -> records.forEach(record -> persist(record, sequential, processed)));
+
+        Map<String, List<Integer>> keyOrdered = new ConcurrentHashMap<>();
+        long keyOrderedMillis = consume(broker, TOPIC, "key-ordered", true,
+                (records, consumer, processed) -> dispatcher.dispatch(records, consumer, ConsumerRecord::key,
+                        lane -> lane.forEach(record -> persist(record, keyOrdered, processed))));
+
+        double sequentialRate = RECORDS * 1000.0 / sequentialMillis;
+        double keyOrderedRate = RECORDS * 1000.0 / keyOrderedMillis;
+        log.info("{} records, {} keys, {} ms per write: sequential {} rec/s ({} ms), key-ordered {} rec/s ({} ms), x{}",
+                RECORDS, KEYS, SLOW_WRITE_MILLIS, Math.round(sequentialRate), sequentialMillis,
+                Math.round(keyOrderedRate), keyOrderedMillis, Math.round(keyOrderedRate / sequentialRate * 10) / 10.0);
+
+        List<Integer> inOrder = IntStream.range(0, RECORDS_PER_KEY).boxed().toList();
+        assertThat(keyOrdered).hasSize(KEYS).allSatisfy((key, seqs) -> assertThat(seqs).isEqualTo(inOrder));
+        assertThat(KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), "key-ordered", TOPIC, 0).offset())
+                .isEqualTo(RECORDS);
+        assertThat(keyOrderedRate).isGreaterThan(3 * sequentialRate);
+    }
+
+    @Test
+    void failedLaneIsRetriedFromItsFirstRecord(EmbeddedKafkaBroker broker) throws Exception {
+        produce(broker, FAILURE_TOPIC);
+
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        consume(broker, FAILURE_TOPIC, "lane-failure", true, (records, consumer, processed) -> dispatcher.dispatch(records,
+                consumer, ConsumerRecord::key,
+                lane -> {
+                    if (lane.get(0).key().equals("topic-7") && failedOnce.compareAndSet(false, true)) {
+                        throw new IllegalStateException("simulated write failure");
+                    }
+                    lane.forEach(record -> persist(record, seen, processed));
+                }));
+
+        assertThat(failedOnce).isTrue();
+        // The failed lane was not partially applied, so its key still sees every record exactly once, in order
+        assertThat(seen.get("topic-7")).isEqualTo(IntStream.range(0, RECORDS_PER_KEY).boxed().toList());
+        assertThat(seen).hasSize(KEYS);
+        assertThat(KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), "lane-failure", FAILURE_TOPIC, 0).offset())
+                .isEqualTo(RECORDS);
+    }
+
+    @Test
+    void fastKeysAreNotHeldBackByASlowKey(EmbeddedKafkaBroker broker) throws Exception {
+        produce(broker, SLOW_KEY_TOPIC);
+
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger slowRecordsDone = new AtomicInteger();
+        AtomicInteger slowRecordsDoneWhenFastKeysFinished = new AtomicInteger(-1);
+        CountDownLatch fastRecords = new CountDownLatch(RECORDS - RECORDS_PER_KEY);
+        consume(broker, SLOW_KEY_TOPIC, "slow-key", true, (records, consumer, processed) -> dispatcher.dispatch(records,
+                consumer, ConsumerRecord::key, lane -> lane.forEach(record -> {
+                    if (record.key().equals("topic-0")) {
+                        sleep(SLOW_KEY_WRITE_MILLIS - SLOW_WRITE_MILLIS);
+                        persist(record, seen, processed);
+                        slowRecordsDone.incrementAndGet();
+                        return;
+                    }
+                    persist(record, seen, processed);
+                    fastRecords.countDown();
+                    if (fastRecords.getCount() == 0) {
+                        slowRecordsDoneWhenFastKeysFinished.compareAndSet(-1, slowRecordsDone.get());
+                    }
+                })));
+
+        // On their own, the 39 fast keys need about 1170 records * 5 ms / 8 lanes = ~730 ms, in which the slow key
+        // writes about 12 of its 30 records. Had every poll waited for its slowest lane, the poll holding the fast
+        // keys' last records would only have been fetched after all but at most one poll's share of them
+        int slowRecordsPerPoll = MAX_POLL_RECORDS / KEYS;
+        assertThat(slowRecordsDoneWhenFastKeysFinished.get()).isBetween(0, RECORDS_PER_KEY - slowRecordsPerPoll - 1);
+        // ... and the slow key still sees its records in order, with offsets committed to the end
+        assertThat(seen.get("topic-0")).isEqualTo(IntStream.range(0, RECORDS_PER_KEY).boxed().toList());
+        assertThat(seen).hasSize(KEYS);
+    }
+
+    private static void produce(EmbeddedKafkaBroker broker, String topic) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(props, new StringSerializer(), new StringSerializer())) {
+            // Interleaved as partial analysis results arrive: every topic's n-th record, then every topic's n+1-th
+            for (int seq = 0; seq < RECORDS_PER_KEY; seq++) {
+                for (int key = 0; key < KEYS; key++) {
+                    producer.send(new ProducerRecord<>(topic, "topic-" + key, String.valueOf(seq)));
+                }
+            }
+            producer.flush();
+        }
+    }
+
+    /**
+     * Runs a batch listener container until every record has been processed at least once and
+     * its offsets are committed. A dispatched container is configured like
+     * keyOrderedKafkaListenerContainerFactory: the dispatcher commits, on each poll and when idle.
+     *
+     * @return Milliseconds from container start until the last record was processed.
+     */
+    private long consume(EmbeddedKafkaBroker broker, String topic, String group, boolean dispatched,
+                         Handler handler) throws Exception {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(group, "false", broker);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, MAX_POLL_RECORDS);
+        DefaultKafkaConsumerFactory<String, String> consumerFactory =
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer());
+
+        CountDownLatch processed = new CountDownLatch(RECORDS);
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setMessageListener((BatchConsumerAwareMessageListener<String, String>)
+                (records, consumer) -> handler.handle(records, consumer, processed));
+        if (dispatched) {
+            containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+            containerProperties.setIdleEventInterval(COMMIT_INTERVAL_MILLIS);
+            containerProperties.setPollTimeout(COMMIT_INTERVAL_MILLIS);
+            containerProperties.setConsumerRebalanceListener(dispatcher);
+        }
+        ConcurrentMessageListenerContainer<String, String> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory, containerProperties);
+        container.setApplicationEventPublisher(event -> {
+            if (event instanceof ListenerContainerIdleEvent idle) {
+                dispatcher.onIdle(idle);
+            }
+        });
+        container.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0, 3)));
+
+        long started = System.nanoTime();
+        container.start();
+        try {
+            assertThat(processed.await(60, TimeUnit.SECONDS)).as("all records processed").isTrue();
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            // The final offsets are committed once the listener call returns, or when the dispatcher is next idle
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), group, topic, 0) == null ||
+                    KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), group, topic, 0).offset() < RECORDS) {
+                assertThat(System.currentTimeMillis()).as("offsets committed").isLessThan(deadline);
+                Thread.sleep(50);
+            }
+            return millis;
+        } finally {
+            container.stop();
+        }
+    }
+
+    private static void persist(ConsumerRecord<String, String> record, Map<String, List<Integer>> seen, CountDownLatch processed) {
+        sleep(SLOW_WRITE_MILLIS);
+        seen.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                .add(Integer.parseInt(record.value()));
+        processed.countDown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer, CountDownLatch processed);
+    }
+}
@@ -0,0 +1,538 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
+
+import com.vishal.aiyoutube.topic_management_service.config.KafkaConsumerConfig;
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.DeadLetterReplayResponse;
+import com.vishal.aiyoutube.topic_management_service.dto.StatusUpdateEvent;
+import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import com.vishal.aiyoutube.topic_management_service.kafka.serde.EventDeserializer;
+import com.vishal.aiyoutube.topic_management_service.kafka.serde.EventFormat;
+import com.vishal.aiyoutube.topic_management_service.kafka.serde.EventSerializer;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.service.DeadLetterReplayService;
+import com.vishal.aiyoutube.topic_management_service.service.TopicService;
+import com.vishal.aiyoutube.topic_management_service.service.TopicWriteRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerPartitionPausingBackOffManager;
+import org.springframework.kafka.listener.ContainerPausingBackOffHandler;
+import org.springframework.kafka.listener.KafkaBackoffException;
+import org.springframework.kafka.listener.KafkaConsumerBackoffManager;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.listener.ListenerContainerRegistry;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Routes failing analysis and status events through the retry and dead-letter topics of an embedded
+ * broker: a failing topic must not hold up the rest of its poll, each stage must wait out its backoff,
+ * exhausted records must land on the DLT, and a replay must put them back on the main topic. A retry
+ * listener container must pause only the partition whose record is not due, not the due records of
+ * other stages. A record the consumer cannot deserialize must reach its DLT as raw bytes, from both the
+ * single-record and the batch container factory, and be replayed only once a reader can decode it.
+ */
+@EmbeddedKafka(partitions = 1, topics = {
+        RetryTopicRoutingTest.ANALYSIS, RetryTopicRoutingTest.ANALYSIS + "-retry-0", RetryTopicRoutingTest.ANALYSIS + "-retry-1",
+        RetryTopicRoutingTest.ANALYSIS + "-dlt",
+        RetryTopicRoutingTest.STATUS, RetryTopicRoutingTest.STATUS + "-retry-0", RetryTopicRoutingTest.STATUS + "-retry-1",
+        RetryTopicRoutingTest.STATUS + "-dlt", RetryTopicRoutingTest.UNREADABLE, RetryTopicRoutingTest.UNREADABLE + "-dlt"})
+class RetryTopicRoutingTest {
+
+    static final String ANALYSIS = "analysis-completed-events";
+    static final String STATUS = "topic-status-updates";
+    static final String UNREADABLE = "unreadable-events";
+
+    private static final int TOPICS = 10;
+    private static final int EVENTS_PER_TOPIC = 3;
+    private static final Duration INITIAL_DELAY = Duration.ofMillis(200);
+
+    private static final ExecutorService WORKERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TopicService topicService = mock(TopicService.class);
+
+    /**
+     * Topics the mocked service fails for, as if their analysis events beat the topic's commit.
+     */
+    private final Set<UUID> uncommittedTopics = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, List<AnalysisCompletedEvent>> persisted = new ConcurrentHashMap<>();
+
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private RetryTopicProducer retryTopicProducer;
+    private DeadLetterReplayService replayService;
+    private AnalysisResultConsumer analysisConsumer;
+
+    @AfterAll
+    static void shutDown() {
+        WORKERS.close();
+    }
+
+    @BeforeEach
+    void setUp(EmbeddedKafkaBroker broker) {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+
+        this.kafkaTemplate = kafkaTemplate;
+        // Called directly, not from a container: a record that is not due is redelivered by redeliverUntilDue
+        KafkaConsumerBackoffManager notDueThrows = context -> {
+            if (context.getDueTimestamp() > System.currentTimeMillis()) {
+                throw new KafkaBackoffException("Not due yet", context.getTopicPartition(), context.getListenerId(),
+                        context.getDueTimestamp());
+            }
+        };
+        retryTopicProducer = new RetryTopicProducer(kafkaTemplate, meterRegistry, notDueThrows, true, 2, INITIAL_DELAY, 2,
+                Duration.ofSeconds(5), 1);
+        replayService = new DeadLetterReplayService(consumerFactory(broker, "replay"), kafkaTemplate, meterRegistry);
+
+        doAnswer(invocation -> {
+            List<AnalysisCompletedEvent> events = invocation.getArgument(0);
+            for (AnalysisCompletedEvent event : events) {
+                if (uncommittedTopics.contains(event.getTopicId())) {
+                    throw new AnalysisProcessingException("Sync error: Topic ID not found: " + event.getTopicId(), null);
+                }
+            }
+            events.forEach(event -> persisted.computeIfAbsent(event.getTopicId(), id -> new ArrayList<>()).add(event));
+            return null;
+        }).when(topicService).updateTopicsWithAnalysis(any());
+
+        analysisConsumer = new AnalysisResultConsumer(topicService,
+                new TopicWriteRetry(meterRegistry, 1, Duration.ZERO, Duration.ZERO),
+                new KeyOrderedDispatcher(WORKERS, 8, 5_000, 1, meterRegistry), retryTopicProducer, meterRegistry);
+    }
+
+    @Test
+    void failingTopicIsRetriedThroughEveryStageThenDeadLetteredAndReplayed(EmbeddedKafkaBroker broker) throws Exception {
+        List<UUID> topicIds = new ArrayList<>();
+        List<AnalysisCompletedEvent> poll = new ArrayList<>();
+        for (int i = 0; i < TOPICS; i++) {
+            topicIds.add(UUID.randomUUID());
+        }
+        for (int seq = 0; seq < EVENTS_PER_TOPIC; seq++) {
+            for (UUID topicId : topicIds) {
+                poll.add(analysis(topicId, "Analyzing video " + seq));
+            }
+        }
+        UUID failing = topicIds.get(4);
+        uncommittedTopics.add(failing);
+
+        // Main topic: the listener returns normally, so the poll is committed and the partition moves on
+        analysisConsumer.consumeAnalysisResults(poll);
+        assertThat(persisted).hasSize(TOPICS - 1).doesNotContainKey(failing);
+
+        // Stage 0 and 1: each record waits out its backoff, fails again and moves on; then the DLT
+        for (int stage = 0; stage < 2; stage++) {
+            List<ConsumerRecord<String, AnalysisCompletedEvent>> retries = records(broker, RetryTopicProducer.retryTopic(ANALYSIS, stage),
+                    failing, EVENTS_PER_TOPIC, AnalysisCompletedEvent.class);
+            assertThat(retries).extracting(record -> record.value().getFinalSummary())
+                    .containsExactly("Analyzing video 0", "Analyzing video 1", "Analyzing video 2");
+            assertThat(header(retries.get(0), RetryTopicProducer.STAGE_HEADER)).isEqualTo(String.valueOf(stage));
+
+            long dueAt = Long.parseLong(header(retries.get(EVENTS_PER_TOPIC - 1), RetryTopicProducer.DUE_AT_HEADER));
+            for (ConsumerRecord<String, AnalysisCompletedEvent> retry : retries) {
+                redeliverUntilDue(() -> analysisConsumer.consumeAnalysisRetry(retry));
+            }
+            assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(dueAt);
+        }
+        List<ConsumerRecord<String, AnalysisCompletedEvent>> deadLetters = records(broker, RetryTopicProducer.deadLetterTopic(ANALYSIS),
+                failing, EVENTS_PER_TOPIC, AnalysisCompletedEvent.class);
+        assertThat(header(deadLetters.get(0), RetryTopicProducer.EXCEPTION_HEADER)).contains("Topic ID not found");
+        assertThat(deadLetters.get(0).headers().lastHeader(RetryTopicProducer.DUE_AT_HEADER)).isNull();
+        assertThat(persisted).doesNotContainKey(failing);
+
+        // Once the topic exists the dead letters are replayed onto the main topic, keys and order intact
+        uncommittedTopics.clear();
+        DeadLetterReplayResponse replay = replayService.replay(ANALYSIS, 100);
+        assertThat(replay.getReplayed()).isEqualTo(EVENTS_PER_TOPIC);
+        assertThat(replay.getRemaining()).isZero();
+        assertThat(replayService.replay(ANALYSIS, 100).getReplayed()).isZero();
+
+        List<ConsumerRecord<String, AnalysisCompletedEvent>> replayed = records(broker, ANALYSIS, failing, EVENTS_PER_TOPIC, AnalysisCompletedEvent.class);
+        analysisConsumer.consumeAnalysisResults(replayed.stream().map(ConsumerRecord::value).toList());
+        assertThat(persisted.get(failing)).extracting(AnalysisCompletedEvent::getFinalSummary)
+                .containsExactly("Analyzing video 0", "Analyzing video 1", "Analyzing video 2");
+
+        assertThat(forwarded(ANALYSIS, "retry-0")).isEqualTo(EVENTS_PER_TOPIC);
+        assertThat(forwarded(ANALYSIS, "retry-1")).isEqualTo(EVENTS_PER_TOPIC);
+        assertThat(forwarded(ANALYSIS, "dlt")).isEqualTo(EVENTS_PER_TOPIC);
+        assertThat(meterRegistry.counter("topic.kafka.dlt.replayed", "topic", ANALYSIS).count()).isEqualTo(EVENTS_PER_TOPIC);
+    }
+
+    @Test
+    void retryRecoversOnceTheTopicIsCommitted(EmbeddedKafkaBroker broker) throws Exception {
+        UUID topicId = UUID.randomUUID();
+        uncommittedTopics.add(topicId);
+        analysisConsumer.consumeAnalysisResults(List.of(analysis(topicId, "Final summary")));
+
+        ConsumerRecord<String, AnalysisCompletedEvent> retry =
+                records(broker, RetryTopicProducer.retryTopic(ANALYSIS, 0), topicId, 1, AnalysisCompletedEvent.class).get(0);
+        uncommittedTopics.clear();
+        redeliverUntilDue(() -> analysisConsumer.consumeAnalysisRetry(retry));
+
+        assertThat(persisted.get(topicId)).hasSize(1);
+        assertThat(meterRegistry.counter("topic.kafka.retry.recovered", "topic", ANALYSIS, "stage", "retry-0").count()).isEqualTo(1);
+    }
+
+    @Test
+    void statusForAnUnknownTopicIsSentToTheRetryTopic(EmbeddedKafkaBroker broker) {
+        UUID known = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        TopicRepository topicRepository = mock(TopicRepository.class);
+        when(topicRepository.advanceStatus(any(), anyString(), anyInt(), any()))
+                .thenAnswer(invocation -> known.equals(invocation.getArgument(0)) ? 1 : 0);
+        StatusUpdateConsumer statusConsumer = new StatusUpdateConsumer(topicRepository, mock(ApplicationEventPublisher.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new TopicWriteRetry(meterRegistry, 1, Duration.ZERO, Duration.ZERO), retryTopicProducer, meterRegistry);
+
+        statusConsumer.consumeStatusUpdates(List.of(
+                new StatusUpdateEvent(known, "EXTRACTING", null),
+                new StatusUpdateEvent(unknown, "EXTRACTING", "Fetching transcripts"),
+                new StatusUpdateEvent(unknown, "ANALYZING", "Analyzing video 1 of 3")));
+
+        List<ConsumerRecord<String, StatusUpdateEvent>> retries =
+                records(broker, RetryTopicProducer.retryTopic(STATUS, 0), unknown, 1, StatusUpdateEvent.class);
+        assertThat(retries).hasSize(1);
+        assertThat(retries.get(0).value()).isEqualTo(new StatusUpdateEvent(unknown, "ANALYZING", "Analyzing video 1 of 3"));
+        assertThat(meterRegistry.counter("topic.status.updates", "outcome", "applied").count()).isEqualTo(1);
+        assertThat(forwarded(STATUS, "retry-0")).isEqualTo(1);
+    }
+
+    @Test
+    void recordNotDueOnALaterStageDoesNotHoldUpDueRecords(EmbeddedKafkaBroker broker) throws Exception {
+        UUID late = UUID.randomUUID();
+        UUID due = UUID.randomUUID();
+        Duration lateDelay = Duration.ofSeconds(4);
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        ListenerContainerRegistry registry = mock(ListenerContainerRegistry.class);
+        KafkaConsumerBackoffManager pausing = new ContainerPartitionPausingBackOffManager(registry,
+                new ContainerPausingBackOffHandler(new ListenerContainerPauseService(registry, scheduler)));
+        // Stage 0 is due after 100 ms, stage 1 after the late delay
+        RetryTopicProducer producer = new RetryTopicProducer(kafkaTemplate, meterRegistry, pausing, true, 2,
+                Duration.ofMillis(100), lateDelay.toMillis() / 100.0, lateDelay, 1);
+        AnalysisResultConsumer consumer = new AnalysisResultConsumer(topicService,
+                new TopicWriteRetry(meterRegistry, 1, Duration.ZERO, Duration.ZERO),
+                new KeyOrderedDispatcher(WORKERS, 8, 5_000, 1, meterRegistry), producer, meterRegistry);
+
+        // The late stage-1 record is polled first, together with the stage-0 record behind it
+        long sentAt = System.currentTimeMillis();
+        producer.forward(ANALYSIS, late.toString(), analysis(late, "Late retry"), 0, new IllegalStateException("failed"));
+        producer.forward(ANALYSIS, due.toString(), analysis(due, "Due retry"), -1, new IllegalStateException("failed"));
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = consumerConfig(broker).retryKafkaListenerContainerFactory();
+        Map<String, Object> props = KafkaTestUtils.consumerProps("retry-" + UUID.randomUUID(), "false", broker);
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new JsonDeserializer<>(Object.class).trustedPackages("*")));
+        ConcurrentMessageListenerContainer<String, Object> container = factory.createContainer(producer.retryTopics(ANALYSIS));
+        container.getContainerProperties().setMessageListener((MessageListener<String, Object>) record ->
+                consumer.consumeAnalysisRetry(new ConsumerRecord<>(record.topic(), record.partition(), record.offset(),
+                        record.timestamp(), record.timestampType(), record.serializedKeySize(), record.serializedValueSize(),
+                        record.key(), (AnalysisCompletedEvent) record.value(), record.headers(), record.leaderEpoch())));
+        when(registry.getListenerContainer(AnalysisResultConsumer.RETRY_LISTENER_ID)).thenReturn(container);
+
+        container.start();
+        try {
+            long dueMillis = awaitPersisted(due) - sentAt;
+            long lateMillis = awaitPersisted(late) - sentAt;
+            assertThat(dueMillis).isLessThan(lateDelay.toMillis() / 2);
+            assertThat(lateMillis).isGreaterThanOrEqualTo(lateDelay.toMillis());
+            assertThat(persisted.get(late)).hasSize(1);
+        } finally {
+            container.stop();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void unreadableRecordIsDeadLetteredAsRawBytesBySingleRecordListener(EmbeddedKafkaBroker broker) throws Exception {
+        String unreadable = UUID.randomUUID().toString();
+        UUID readable = UUID.randomUUID();
+        ProducerRecord<String, byte[]> avro = new ProducerRecord<>(UNREADABLE, unreadable, new byte[]{1, 2, 3});
+        avro.headers().add(EventFormat.CONTENT_TYPE_HEADER, "application/avro".getBytes(StandardCharsets.UTF_8));
+        rawTemplate(broker).send(avro).get();
+        kafkaTemplate.send(UNREADABLE, readable.toString(), new StatusUpdateEvent(readable, "EXTRACTING", null)).get();
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = consumerConfig(broker).kafkaListenerContainerFactory();
+        factory.setConsumerFactory(readerFactory(broker, EventDeserializer.class));
+        List<Object> received = new CopyOnWriteArrayList<>();
+        ConcurrentMessageListenerContainer<String, Object> container = factory.createContainer(UNREADABLE);
+        container.getContainerProperties().setMessageListener((MessageListener<String, Object>) record -> received.add(record.value()));
+
+        container.start();
+        try {
+            awaitReceived(received, new StatusUpdateEvent(readable, "EXTRACTING", null));
+            ConsumerRecord<String, byte[]> deadLetter = records(broker, UNREADABLE + "-dlt", unreadable, 1,
+                    new ByteArrayDeserializer()).get(0);
+            assertThat(deadLetter.value()).containsExactly(1, 2, 3);
+            assertThat(header(deadLetter, EventFormat.CONTENT_TYPE_HEADER)).isEqualTo("application/avro");
+            assertThat(header(deadLetter, "kafka_dlt-original-topic")).isEqualTo(UNREADABLE);
+            assertThat(header(deadLetter, "kafka_dlt-exception-fqcn")).endsWith("DeserializationException");
+            assertThat(received).hasSize(1);
+        } finally {
+            container.stop();
+        }
+    }
+
+    @Test
+    void unreadableRecordOfABatchIsDeadLetteredAndReplayedOnceReadable(EmbeddedKafkaBroker broker) throws Exception {
+        UUID smileTopic = UUID.randomUUID();
+        UUID jsonTopic = UUID.randomUUID();
+        StatusUpdateEvent smileEvent = new StatusUpdateEvent(smileTopic, "ANALYZING", "Analyzing video 1 of 3");
+        StatusUpdateEvent jsonEvent = new StatusUpdateEvent(jsonTopic, "EXTRACTING", null);
+        smileTemplate(broker).send(STATUS, smileTopic.toString(), smileEvent).get();
+        kafkaTemplate.send(STATUS, jsonTopic.toString(), jsonEvent).get();
+
+        // A consumer that predates Smile: the Smile record fails deserialization and is filtered out of the poll
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                consumerConfig(broker).batchKafkaListenerContainerFactory(500);
+        factory.setConsumerFactory(readerFactory(broker, JsonDeserializer.class));
+        BatchListener listener = new BatchListener();
+        ConcurrentMessageListenerContainer<String, Object> container = factory.createListenerContainer(listener.endpoint(STATUS));
+
+        container.start();
+        try {
+            awaitReceived(listener.received, jsonEvent);
+            assertThat(listener.received).doesNotContain(smileEvent).doesNotContainNull();
+        } finally {
+            container.stop();
+        }
+        ConsumerRecord<String, byte[]> deadLetter = records(broker, STATUS + "-dlt", smileTopic.toString(), 1,
+                new ByteArrayDeserializer()).get(0);
+        // Smile documents start with the ":)\n" signature
+        assertThat(new String(deadLetter.value(), 0, 3, StandardCharsets.US_ASCII)).isEqualTo(":)\n");
+        assertThat(header(deadLetter, EventFormat.CONTENT_TYPE_HEADER)).isEqualTo(EventFormat.SMILE.contentType());
+        assertThat(header(deadLetter, "__TypeId__")).isEqualTo(StatusUpdateEvent.class.getName());
+
+        // Replay before the upgrade stops at the record; once the reader knows Smile, it is put back on the topic
+        DeadLetterReplayResponse early = new DeadLetterReplayService(readerFactory(broker, JsonDeserializer.class),
+                kafkaTemplate, meterRegistry).replay(STATUS, 100);
+        assertThat(early.getReplayed()).isZero();
+        assertThat(early.getRemaining()).isEqualTo(1);
+
+        DeadLetterReplayResponse upgraded = new DeadLetterReplayService(readerFactory(broker, EventDeserializer.class),
+                kafkaTemplate, meterRegistry).replay(STATUS, 100);
+        assertThat(upgraded.getReplayed()).isEqualTo(1);
+        assertThat(upgraded.getRemaining()).isZero();
+        assertThat(records(broker, STATUS, smileTopic.toString(), 2, eventDeserializer()))
+                .extracting(ConsumerRecord::value)
+                .containsExactly(smileEvent, smileEvent);
+    }
+
+    /**
+     * Delivers a retry record again once it is due, as its resumed container would after a backoff.
+     */
+    private static void redeliverUntilDue(Runnable delivery) throws InterruptedException {
+        while (true) {
+            try {
+                delivery.run();
+                return;
+            } catch (KafkaBackoffException e) {
+                Thread.sleep(Math.max(1, e.getDueTimestamp() - System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private long awaitPersisted(UUID topicId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!persisted.containsKey(topicId)) {
+            assertThat(System.currentTimeMillis()).as("retry of %s persisted", topicId).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static void awaitReceived(List<Object> received, Object event) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!received.contains(event)) {
+            assertThat(System.currentTimeMillis()).as("%s received", event).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private double forwarded(String topic, String destination) {
+        return meterRegistry.counter("topic.kafka.retry.forwarded", "topic", topic, "destination", destination).count();
+    }
+
+    /**
+     * Reads a topic from the beginning with a fresh group and returns the records keyed by {@code topicId}
+     * (the broker is shared by all tests), once there are {@code count} of them.
+     */
+    private static <T> List<ConsumerRecord<String, T>> records(EmbeddedKafkaBroker broker, String topic, UUID topicId,
+                                                               int count, Class<T> type) {
+        return records(broker, topic, topicId.toString(), count, new JsonDeserializer<>(type).trustedPackages("*"));
+    }
+
+    private static <T> List<ConsumerRecord<String, T>> records(EmbeddedKafkaBroker broker, String topic, String key,
+                                                               int count, Deserializer<T> valueDeserializer) {
+        DefaultKafkaConsumerFactory<String, T> factory = new DefaultKafkaConsumerFactory<>(
+                KafkaTestUtils.consumerProps("read-" + UUID.randomUUID(), "false", broker),
+                new StringDeserializer(), valueDeserializer);
+        try (Consumer<String, T> consumer = factory.createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, topic);
+            List<ConsumerRecord<String, T>> records = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (records.size() < count && System.currentTimeMillis() < deadline) {
+                consumer.poll(Duration.ofMillis(200)).records(topic).forEach(record -> {
+                    if (key.equals(record.key())) {
+                        records.add(record);
+                    }
+                });
+            }
+            assertThat(records).hasSize(count);
+            return records;
+        }
+    }
+
+    private static DefaultKafkaConsumerFactory<String, Object> consumerFactory(EmbeddedKafkaBroker broker, String group) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(group, "false", broker);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.vishal.aiyoutube.*");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * The application's consumer settings (KafkaConsumerConfig) against the embedded broker.
+     */
+    private static KafkaConsumerConfig consumerConfig(EmbeddedKafkaBroker broker) {
+        KafkaConsumerConfig config = new KafkaConsumerConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", broker.getBrokersAsString());
+        ReflectionTestUtils.setField(config, "listenerConcurrency", 1);
+        return config;
+    }
+
+    /**
+     * A consumer factory that reads values through ErrorHandlingDeserializer, as the application's does.
+     */
+    private static DefaultKafkaConsumerFactory<String, Object> readerFactory(EmbeddedKafkaBroker broker,
+                                                                             Class<? extends Deserializer> valueDeserializer) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("reader-" + UUID.randomUUID(), "false", broker);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, valueDeserializer);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        props.put(JsonDeserializer.REMOVE_TYPE_INFO_HEADERS, false);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    private static Deserializer<StatusUpdateEvent> eventDeserializer() {
+        EventDeserializer deserializer = new EventDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+        return new Deserializer<>() {
+            @Override
+            public StatusUpdateEvent deserialize(String topic, byte[] data) {
+                return (StatusUpdateEvent) deserializer.deserialize(topic, data);
+            }
+
+            @Override
+            public StatusUpdateEvent deserialize(String topic, Headers headers, byte[] data) {
+                return (StatusUpdateEvent) deserializer.deserialize(topic, headers, data);
+            }
+        };
+    }
+
+    private static KafkaTemplate<String, byte[]> rawTemplate(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    private static KafkaTemplate<String, Object> smileTemplate(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        props.put(EventSerializer.FORMAT_CONFIG, "smile");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    /**
+     * A batch @KafkaListener-style endpoint, so the container factory's record filter applies as in production.
+     */
+    public static class BatchListener {
+
+        private final List<Object> received = new CopyOnWriteArrayList<>();
+
+        public void receive(List<Object> events) {
+            received.addAll(events);
+        }
+
+        MethodKafkaListenerEndpoint<String, Object> endpoint(String topic) throws NoSuchMethodException {
+            DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+            handlerMethodFactory.afterPropertiesSet();
+            MethodKafkaListenerEndpoint<String, Object> endpoint = new MethodKafkaListenerEndpoint<>();
+            endpoint.setId("batch-listener-" + UUID.randomUUID());
+            endpoint.setTopics(topic);
+            endpoint.setBean(this);
+            endpoint.setMethod(BatchListener.class.getMethod("receive", List.class));
+            endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+            return endpoint;
+        }
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    private static AnalysisCompletedEvent analysis(UUID topicId, String summary) {
+        AnalysisCompletedEvent event = new AnalysisCompletedEvent();
+        event.setTopicId(topicId);
+        event.setFinalSummary(summary);
+        event.setSegments(new ArrayList<>());
+        return event;
+    }
+}
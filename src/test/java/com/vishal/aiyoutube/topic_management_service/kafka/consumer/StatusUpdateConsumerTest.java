@@ -0,0 +1,140 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
+
+import com.vishal.aiyoutube.topic_management_service.dto.StatusUpdateEvent;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.exceptions.StatusSyncException;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.service.TopicWriteRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Feeds the batch status listener out-of-order polls against H2 in PostgreSQL mode, and checks that
+ * each topic ends at the furthest status it was sent (the first of a COMPLETED/FAILED tie), that a
+ * late status never moves a topic back, and that every event is accounted for by the applied,
+ * stale-skipped, unknown-topic and coalesced counters.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statuses;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StatusUpdateConsumer.class, TopicWriteRetry.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StatusUpdateConsumerTest {
+
+    @Autowired
+    private StatusUpdateConsumer statusConsumer;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private RetryTopicProducer retryTopicProducer;
+
+    @Test
+    void outOfOrderPollsLeaveEachTopicAtItsFurthestStatus() {
+        when(retryTopicProducer.isEnabled()).thenReturn(true);
+        UUID pending = saveTopic("learn rust", TopicStatusEntity.PENDING);
+        UUID analyzing = saveTopic("learn go", TopicStatusEntity.ANALYZING);
+        UUID completed = saveTopic("learn zig", TopicStatusEntity.COMPLETED);
+        UUID unknown = UUID.randomUUID();
+
+        // Poll 1: every topic's events arrive out of order, plus two events that are discarded
+        statusConsumer.consumeStatusUpdates(List.of(
+                status(pending, "ANALYZING"),
+                status(unknown, "EXTRACTING"),
+                status(analyzing, "EXTRACTING"),
+                status(pending, "EXTRACTING"),
+                status(completed, "FAILED"),
+                status(unknown, "ANALYZING"),
+                status(pending, "PENDING"),
+                status(null, "ANALYZING"),
+                status(pending, "NOT_A_STATUS")));
+
+        assertThat(statusOf(pending)).isEqualTo(TopicStatusEntity.ANALYZING);
+        assertThat(statusOf(analyzing)).isEqualTo(TopicStatusEntity.ANALYZING);
+        assertThat(statusOf(completed)).isEqualTo(TopicStatusEntity.COMPLETED);
+        assertCounters(1, 2, 1, 3);
+        // Only the unknown topic's furthest event goes to the retry topics
+        verify(retryTopicProducer).forward(eq("topic-status-updates"), eq(unknown.toString()),
+                eq(status(unknown, "ANALYZING")), eq(-1), any(StatusSyncException.class));
+
+        // Poll 2: a COMPLETED/FAILED tie keeps the first, as applying the events one by one would
+        statusConsumer.consumeStatusUpdates(List.of(
+                status(pending, "COMPLETED"),
+                status(analyzing, "EXTRACTING"),
+                status(pending, "FAILED"),
+                status(analyzing, "COMPLETED")));
+
+        assertThat(statusOf(pending)).isEqualTo(TopicStatusEntity.COMPLETED);
+        assertThat(statusOf(analyzing)).isEqualTo(TopicStatusEntity.COMPLETED);
+        assertCounters(3, 2, 1, 5);
+
+        // Poll 3: late events for finished topics change nothing
+        long versionBefore = topicRepository.findById(pending).orElseThrow().getVersion();
+        statusConsumer.consumeStatusUpdates(List.of(status(pending, "EXTRACTING"), status(analyzing, "FAILED")));
+
+        assertThat(statusOf(pending)).isEqualTo(TopicStatusEntity.COMPLETED);
+        assertThat(statusOf(analyzing)).isEqualTo(TopicStatusEntity.COMPLETED);
+        assertThat(topicRepository.findById(pending).orElseThrow().getVersion()).isEqualTo(versionBefore);
+        assertCounters(3, 4, 1, 5);
+        verify(retryTopicProducer, times(1)).forward(anyString(), anyString(), any(), anyInt(), any());
+    }
+
+    private void assertCounters(int applied, int staleSkipped, int unknownTopic, int coalesced) {
+        assertThat(outcome("applied")).as("applied").isEqualTo(applied);
+        assertThat(outcome("stale-skipped")).as("stale-skipped").isEqualTo(staleSkipped);
+        assertThat(outcome("unknown-topic")).as("unknown-topic").isEqualTo(unknownTopic);
+        assertThat(outcome("coalesced")).as("coalesced").isEqualTo(coalesced);
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("topic.status.updates", "outcome", outcome).count();
+    }
+
+    private TopicStatusEntity statusOf(UUID topicId) {
+        return topicRepository.findById(topicId).orElseThrow().getStatus();
+    }
+
+    private UUID saveTopic(String normalizedQuery, TopicStatusEntity status) {
+        return topicRepository.save(TopicEntity.builder()
+                .rawQuery(normalizedQuery)
+                .normalizedQuery(normalizedQuery)
+                .status(status)
+                .videoInsights(new ArrayList<>())
+                .build()).getId();
+    }
+
+    private static StatusUpdateEvent status(UUID topicId, String status) {
+        return new StatusUpdateEvent(topicId, status, null);
+    }
+}
@@ -0,0 +1,259 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.consumer;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+import com.vishal.aiyoutube.topic_management_service.dto.StatusUpdateEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.RetryTopicProducer;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.TopicEventProducer;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightBatchWriter;
+import com.vishal.aiyoutube.topic_management_service.service.QueryNormalizationService;
+import com.vishal.aiyoutube.topic_management_service.service.SingleFlight;
+import com.vishal.aiyoutube.topic_management_service.service.TopicCompletedEvent;
+import com.vishal.aiyoutube.topic_management_service.service.TopicResponseCache;
+import com.vishal.aiyoutube.topic_management_service.service.TopicService;
+import com.vishal.aiyoutube.topic_management_service.service.TopicServiceImpl;
+import com.vishal.aiyoutube.topic_management_service.service.TopicSimilarityIndex;
+import com.vishal.aiyoutube.topic_management_service.service.TopicWriteRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.KafkaConsumerBackoffManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Hammers a single topic with analysis and status writes from many threads (as raised listener
+ * concurrency would) against H2 in PostgreSQL mode, and checks that no write is lost: every
+ * segment is stored, the version counts every committed write, and a late status never moves
+ * a COMPLETED topic back. Also checks that a completion rolled back with its batch never reaches
+ * the similarity index.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrent;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "topic.write-retry.max-attempts=100",
+        "topic.write-retry.initial-backoff=1ms",
+        "topic.write-retry.max-backoff=20ms"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TopicServiceImpl.class, TopicResponseCache.class, VideoInsightBatchWriter.class, TopicWriteRetry.class,
+        KeyOrderedDispatcher.class, RetryTopicProducer.class, AnalysisResultConsumer.class, StatusUpdateConsumer.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TopicConcurrentWriteTest {
+
+    private static final int WRITERS = 16;
+    private static final int WRITES_PER_WRITER = 10;
+    private static final int SEGMENTS_PER_WRITE = 3;
+
+    @Autowired
+    private AnalysisResultConsumer analysisConsumer;
+
+    @Autowired
+    private StatusUpdateConsumer statusConsumer;
+
+    @Autowired
+    private TopicService topicService;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private TopicEventProducer eventProducer;
+
+    @MockBean
+    private KafkaTemplate<String, Object> republishKafkaTemplate;
+
+    @MockBean
+    private KafkaConsumerBackoffManager retryBackoffManager;
+
+    @MockBean
+    private QueryNormalizationService normalizationService;
+
+    @MockBean
+    private SingleFlight<String, TopicResponse> topicCreationFlight;
+
+    @MockBean(name = "topicTaskExecutor")
+    private ExecutorService topicTaskExecutor;
+
+    @MockBean
+    private TopicSimilarityIndex similarityIndex;
+
+    @Test
+    void concurrentWritersToOneTopicLoseNoUpdates() throws Exception {
+        UUID topicId = topicRepository.save(TopicEntity.builder()
+                .rawQuery("budget laptops for students")
+                .normalizedQuery("best budget laptop 2025 students")
+                .status(TopicStatusEntity.PENDING)
+                .videoInsights(new ArrayList<>())
+                .build()).getId();
+
+        // Phase 1: partial analysis results and forward status updates race on the same row
+        hammer(writer -> {
+            for (int write = 0; write < WRITES_PER_WRITER; write++) {
+                if (writer % 4 == 0) {
+                    TopicStatusEntity status = write < WRITES_PER_WRITER / 2 ? TopicStatusEntity.EXTRACTING : TopicStatusEntity.ANALYZING;
+                    statusConsumer.consumeStatusUpdate(new StatusUpdateEvent(topicId, status.name(), null));
+                } else {
+                    analysisConsumer.consumeAnalysisResult(analysis(topicId, writer, write, "Analyzing video " + write));
+                }
+            }
+        });
+
+        int analysisWrites = (WRITERS - WRITERS / 4) * WRITES_PER_WRITER;
+        double appliedStatuses = meterRegistry.counter("topic.status.updates", "outcome", "applied").count();
+        TopicEntity afterPhaseOne = topicRepository.findById(topicId).orElseThrow();
+        assertThat(afterPhaseOne.getStatus()).isEqualTo(TopicStatusEntity.ANALYZING);
+        assertThat(appliedStatuses).isEqualTo(2);
+        assertThat(afterPhaseOne.getVersion()).isEqualTo(analysisWrites + (long) appliedStatuses);
+        assertThat(insightCount(topicId)).isEqualTo(analysisWrites * SEGMENTS_PER_WRITE);
+
+        // Phase 2: the final result races with late, stale status updates
+        hammer(writer -> {
+            if (writer == 0) {
+                analysisConsumer.consumeAnalysisResult(analysis(topicId, writer, WRITES_PER_WRITER, "Final summary"));
+            } else {
+                statusConsumer.consumeStatusUpdate(new StatusUpdateEvent(topicId, TopicStatusEntity.ANALYZING.name(), null));
+            }
+        });
+
+        TopicEntity completed = topicRepository.findById(topicId).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(TopicStatusEntity.COMPLETED);
+        assertThat(completed.getVersion()).isEqualTo(afterPhaseOne.getVersion() + 1);
+        assertThat(insightCount(topicId)).isEqualTo((analysisWrites + 1) * SEGMENTS_PER_WRITE);
+
+        double conflicts = meterRegistry.counter("topic.write.conflicts", "operation", "analysis").count();
+        double retries = meterRegistry.counter("topic.write.retries", "operation", "analysis").count();
+        double exhausted = meterRegistry.counter("topic.write.retries.exhausted", "operation", "analysis").count();
+        log.info("Analysis writes: {}, conflicts: {}, retries: {}, exhausted: {}",
+                analysisWrites + 1, (long) conflicts, (long) retries, (long) exhausted);
+        assertThat(exhausted).isZero();
+        assertThat(retries).isEqualTo(conflicts);
+    }
+
+    private void hammer(Writer writer) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                int id = i;
+                results.add(threads.submit(() -> {
+                    start.await();
+                    writer.write(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void rolledBackCompletionIsNotIndexed() {
+        UUID topicId = topicRepository.save(TopicEntity.builder()
+                .rawQuery("cheap flights to goa")
+                .normalizedQuery("cheap flights goa december")
+                .status(TopicStatusEntity.ANALYZING)
+                .videoInsights(new ArrayList<>())
+                .build()).getId();
+        // Sorts after every random id, so the batch fails after the first topic's completion was applied
+        UUID unknownTopicId = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> topicService.updateTopicsWithAnalysis(List.of(
+                analysis(topicId, 0, 0, "Final summary"), analysis(unknownTopicId, 0, 0, "Final summary"))))
+                .isInstanceOf(AnalysisProcessingException.class);
+        assertThat(topicRepository.findById(topicId).orElseThrow().getStatus()).isEqualTo(TopicStatusEntity.ANALYZING);
+        verify(similarityIndex, never()).onTopicCompleted(any());
+
+        topicService.updateTopicsWithAnalysis(List.of(analysis(topicId, 0, 0, "Final summary")));
+        verify(similarityIndex).onTopicCompleted(new TopicCompletedEvent(topicId, "cheap flights goa december"));
+    }
+
+    @Test
+    void pipelineFailureNeverOverridesACompletedTopic() {
+        UUID failing = topicRepository.save(TopicEntity.builder()
+                .rawQuery("learn rust")
+                .normalizedQuery("learn rust beginners")
+                .status(TopicStatusEntity.ANALYZING)
+                .videoInsights(new ArrayList<>())
+                .build()).getId();
+        UUID completed = topicRepository.save(TopicEntity.builder()
+                .rawQuery("learn go")
+                .normalizedQuery("learn golang beginners")
+                .status(TopicStatusEntity.COMPLETED)
+                .videoInsights(new ArrayList<>())
+                .build()).getId();
+
+        topicService.handleTopicFailure(failing, "scraper quota exhausted");
+        topicService.handleTopicFailure(completed, "late failure report");
+        topicService.handleTopicFailure(UUID.randomUUID(), "unknown topic");
+
+        TopicEntity failed = topicRepository.findById(failing).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(TopicStatusEntity.FAILED);
+        assertThat(failed.getVersion()).isEqualTo(1);
+        assertThat(topicRepository.findById(completed).orElseThrow().getStatus()).isEqualTo(TopicStatusEntity.COMPLETED);
+    }
+
+    private long insightCount(UUID topicId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM video_insights WHERE topic_id = ?", Long.class, topicId);
+    }
+
+    private static AnalysisCompletedEvent analysis(UUID topicId, int writer, int write, String summary) {
+        List<VideoSegmentDTO> segments = new ArrayList<>();
+        for (int i = 0; i < SEGMENTS_PER_WRITE; i++) {
+            segments.add(new VideoSegmentDTO("video-" + writer, "Video " + writer, "https://youtu.be/video-" + writer,
+                    write + ":" + i, "Explanation", "Summary"));
+        }
+        AnalysisCompletedEvent event = new AnalysisCompletedEvent();
+        event.setTopicId(topicId);
+        event.setFinalSummary(summary);
+        event.setSegments(segments);
+        return event;
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(int writer) throws Exception;
+    }
+}
@@ -0,0 +1,189 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.producer;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicSubmittedEvent;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicOutboxEntity;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicOutboxRepository;
+import com.vishal.aiyoutube.topic_management_service.service.TopicOutboxWrittenEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Drains the transactional outbox against H2 in PostgreSQL mode with the Kafka producer mocked:
+ * events are published in batches and in insertion order, a failed publish leaves its rows for the
+ * next pass, two relays running at once (as on two nodes) never publish the same row, and an idle
+ * relay is woken by a committed submission instead of waiting for its next poll.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "topic.outbox.relay.enabled=false",
+        "topic.outbox.relay.batch-size=" + TopicOutboxRelayTest.BATCH_SIZE
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TopicOutboxRelay.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TopicOutboxRelayTest {
+
+    static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private TopicOutboxRelay relay;
+
+    @Autowired
+    private TopicOutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private TopicEventProducer eventProducer;
+
+    private final List<List<TopicSubmittedEvent>> published = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAllInBatch();
+        doAnswer(invocation -> published.add(invocation.getArgument(0)))
+                .when(eventProducer).sendTopicSubmittedEvents(anyList());
+    }
+
+    @Test
+    void drainsTheOutboxInBatchesInInsertionOrder() {
+        List<UUID> submitted = submit(250);
+        // The registry is shared by every test of the cached context
+        long batchesBefore = meterRegistry.summary("topic.outbox.relay.batch").count();
+        double eventsBefore = meterRegistry.summary("topic.outbox.relay.batch").totalAmount();
+        long lagsBefore = meterRegistry.timer("topic.outbox.relay.lag").count();
+
+        assertThat(relay.relayBatch()).isEqualTo(BATCH_SIZE);
+        assertThat(relay.relayBatch()).isEqualTo(BATCH_SIZE);
+        assertThat(relay.relayBatch()).isEqualTo(50);
+        assertThat(relay.relayBatch()).isZero();
+
+        assertThat(published).extracting(List::size).containsExactly(BATCH_SIZE, BATCH_SIZE, 50);
+        assertThat(published.stream().flatMap(List::stream).map(TopicSubmittedEvent::getTopicId).toList())
+                .isEqualTo(submitted);
+        assertThat(published.get(0).get(0).getQuery()).isEqualTo("query 0");
+        assertThat(outboxRepository.count()).isZero();
+
+        assertThat(meterRegistry.summary("topic.outbox.relay.batch").count() - batchesBefore).isEqualTo(3);
+        assertThat(meterRegistry.summary("topic.outbox.relay.batch").totalAmount() - eventsBefore).isEqualTo(250);
+        assertThat(meterRegistry.timer("topic.outbox.relay.lag").count() - lagsBefore).isEqualTo(250);
+    }
+
+    @Test
+    void failedPublishKeepsTheBatchForTheNextPass() {
+        List<UUID> submitted = submit(10);
+        doThrow(new IllegalStateException("broker unavailable")).when(eventProducer).sendTopicSubmittedEvents(anyList());
+
+        assertThatThrownBy(relay::relayBatch).hasMessageContaining("broker unavailable");
+        assertThat(outboxRepository.count()).isEqualTo(10);
+
+        doAnswer(invocation -> published.add(invocation.getArgument(0)))
+                .when(eventProducer).sendTopicSubmittedEvents(anyList());
+        assertThat(relay.relayBatch()).isEqualTo(10);
+        assertThat(published.get(0)).extracting(TopicSubmittedEvent::getTopicId).isEqualTo(submitted);
+    }
+
+    @Test
+    void concurrentRelaysSkipEachOthersLockedRows() throws Exception {
+        submit(2 * BATCH_SIZE);
+        CountDownLatch firstBatchLocked = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (firstBatchLocked.getCount() > 0) {
+                // The first relay holds its row locks until the second one has published
+                firstBatchLocked.countDown();
+                assertThat(releaseFirstBatch.await(10, TimeUnit.SECONDS)).isTrue();
+            }
+            return published.add(invocation.getArgument(0));
+        }).when(eventProducer).sendTopicSubmittedEvents(anyList());
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(relay::relayBatch);
+        assertThat(firstBatchLocked.await(10, TimeUnit.SECONDS)).isTrue();
+        int second = relay.relayBatch();
+        releaseFirstBatch.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(BATCH_SIZE);
+        assertThat(second).isEqualTo(BATCH_SIZE);
+        Set<UUID> distinct = new HashSet<>();
+        published.forEach(batch -> batch.forEach(event -> distinct.add(event.getTopicId())));
+        assertThat(distinct).hasSize(2 * BATCH_SIZE);
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void committedSubmissionWakesTheIdleRelay() throws Exception {
+        TopicOutboxRelay running = new TopicOutboxRelay(outboxRepository, eventProducer, transactionTemplate,
+                meterRegistry, true, BATCH_SIZE, Duration.ofMinutes(1));
+        running.start();
+        try {
+            // Its first pass finds the outbox empty; the next idle poll is a minute away
+            Thread.sleep(200);
+            UUID topicId = UUID.randomUUID();
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxRepository.save(TopicOutboxEntity.builder().topicId(topicId).normalizedQuery("woken").build());
+                // Delivered after commit, as the AFTER_COMMIT listener of the context's relay bean would be
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        running.onOutboxWritten(new TopicOutboxWrittenEvent(topicId));
+                    }
+                });
+            });
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (published.isEmpty()) {
+                assertThat(System.currentTimeMillis()).as("woken relay published").isLessThan(deadline);
+                Thread.sleep(10);
+            }
+            assertThat(published.get(0)).extracting(TopicSubmittedEvent::getTopicId).containsExactly(topicId);
+        } finally {
+            running.stop();
+        }
+    }
+
+    private List<UUID> submit(int count) {
+        List<UUID> topicIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID topicId = UUID.randomUUID();
+            outboxRepository.save(TopicOutboxEntity.builder().topicId(topicId).normalizedQuery("query " + i).build());
+            topicIds.add(topicId);
+        }
+        return topicIds;
+    }
+}
@@ -0,0 +1,102 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.serde;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the event serde on realistic AnalysisCompletedEvents: 5 segments per video, each
+ * with a ~600 character explanation and a ~250 character summary, at 10, 50 and 200 segments.
+ * * COMPARES:
+ * - bytes on the wire per record, logged by {@link #main} before the run;
+ * - serialize / deserialize throughput (ops/ms) of EventSerializer and EventDeserializer, JSON vs Smile.
+ * Producer compression (lz4) applies to both formats on top of this.
+ * * RUN:
+ * mvn test-compile, then execute {@link #main} with the test classpath.
+ */
+@Slf4j
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSerdeBenchmark {
+
+    private static final String TOPIC = "analysis-completed-events";
+    private static final int SEGMENTS_PER_VIDEO = 5;
+
+    @Param({"10", "50", "200"})
+    private int segments;
+
+    @Param({"json", "smile"})
+    private String format;
+
+    private EventSerializer serializer;
+    private EventDeserializer deserializer;
+    private AnalysisCompletedEvent event;
+    private Headers headers;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = EventSerdeTest.serializer(format, "");
+        deserializer = EventSerdeTest.deserializer();
+        event = event(segments);
+        headers = new RecordHeaders();
+        bytes = serializer.serialize(TOPIC, headers, event);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        // A copy per call: JsonDeserializer removes the type headers it has read
+        return deserializer.deserialize(TOPIC, new RecordHeaders(headers.toArray()), bytes);
+    }
+
+    static AnalysisCompletedEvent event(int segmentCount) {
+        List<VideoSegmentDTO> segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            int video = i / SEGMENTS_PER_VIDEO;
+            String videoId = String.format("vid%08d", video);
+            segments.add(new VideoSegmentDTO(videoId,
+                    "Best budget laptops for students in 2025 - full review and buying guide, part " + video,
+                    "https://www.youtube.com/watch?v=" + videoId,
+                    String.format("%02d:%02d", i % 60, (i * 17) % 60),
+                    ("At this point the reviewer benchmarks segment " + i + " on battery life, thermals and build quality, " +
+                            "comparing the entry-level models against last year's favourites. ").repeat(3),
+                    ("Segment " + i + " summary: battery life and thermals decide the value pick. ").repeat(3)));
+        }
+        return new AnalysisCompletedEvent(UUID.randomUUID(),
+                "Across the analysed videos, reviewers agree that battery life and keyboard quality matter most. ".repeat(10),
+                0.64, 78.0, "Battery life beats raw performance; 16 GB RAM is the new minimum.", segments);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int count : new int[]{10, 50, 200}) {
+            AnalysisCompletedEvent event = event(count);
+            int json = EventSerdeTest.serializer("json", "").serialize(TOPIC, new RecordHeaders(), event).length;
+            int smile = EventSerdeTest.serializer("smile", "").serialize(TOPIC, new RecordHeaders(), event).length;
+            log.info("{} segments: json {} bytes, smile {} bytes, ratio {}", count, json, smile,
+                    String.format("%.2f", (double) smile / json));
+        }
+        new Runner(new OptionsBuilder()
+                .include(EventSerdeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
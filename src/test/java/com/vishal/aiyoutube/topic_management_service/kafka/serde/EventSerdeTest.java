@@ -0,0 +1,147 @@
+package com.vishal.aiyoutube.topic_management_service.kafka.serde;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+import com.vishal.aiyoutube.topic_management_service.dto.StatusUpdateEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that EventSerializer picks each topic's format and announces it, and that EventDeserializer
+ * reads both formats side by side, including JSON from producers that send no content-type header.
+ */
+class EventSerdeTest {
+
+    private static final String ANALYSIS = "analysis-completed-events";
+
+    /**
+     * The consumer-side settings of KafkaConsumerConfig.
+     */
+    private static final Map<String, Object> CONSUMER_CONFIG = Map.of(
+            JsonDeserializer.TRUSTED_PACKAGES, "com.vishal.aiyoutube.*",
+            JsonDeserializer.REMOVE_TYPE_INFO_HEADERS, false,
+            JsonDeserializer.TYPE_MAPPINGS,
+            "com.vishal.aiyoutube.ai_analysis_service.dto.AnalysisCompletedEvent:" + AnalysisCompletedEvent.class.getName());
+
+    @Test
+    void smileRecordRoundTripsWithContentTypeAndTypeHeaders() {
+        EventSerializer serializer = serializer("json", ANALYSIS + ":smile");
+        AnalysisCompletedEvent event = analysis();
+
+        Headers headers = new RecordHeaders();
+        byte[] bytes = serializer.serialize(ANALYSIS, headers, event);
+
+        assertThat(header(headers, EventFormat.CONTENT_TYPE_HEADER)).isEqualTo("application/x-jackson-smile");
+        assertThat(header(headers, "__TypeId__")).isEqualTo(AnalysisCompletedEvent.class.getName());
+        // Smile documents start with the ":)\n" signature
+        assertThat(new String(bytes, 0, 3, StandardCharsets.US_ASCII)).isEqualTo(":)\n");
+        assertThat(deserializer().deserialize(ANALYSIS, headers, bytes)).isEqualTo(event);
+    }
+
+    @Test
+    void jsonAndSmileRecordsShareATopicDuringRollout() {
+        AnalysisCompletedEvent event = analysis();
+
+        // A producer that predates content-type headers, sending its own class name as type id
+        Headers legacyHeaders = new RecordHeaders();
+        legacyHeaders.add("__TypeId__", "com.vishal.aiyoutube.ai_analysis_service.dto.AnalysisCompletedEvent"
+                .getBytes(StandardCharsets.UTF_8));
+        JsonSerializer<Object> legacy = new JsonSerializer<>();
+        legacy.setAddTypeInfo(false);
+        byte[] legacyBytes = legacy.serialize(ANALYSIS, legacyHeaders, event);
+
+        Headers smileHeaders = new RecordHeaders();
+        byte[] smileBytes = serializer("smile", "").serialize(ANALYSIS, smileHeaders, event);
+
+        EventDeserializer deserializer = deserializer();
+        assertThat(deserializer.deserialize(ANALYSIS, legacyHeaders, legacyBytes)).isEqualTo(event);
+        assertThat(deserializer.deserialize(ANALYSIS, smileHeaders, smileBytes)).isEqualTo(event);
+        assertThat(smileBytes.length).isLessThan(legacyBytes.length);
+    }
+
+    @Test
+    void topicOverrideCoversItsRetryAndDeadLetterTopics() {
+        EventSerializer serializer = serializer("json", " " + ANALYSIS + ":smile , topic-submitted-events:json");
+
+        assertThat(serializer.formatFor(ANALYSIS)).isEqualTo(EventFormat.SMILE);
+        assertThat(serializer.formatFor(ANALYSIS + "-retry-1")).isEqualTo(EventFormat.SMILE);
+        assertThat(serializer.formatFor(ANALYSIS + "-dlt")).isEqualTo(EventFormat.SMILE);
+        assertThat(serializer.formatFor("topic-status-updates")).isEqualTo(EventFormat.JSON);
+
+        Headers headers = new RecordHeaders();
+        StatusUpdateEvent status = new StatusUpdateEvent(UUID.randomUUID(), "ANALYZING", null);
+        byte[] bytes = serializer.serialize("topic-status-updates", headers, status);
+        assertThat(header(headers, EventFormat.CONTENT_TYPE_HEADER)).isEqualTo("application/json");
+        assertThat(deserializer().deserialize("topic-status-updates", headers, bytes)).isEqualTo(status);
+    }
+
+    @Test
+    void unknownContentTypeIsRejected() {
+        Headers headers = new RecordHeaders();
+        headers.add(EventFormat.CONTENT_TYPE_HEADER, "application/avro".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> deserializer().deserialize(ANALYSIS, headers, new byte[]{1, 2, 3}))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("application/avro");
+    }
+
+    @Test
+    void consumerTurnsAnUnreadableRecordIntoAFailureInsteadOfThrowing() {
+        Map<String, Object> config = new HashMap<>(CONSUMER_CONFIG);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, EventDeserializer.class);
+        ErrorHandlingDeserializer<Object> consumerDeserializer = new ErrorHandlingDeserializer<>();
+        consumerDeserializer.configure(config, false);
+
+        Headers headers = new RecordHeaders();
+        headers.add(EventFormat.CONTENT_TYPE_HEADER, "application/avro".getBytes(StandardCharsets.UTF_8));
+
+        // The poll goes on; the container finds the failure in the header and skips the record
+        assertThat(consumerDeserializer.deserialize(ANALYSIS, headers, new byte[]{1, 2, 3})).isNull();
+        assertThat(headers.lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER)).isNotNull();
+
+        Headers smileHeaders = new RecordHeaders();
+        AnalysisCompletedEvent event = analysis();
+        byte[] smileBytes = serializer("smile", "").serialize(ANALYSIS, smileHeaders, event);
+        assertThat(consumerDeserializer.deserialize(ANALYSIS, smileHeaders, smileBytes)).isEqualTo(event);
+    }
+
+    static EventSerializer serializer(String format, String topicFormats) {
+        EventSerializer serializer = new EventSerializer();
+        serializer.configure(Map.of(EventSerializer.FORMAT_CONFIG, format, EventSerializer.TOPIC_FORMATS_CONFIG, topicFormats), false);
+        return serializer;
+    }
+
+    static EventDeserializer deserializer() {
+        EventDeserializer deserializer = new EventDeserializer();
+        deserializer.configure(CONSUMER_CONFIG, false);
+        return deserializer;
+    }
+
+    private static String header(Headers headers, String name) {
+        return new String(headers.lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    private static AnalysisCompletedEvent analysis() {
+        List<VideoSegmentDTO> segments = List.of(
+                new VideoSegmentDTO("dQw4w9WgXcQ", "Budget laptops 2025", "https://youtu.be/dQw4w9WgXcQ", "01:15",
+                        "The reviewer compares battery life across five models.", "Battery life comparison"),
+                new VideoSegmentDTO("dQw4w9WgXcQ", "Budget laptops 2025", "https://youtu.be/dQw4w9WgXcQ", "07:40",
+                        "Thermal throttling under sustained load is measured.", "Thermals"));
+        return new AnalysisCompletedEvent(UUID.randomUUID(), "Final summary", 0.42, 71.5, "Battery life matters most", segments);
+    }
+}
@@ -0,0 +1,222 @@
+package com.vishal.aiyoutube.topic_management_service.repository;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.VideoInsightEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the JDBC batch write path for video insights with the TopicEntity cascade it replaced,
+ * against H2 in PostgreSQL mode: the persisted rows must be identical, and the statement count and
+ * wall-clock time are measured for 1, 100 and 10,000 segments. Statements are counted at the JDBC
+ * level (one per execute or executeBatch call); H2 has no COPY, so the COPY path is not covered.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:insights;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "topic.insights.batch-size=" + VideoInsightBatchWriterTest.BATCH_SIZE,
+        "topic.insights.copy-threshold=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({VideoInsightBatchWriter.class, VideoInsightBatchWriterTest.StatementCounting.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VideoInsightBatchWriterTest {
+
+    static final int BATCH_SIZE = 500;
+
+    private static final String ROWS_SQL = "SELECT video_id, video_title, video_url, timestamp, best_explanation, " +
+            "segment_summary FROM video_insights WHERE topic_id = ? ORDER BY seq";
+
+    private static final AtomicLong STATEMENTS = new AtomicLong();
+
+    @Autowired
+    private VideoInsightBatchWriter writer;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void persistsTheSameRowsAsTheEntityCascade() {
+        List<VideoSegmentDTO> segments = segments(100);
+        segments.get(3).setBestExplanation(null);
+        segments.get(4).setSegmentSummary("");
+        segments.get(5).setVideoTitle("Quoted \"title\", with comma");
+
+        UUID cascaded = saveWithCascade(segments);
+        UUID batched = saveWithWriter(segments);
+
+        List<Map<String, Object>> expected = jdbcTemplate.queryForList(ROWS_SQL, cascaded);
+        assertThat(expected).hasSize(100);
+        assertThat(jdbcTemplate.queryForList(ROWS_SQL, batched)).isEqualTo(expected);
+    }
+
+    @Test
+    void skipsSegmentsTheTopicAlreadyHas() {
+        UUID topicId = saveWithWriter(segments(10));
+
+        // Segments 5..14: half of them are already stored
+        List<VideoSegmentDTO> overlapping = segments(15).subList(5, 15);
+        transactionTemplate.executeWithoutResult(status -> writer.insertAll(topicId, overlapping));
+
+        assertThat(jdbcTemplate.queryForList(ROWS_SQL, topicId))
+                .extracting(row -> row.get("video_id"))
+                .containsExactlyElementsOf(IntStream.range(0, 15).mapToObj(i -> (Object) ("video-" + i)).toList());
+    }
+
+    @Test
+    void batchedInsertsNeedOneStatementPerBatch() {
+        for (int count : new int[]{1, 100, 10_000}) {
+            List<VideoSegmentDTO> segments = segments(count);
+            UUID cascadeTopic = saveTopic();
+            UUID batchTopic = saveTopic();
+
+            STATEMENTS.set(0);
+            long started = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> {
+                TopicEntity topic = topicRepository.findById(cascadeTopic).orElseThrow();
+                segments.forEach(segment -> topic.getVideoInsights().add(insight(topic, segment)));
+            });
+            long cascadeMillis = (System.nanoTime() - started) / 1_000_000;
+            long cascadeStatements = STATEMENTS.get();
+
+            STATEMENTS.set(0);
+            started = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> writer.insertAll(batchTopic, segments));
+            long batchMillis = (System.nanoTime() - started) / 1_000_000;
+            long batchStatements = STATEMENTS.get();
+
+            log.info("{} segments: cascade {} statements / {} ms, batch {} statements / {} ms", count,
+                    cascadeStatements, cascadeMillis, batchStatements, batchMillis);
+            assertThat(cascadeStatements).isGreaterThanOrEqualTo(count);
+            assertThat(batchStatements).isEqualTo((count + BATCH_SIZE - 1) / BATCH_SIZE);
+            if (count >= BATCH_SIZE) {
+                // A full batch replaces BATCH_SIZE round trips; the times above are logged, not asserted
+                assertThat(cascadeStatements / batchStatements).isGreaterThanOrEqualTo(BATCH_SIZE);
+            }
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM video_insights WHERE topic_id = ?",
+                    Long.class, batchTopic)).isEqualTo(count);
+        }
+    }
+
+    private UUID saveWithCascade(List<VideoSegmentDTO> segments) {
+        UUID topicId = saveTopic();
+        transactionTemplate.executeWithoutResult(status -> {
+            TopicEntity topic = topicRepository.findById(topicId).orElseThrow();
+            segments.forEach(segment -> topic.getVideoInsights().add(insight(topic, segment)));
+        });
+        return topicId;
+    }
+
+    private UUID saveWithWriter(List<VideoSegmentDTO> segments) {
+        UUID topicId = saveTopic();
+        transactionTemplate.executeWithoutResult(status -> writer.insertAll(topicId, segments));
+        return topicId;
+    }
+
+    private UUID saveTopic() {
+        return topicRepository.save(TopicEntity.builder()
+                .id(UUID.randomUUID())
+                .rawQuery("budget laptops for students")
+                .normalizedQuery("best budget laptop 2025 students")
+                .status(TopicStatusEntity.ANALYZING)
+                .videoInsights(new ArrayList<>())
+                .build()).getId();
+    }
+
+    private static VideoInsightEntity insight(TopicEntity topic, VideoSegmentDTO segment) {
+        return VideoInsightEntity.builder()
+                .topic(topic)
+                .videoId(segment.getVideoId())
+                .videoTitle(segment.getVideoTitle())
+                .videoUrl(segment.getVideoUrl())
+                .timestamp(segment.getTimestamp())
+                .bestExplanation(segment.getBestExplanation())
+                .segmentSummary(segment.getSegmentSummary())
+                .build();
+    }
+
+    private static List<VideoSegmentDTO> segments(int count) {
+        List<VideoSegmentDTO> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            VideoSegmentDTO segment = new VideoSegmentDTO();
+            segment.setVideoId("video-" + i);
+            segment.setVideoTitle("Video " + i);
+            segment.setVideoUrl("https://youtu.be/video-" + i);
+            segment.setTimestamp(String.format("%02d:%02d", i / 60 % 60, i % 60));
+            segment.setBestExplanation("Explanation " + i);
+            segment.setSegmentSummary("Summary " + i);
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * Wraps the DataSource so every statement execution, from Hibernate or JdbcTemplate, is counted.
+     */
+    @TestConfiguration
+    static class StatementCounting {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? counting(dataSource, DataSource.class) : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T counting(Object target, Class<T> type) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    STATEMENTS.incrementAndGet();
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                Class<?> returnType = method.getReturnType();
+                boolean wraps = returnType == java.sql.Connection.class || Statement.class.isAssignableFrom(returnType);
+                return result != null && wraps ? counting(result, returnType) : result;
+            });
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.vishal.aiyoutube.topic_management_service.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks which PostgreSQL index definitions of the video_insights key the startup migration accepts:
+ * only unique keys that treat NULL video ids and timestamps as equal. The migration itself needs a
+ * PostgreSQL server and is not run against H2.
+ */
+class VideoInsightKeyMigrationTest {
+
+    @Test
+    void acceptsOnlyNullSafeUniqueKeys() {
+        String hibernateDefault = "CREATE UNIQUE INDEX uk_video_insights_topic_video_ts ON public.video_insights " +
+                "USING btree (topic_id, video_id, \"timestamp\")";
+        String nullsNotDistinct = hibernateDefault + " NULLS NOT DISTINCT";
+        String coalesced = "CREATE UNIQUE INDEX uk_video_insights_topic_video_ts ON public.video_insights " +
+                "USING btree (topic_id, COALESCE(video_id, ''::character varying), " +
+                "COALESCE(\"timestamp\", ''::character varying))";
+
+        assertThat(VideoInsightKeyMigration.isNullSafe(null, 16)).isFalse();
+        assertThat(VideoInsightKeyMigration.isNullSafe(hibernateDefault, 16)).isFalse();
+        assertThat(VideoInsightKeyMigration.isNullSafe(nullsNotDistinct, 16)).isTrue();
+        assertThat(VideoInsightKeyMigration.isNullSafe(hibernateDefault, 14)).isFalse();
+        assertThat(VideoInsightKeyMigration.isNullSafe(coalesced, 14)).isTrue();
+        assertThat(VideoInsightKeyMigration.isNullSafe("CREATE INDEX uk_video_insights_topic_video_ts " +
+                "ON public.video_insights USING btree (topic_id, video_id, \"timestamp\") NULLS NOT DISTINCT", 16)).isFalse();
+    }
+}
@@ -0,0 +1,74 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies the local fallback extractor: filler removal, stemming, learned weighting, and that
+ * queries outside the ASCII alphabet still produce distinct keywords instead of an empty string.
+ */
+class LocalKeywordExtractorTest {
+
+    private final LocalKeywordExtractor extractor = new LocalKeywordExtractor(null, 0);
+
+    @Test
+    void dropsStopwordsFillerAndStrayLetters() {
+        assertThat(extractor.extract("Please tell me about India's union budget for 2026, and the tax slabs?"))
+                .isEqualTo("india union budget 2026 tax slabs");
+    }
+
+    @Test
+    void stemsConservatively() {
+        assertThat(LocalKeywordExtractor.stem("reviews")).isEqualTo("review");
+        assertThat(LocalKeywordExtractor.stem("batteries")).isEqualTo("battery");
+        assertThat(LocalKeywordExtractor.stem("charging")).isEqualTo("charg");
+        assertThat(LocalKeywordExtractor.stem("launched")).isEqualTo("launch");
+        assertThat(LocalKeywordExtractor.stem("watches")).isEqualTo("watch");
+        assertThat(LocalKeywordExtractor.stem("class")).isEqualTo("class");
+        assertThat(LocalKeywordExtractor.stem("bus")).isEqualTo("bus");
+
+        // One keyword per stem, first spelling wins
+        assertThat(extractor.extract("review reviews camera")).isEqualTo("review camera");
+    }
+
+    @Test
+    void learnedKeepRateAndNumbersDecideWhichSixSurvive() {
+        String query = "honest opinion latest pixel 9 camera battery performance comparison";
+        assertThat(extractor.extract(query).split(" ")).hasSize(6);
+
+        for (int i = 0; i < 20; i++) {
+            extractor.learn("honest opinion on the latest phone", "phone");
+            extractor.learn("pixel camera battery performance", "pixel camera battery performance");
+        }
+
+        assertThat(extractor.weight("honest")).isLessThan(extractor.weight("unseen"));
+        assertThat(extractor.weight("cameras")).isGreaterThan(extractor.weight("unseen"));
+        assertThat(extractor.weight("2026")).isGreaterThan(extractor.weight("unseen"));
+        // Kept in query order, not weight order
+        assertThat(extractor.extract(query)).isEqualTo("pixel 9 camera battery performance comparison");
+    }
+
+    @Test
+    void keepsNonLatinKeywordsDistinct() {
+        String hindi = extractor.extract("भारत का बजट 2026");
+        String japanese = extractor.extract("東京 ラーメン おすすめ");
+
+        assertThat(hindi).isEqualTo("भारत का बजट 2026");
+        assertThat(japanese).isEqualTo("東京 ラーメン おすすめ");
+        assertThat(QueryFingerprint.of(hindi)).isNotEqualTo(QueryFingerprint.of(japanese));
+        assertThat(extractor.extract("Café crème brûlée recipe")).isEqualTo("café crème brûlée recipe");
+    }
+
+    @Test
+    void fallsBackToStopwordsAndRejectsQueriesWithoutWords() {
+        assertThat(extractor.extract("What is it?")).isEqualTo("what is it");
+
+        assertThatThrownBy(() -> extractor.extract("?!  ..."))
+                .isInstanceOf(AnalysisProcessingException.class);
+        assertThatThrownBy(() -> extractor.extract(""))
+                .isInstanceOf(AnalysisProcessingException.class);
+    }
+}
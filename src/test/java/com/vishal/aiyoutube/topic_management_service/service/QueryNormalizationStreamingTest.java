@@ -0,0 +1,165 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.config.GrokClient;
+import com.vishal.aiyoutube.topic_management_service.config.GrokConcurrencyLimiter;
+import com.vishal.aiyoutube.topic_management_service.config.GrokHedgePolicy;
+import com.vishal.aiyoutube.topic_management_service.config.GrokConfig;
+import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Benchmark of streamed vs. buffered normalization against a local SSE stub of Groq.
+ * The stub emits one token every {@link #TOKEN_INTERVAL}: six keywords, a newline, and then a
+ * long verbose tail, mimicking a model that ignores the "keywords only" instruction.
+ * Also covers keep-alive frames and streams that end without content.
+ */
+@Slf4j
+class QueryNormalizationStreamingTest {
+
+    private static final Duration TOKEN_INTERVAL = Duration.ofMillis(20);
+    private static final List<String> TOKENS = completionTokens();
+
+    private final AtomicInteger tokensSent = new AtomicInteger();
+    private final AtomicBoolean streamCancelled = new AtomicBoolean();
+
+    private Supplier<Flux<String>> sseFrames = this::sseChunks;
+    private DisposableServer groqStub;
+    private GrokClient grokClient;
+
+    @BeforeEach
+    void setUp() {
+        groqStub = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.post("/openai/v1/chat/completions", (req, res) ->
+                        req.receive().aggregate().asString().flatMap(body -> body.contains("\"stream\":true")
+                                ? res.header("Content-Type", "text/event-stream")
+                                        .sendString(Flux.defer(() -> sseFrames.get()))
+                                        .then()
+                                : res.header("Content-Type", "application/json")
+                                        .sendString(Mono.delay(TOKEN_INTERVAL.multipliedBy(TOKENS.size()))
+                                                .map(tick -> fullCompletion()))
+                                        .then())))
+                .bindNow();
+
+        GrokConcurrencyLimiter concurrencyLimiter =
+                new GrokConcurrencyLimiter(new SimpleMeterRegistry(), 16, 1, 16, 16, Duration.ofSeconds(10));
+        grokClient = new GrokClient(new GrokConfig().grokWebClient(
+                "http://localhost:" + groqStub.port(), 30, 16, concurrencyLimiter), concurrencyLimiter,
+                new GrokHedgePolicy(new SimpleMeterRegistry(), false, 0.95, Duration.ofSeconds(1), 0.05, ""));
+        ReflectionTestUtils.setField(grokClient, "apiKey", "test-key");
+        ReflectionTestUtils.setField(grokClient, "model", "stub-model");
+        ReflectionTestUtils.setField(grokClient, "temperature", 0.7);
+        ReflectionTestUtils.setField(grokClient, "maxTokens", 32);
+    }
+
+    @AfterEach
+    void tearDown() {
+        groqStub.disposeNow();
+    }
+
+    @Test
+    void streamingReturnsUsableKeywordsLongBeforeFullCompletion() {
+        ReflectionTestUtils.setField(grokClient, "streamingEnabled", false);
+        long bufferedStart = System.nanoTime();
+        String buffered = grokClient.chatAsync(QueryNormalizationService.SEO_SYSTEM_PROMPT, "budget tax",
+                QueryNormalizationService::hasUsableKeywords).block();
+        Duration bufferedLatency = Duration.ofNanos(System.nanoTime() - bufferedStart);
+
+        ReflectionTestUtils.setField(grokClient, "streamingEnabled", true);
+        long streamedStart = System.nanoTime();
+        String streamed = grokClient.chatAsync(QueryNormalizationService.SEO_SYSTEM_PROMPT, "budget tax",
+                QueryNormalizationService::hasUsableKeywords).block();
+        Duration streamedLatency = Duration.ofNanos(System.nanoTime() - streamedStart);
+
+        log.info("Time to usable keywords: buffered={} ms, streamed={} ms ({} of {} tokens sent)",
+                bufferedLatency.toMillis(), streamedLatency.toMillis(), tokensSent.get(), TOKENS.size());
+
+        assertThat(QueryNormalizationService.sanitize(streamed))
+                .isEqualTo(QueryNormalizationService.sanitize(buffered))
+                .isEqualTo("India budget 2026 income tax slabs");
+        assertThat(streamedLatency.multipliedBy(4)).isLessThan(bufferedLatency);
+        assertThat(tokensSent.get()).isLessThan(TOKENS.size() / 4);
+        assertThat(streamCancelled).isTrue();
+    }
+
+    @Test
+    void usableKeywordsDetectedAtNewlineOrSixthWord() {
+        assertThat(QueryNormalizationService.hasUsableKeywords("India budget 2026 income")).isFalse();
+        assertThat(QueryNormalizationService.hasUsableKeywords("India budget\n")).isTrue();
+        assertThat(QueryNormalizationService.hasUsableKeywords("one two three four five six")).isFalse();
+        assertThat(QueryNormalizationService.hasUsableKeywords("one two three four five six ")).isTrue();
+    }
+
+    @Test
+    void keepAliveCommentsAreSkippedAndUsageIsReadFromTheFinalChunk() {
+        sseFrames = () -> Flux.just(
+                ": keep-alive\n\n",
+                "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n",
+                ": keep-alive\n\n",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"India budget\"}}]}\n\n",
+                "data: {\"choices\":[],\"usage\":{\"prompt_tokens\":74,\"completion_tokens\":2,\"total_tokens\":76}}\n\n",
+                "data: [DONE]\n\n");
+        ReflectionTestUtils.setField(grokClient, "streamingEnabled", true);
+
+        String streamed = grokClient.chatAsync(QueryNormalizationService.SEO_SYSTEM_PROMPT, "budget",
+                QueryNormalizationService::hasUsableKeywords).block();
+
+        assertThat(streamed).isEqualTo("India budget");
+    }
+
+    @Test
+    void streamWithoutContentFailsAsAnalysisError() {
+        sseFrames = () -> Flux.just(": keep-alive\n\n",
+                "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n", "data: [DONE]\n\n");
+        ReflectionTestUtils.setField(grokClient, "streamingEnabled", true);
+
+        assertThatThrownBy(() -> grokClient.chatAsync(QueryNormalizationService.SEO_SYSTEM_PROMPT, "budget",
+                QueryNormalizationService::hasUsableKeywords).block())
+                .isInstanceOf(AnalysisProcessingException.class)
+                .hasMessageContaining("without any content");
+    }
+
+    private Flux<String> sseChunks() {
+        return Flux.interval(TOKEN_INTERVAL)
+                .take(TOKENS.size())
+                .map(i -> {
+                    tokensSent.incrementAndGet();
+                    return "data: {\"choices\":[{\"delta\":{\"content\":\"" + TOKENS.get(i.intValue())
+                            .replace("\n", "\\n") + "\"}}]}\n\n";
+                })
+                .concatWith(Mono.just("data: [DONE]\n\n"))
+                .doOnCancel(() -> streamCancelled.set(true));
+    }
+
+    private static String fullCompletion() {
+        return "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\""
+                + String.join("", TOKENS).replace("\n", "\\n") + "\"}}]}";
+    }
+
+    private static List<String> completionTokens() {
+        List<String> tokens = new ArrayList<>(List.of("India", " budget", " 2026", " income", " tax", " slabs", "\n"));
+        for (int i = 0; i < 150; i++) {
+            tokens.add(" explanation");
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,100 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.dto.AnalysisCompletedEvent.VideoSegmentDTO;
+import com.vishal.aiyoutube.topic_management_service.entity.VideoInsightEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the in-process cost of merging one analysis event (50 segments, half of them
+ * already stored) into a topic with thousands of existing insights.
+ * * COMPARES:
+ * - anyMatchOverLoadedInsights: the former merge, a linear scan of the loaded insights per
+ *   incoming segment. It also required loading all existing rows, which is not measured here.
+ * - hashSetMerge: the current merge, which deduplicates the incoming segments by SegmentKey and
+ *   leaves existing rows to the unique constraint, so its cost does not depend on the topic size.
+ * * RUN:
+ * mvn test-compile, then execute {@link #main} with the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SegmentMergeBenchmark {
+
+    private static final int INCOMING = 50;
+
+    @Param({"1000", "5000", "20000"})
+    private int existingSegments;
+
+    private List<VideoInsightEntity> existing;
+    private List<VideoSegmentDTO> incoming;
+
+    @Setup
+    public void setUp() {
+        existing = new ArrayList<>(existingSegments);
+        for (int i = 0; i < existingSegments; i++) {
+            existing.add(VideoInsightEntity.builder()
+                    .videoId(videoId(i))
+                    .timestamp(timestamp(i))
+                    .build());
+        }
+        // Every other incoming segment repeats one the topic already has
+        incoming = new ArrayList<>(INCOMING);
+        for (int i = 0; i < INCOMING; i++) {
+            int moment = i % 2 == 0 ? existingSegments - 1 - i : existingSegments + i;
+            VideoSegmentDTO segment = new VideoSegmentDTO();
+            segment.setVideoId(videoId(moment));
+            segment.setTimestamp(timestamp(moment));
+            incoming.add(segment);
+        }
+    }
+
+    @Benchmark
+    public int anyMatchOverLoadedInsights() {
+        int appended = 0;
+        for (VideoSegmentDTO segment : incoming) {
+            boolean alreadyExists = existing.stream()
+                    .anyMatch(insight -> insight.getVideoId().equals(segment.getVideoId()) &&
+                            insight.getTimestamp().equals(segment.getTimestamp()));
+            if (!alreadyExists) {
+                appended++;
+            }
+        }
+        return appended;
+    }
+
+    @Benchmark
+    public int hashSetMerge() {
+        Map<SegmentKey, VideoSegmentDTO> merged = new LinkedHashMap<>();
+        for (VideoSegmentDTO segment : incoming) {
+            merged.putIfAbsent(SegmentKey.of(segment), segment);
+        }
+        return merged.size();
+    }
+
+    private static String videoId(int moment) {
+        return "video-" + (moment / 20);
+    }
+
+    private static String timestamp(int moment) {
+        int seconds = (moment % 20) * 45;
+        return String.format("%02d:%02d", seconds / 60, seconds % 60);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SegmentMergeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,164 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.AnalysisResultEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.VideoInsightEntity;
+import com.vishal.aiyoutube.topic_management_service.exceptions.AnalysisProcessingException;
+import com.vishal.aiyoutube.topic_management_service.kafka.producer.TopicEventProducer;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Asserts that the polling read path (getTopicDetails) costs exactly one SQL statement on a
+ * cache miss, however many video insights the topic has, and none on a cache hit, and that the
+ * version lookup behind a 304 loads neither the topic nor its insights, against an in-memory H2 schema.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({TopicServiceImpl.class, TopicResponseCache.class, VideoInsightBatchWriter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TopicDetailsQueryCountTest {
+
+    @Autowired
+    private TopicService topicService;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TopicResponseCache responseCache;
+
+    @MockBean
+    private TopicEventProducer eventProducer;
+
+    @MockBean
+    private QueryNormalizationService normalizationService;
+
+    @MockBean
+    private SingleFlight<String, TopicResponse> topicCreationFlight;
+
+    @MockBean
+    private ExecutorService topicTaskExecutor;
+
+    @MockBean
+    private TopicSimilarityIndex similarityIndex;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getTopicDetailsLoadsTopicResultAndInsightsInOneStatement() {
+        UUID topicId = saveTopicWithInsights(5);
+
+        statistics.clear();
+        TopicResponse response = topicService.getTopicDetails(topicId);
+
+        assertThat(response.getVideoHighlights()).hasSize(5);
+        assertThat(response.getSummary()).isEqualTo("Final summary");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    void repeatedPollsAreServedFromCacheUntilTheTopicChanges() {
+        UUID topicId = saveTopicWithInsights(3);
+        topicService.getTopicDetails(topicId);
+
+        statistics.clear();
+        topicService.getTopicDetails(topicId);
+        topicService.getTopicDetails(topicId);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        responseCache.onTopicChanged(new TopicChangedEvent(topicId));
+        topicService.getTopicDetails(topicId);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void conditionalGetVersionLookupNeverLoadsInsights() {
+        UUID topicId = saveTopicWithInsights(5);
+
+        statistics.clear();
+        long version = topicService.getTopicVersion(topicId);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+
+        // Once the details are cached, the version comes from the cache
+        assertThat(topicService.getTopicDetails(topicId).getVersion()).isEqualTo(version);
+        statistics.clear();
+        assertThat(topicService.getTopicVersion(topicId)).isEqualTo(version);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void unknownTopicIsNegativelyCached() {
+        UUID unknownId = UUID.randomUUID();
+
+        statistics.clear();
+        assertThatThrownBy(() -> topicService.getTopicDetails(unknownId)).isInstanceOf(AnalysisProcessingException.class);
+        assertThatThrownBy(() -> topicService.getTopicDetails(unknownId)).isInstanceOf(AnalysisProcessingException.class);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getTopicDetailsWithoutInsightsIsStillOneStatement() {
+        UUID topicId = saveTopicWithInsights(0);
+
+        statistics.clear();
+        TopicResponse response = topicService.getTopicDetails(topicId);
+
+        assertThat(response.getVideoHighlights()).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private UUID saveTopicWithInsights(int insights) {
+        TopicEntity topic = TopicEntity.builder()
+                .rawQuery("budget laptops for students")
+                .normalizedQuery("best budget laptop 2025 students")
+                .status(TopicStatusEntity.COMPLETED)
+                .analysisResult(new AnalysisResultEntity("Final summary", 0.8, 75.0, "Claims"))
+                .videoInsights(new ArrayList<>())
+                .build();
+        for (int i = 0; i < insights; i++) {
+            topic.getVideoInsights().add(VideoInsightEntity.builder()
+                    .topic(topic)
+                    .videoId("video-" + i)
+                    .videoTitle("Video " + i)
+                    .videoUrl("https://youtu.be/video-" + i)
+                    .timestamp("0" + i + ":00")
+                    .bestExplanation("Explanation " + i)
+                    .segmentSummary("Summary " + i)
+                    .build());
+        }
+        return topicRepository.save(topic).getId();
+    }
+}
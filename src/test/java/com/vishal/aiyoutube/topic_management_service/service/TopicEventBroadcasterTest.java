@@ -0,0 +1,100 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Races a topic's last stream closing against new streams opening for the same topic: every open
+ * stream must be registered for pushes, and closing it must give its slot of max-streams back.
+ */
+class TopicEventBroadcasterTest {
+
+    private static final int CLIENTS = 2;
+    private static final int ROUNDS = 100_000;
+
+    private final ExecutorService topicTaskExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService racers = Executors.newFixedThreadPool(CLIENTS);
+    private TopicEventBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+        racers.shutdownNow();
+        topicTaskExecutor.close();
+    }
+
+    @Test
+    void streamsChurningOnOneTopicAreNeitherLostNorLeaked() throws Exception {
+        TopicService topicService = mock(TopicService.class);
+        when(topicService.getTopicDetails(any())).thenAnswer(invocation -> TopicResponse.builder()
+                .topicId(invocation.getArgument(0))
+                .status(TopicStatusEntity.ANALYZING)
+                .version(1L)
+                .videoHighlights(List.of())
+                .build());
+        broadcaster = new TopicEventBroadcaster(topicService, topicTaskExecutor, new SimpleMeterRegistry(),
+                CLIENTS, Duration.ofMinutes(5), Duration.ofMinutes(5));
+        UUID topicId = UUID.randomUUID();
+
+        // Each client reconnects over and over, so the topic's last stream keeps closing while another opens
+        CyclicBarrier start = new CyclicBarrier(CLIENTS);
+        List<Future<?>> clients = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            clients.add(racers.submit(() -> {
+                start.await();
+                for (int round = 0; round < ROUNDS; round++) {
+                    SseEmitter stream = broadcaster.open(topicId, null);
+                    assertThat(subscribers(topicId)).as("a stream is registered while open").contains(stream);
+                    close(stream);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> client : clients) {
+            client.get(1, TimeUnit.MINUTES);
+        }
+
+        assertThat(broadcaster.openStreams()).isZero();
+        assertThat(subscribers(topicId)).isEmpty();
+    }
+
+    /**
+     * The emitters registered for the topic, i.e. the streams a change would be pushed to.
+     */
+    @SuppressWarnings("unchecked")
+    private List<SseEmitter> subscribers(UUID topicId) {
+        Map<UUID, Set<?>> subscribers = (Map<UUID, Set<?>>) ReflectionTestUtils.getField(broadcaster, "subscribers");
+        Set<?> watching = subscribers.getOrDefault(topicId, Set.of());
+        return watching.stream().map(subscriber -> (SseEmitter) ReflectionTestUtils.getField(subscriber, "emitter")).toList();
+    }
+
+    /**
+     * Runs the emitter's completion callback, as the servlet container does when a stream ends.
+     */
+    private static void close(SseEmitter emitter) {
+        ((Runnable) ReflectionTestUtils.getField(emitter, "completionCallback")).run();
+    }
+
+}
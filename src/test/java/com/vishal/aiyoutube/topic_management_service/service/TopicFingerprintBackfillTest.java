@@ -0,0 +1,76 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.entity.TopicEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the fingerprint backfill marks topics whose fingerprint is already taken with the
+ * owning topic, so a finished backfill costs one empty query on every later start.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(TopicFingerprintBackfill.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TopicFingerprintBackfillTest {
+
+    @Autowired
+    private TopicFingerprintBackfill backfill;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void duplicatesAreMarkedSoALaterRunIsOneEmptyQuery() {
+        UUID first = saveLegacyTopic("iphone 16 camera review");
+        UUID second = saveLegacyTopic("camera review iphone 16");
+        UUID unique = saveLegacyTopic("best budget laptop 2025");
+
+        backfill.backfill();
+
+        // Candidates are visited in id order, so either of the two same-fingerprint topics may win
+        TopicEntity winner = topicRepository.findById(first).orElseThrow();
+        TopicEntity duplicate = topicRepository.findById(second).orElseThrow();
+        if (winner.getQueryFingerprint() == null) {
+            TopicEntity swap = winner;
+            winner = duplicate;
+            duplicate = swap;
+        }
+        assertThat(winner.getQueryFingerprint()).isEqualTo(QueryFingerprint.of("iphone 16 camera review"));
+        assertThat(winner.getFingerprintOwnerId()).isNull();
+        assertThat(duplicate.getQueryFingerprint()).isNull();
+        assertThat(duplicate.getFingerprintOwnerId()).isEqualTo(winner.getId());
+        assertThat(topicRepository.findById(unique).orElseThrow().getQueryFingerprint()).isNotNull();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        backfill.backfill();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(topicRepository.findById(duplicate.getId()).orElseThrow().getFingerprintOwnerId())
+                .isEqualTo(winner.getId());
+    }
+
+    private UUID saveLegacyTopic(String normalizedQuery) {
+        return topicRepository.save(TopicEntity.builder()
+                .rawQuery(normalizedQuery)
+                .normalizedQuery(normalizedQuery)
+                .status(TopicStatusEntity.COMPLETED)
+                .build()).getId();
+    }
+}
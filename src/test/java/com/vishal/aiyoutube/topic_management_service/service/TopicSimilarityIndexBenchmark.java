@@ -0,0 +1,96 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of near-duplicate lookup latency in {@link TopicSimilarityIndex} at one million
+ * synthetic topics (6 keywords drawn from a 20k-word vocabulary, Zipf-like skew).
+ * * RUN:
+ * mvn test-compile, then execute {@link #main} with the test classpath (give it -Xmx2g). Before the
+ * JMH run, main builds an index outside JMH and logs its retained heap per million topics.
+ */
+@Slf4j
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TopicSimilarityIndexBenchmark {
+
+    private static final int TOPICS = 1_000_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 4096;
+
+    private TopicSimilarityIndex index;
+    private String[] nearDuplicates;
+    private String[] misses;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        index = build(random);
+        nearDuplicates = new String[QUERIES];
+        misses = new String[QUERIES];
+        SplittableRandom replay = new SplittableRandom(42);
+        for (int i = 0; i < QUERIES; i++) {
+            // Re-generate an indexed query and swap its last keyword
+            String query = query(replay);
+            nearDuplicates[i] = query.substring(0, query.lastIndexOf(' ')) + " swapped";
+            misses[i] = query(random);
+        }
+    }
+
+    @Benchmark
+    public Optional<UUID> lookupNearDuplicate() {
+        return index.findSimilar(nearDuplicates[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public Optional<UUID> lookupMiss() {
+        return index.findSimilar(misses[next++ & (QUERIES - 1)]);
+    }
+
+    private static TopicSimilarityIndex build(SplittableRandom random) {
+        TopicSimilarityIndex index = new TopicSimilarityIndex(null, null, true, 0.6);
+        for (int i = 0; i < TOPICS; i++) {
+            index.add(UUID.randomUUID(), query(random));
+        }
+        return index;
+    }
+
+    private static String query(SplittableRandom random) {
+        StringBuilder query = new StringBuilder();
+        for (int word = 0; word < 6; word++) {
+            // Squaring a uniform draw skews towards common words, as real keyword usage does
+            double u = random.nextDouble();
+            query.append(word == 0 ? "" : " ").append("w").append((int) (u * u * VOCABULARY));
+        }
+        return query.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        TopicSimilarityIndex index = build(new SplittableRandom(7));
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        log.info("Retained heap: {} MB per {} topics ({} bytes/topic)",
+                (after - before) >> 20, index.size(), (after - before) / index.size());
+
+        new Runner(new OptionsBuilder()
+                .include(TopicSimilarityIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,56 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies near-duplicate matching of the MinHash/LSH topic index.
+ */
+class TopicSimilarityIndexTest {
+
+    private final TopicSimilarityIndex index = new TopicSimilarityIndex(null, null, true, 0.6);
+
+    @Test
+    void findsQueryDifferingByOneKeyword() {
+        UUID laptops = UUID.randomUUID();
+        index.add(laptops, "best budget laptop 2025 students");
+        index.add(UUID.randomUUID(), "india union budget 2026 tax slabs");
+
+        assertThat(index.findSimilar("best cheap laptop 2025 students")).contains(laptops);
+        assertThat(index.findSimilar("Students 2025 best budget laptop")).contains(laptops);
+    }
+
+    @Test
+    void rejectsDissimilarOrNumericallyDifferentQueries() {
+        index.add(UUID.randomUUID(), "iphone 15 pro camera review");
+
+        assertThat(index.findSimilar("iphone 16 pro camera review")).isEmpty();
+        assertThat(index.findSimilar("pixel 9 pro battery test")).isEmpty();
+    }
+
+    @Test
+    void prefersTheClosestMatchAndIgnoresReAdds() {
+        UUID close = UUID.randomUUID();
+        index.add(UUID.randomUUID(), "electric car sales europe 2025 growth forecast");
+        index.add(close, "electric car sales europe 2025 growth");
+        index.add(close, "electric car sales europe 2025 growth");
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.findSimilar("electric car sales europe 2025 decline")).contains(close);
+    }
+
+    @Test
+    void keepsMatchingAcrossTableGrowth() {
+        for (int i = 0; i < 5000; i++) {
+            index.add(UUID.randomUUID(), "synthetic topic " + i + " keyword" + (i % 97) + " extra" + (i % 13));
+        }
+        UUID target = UUID.randomUUID();
+        index.add(target, "quantum computing startups funding india");
+
+        assertThat(index.size()).isEqualTo(5001);
+        assertThat(index.findSimilar("quantum computing startups funding asia")).contains(target);
+    }
+}
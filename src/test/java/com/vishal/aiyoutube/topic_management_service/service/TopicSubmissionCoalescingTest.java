@@ -0,0 +1,139 @@
+package com.vishal.aiyoutube.topic_management_service.service;
+
+import com.vishal.aiyoutube.topic_management_service.config.GrokClient;
+import com.vishal.aiyoutube.topic_management_service.dto.TopicRequest;
+import com.vishal.aiyoutube.topic_management_service.dto.TopicResponse;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicOutboxEntity;
+import com.vishal.aiyoutube.topic_management_service.entity.TopicStatusEntity;
+import com.vishal.aiyoutube.topic_management_service.repository.QueryNormalizationRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicOutboxRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.TopicRepository;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightBatchWriter;
+import com.vishal.aiyoutube.topic_management_service.repository.VideoInsightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Submits the same query many times at once and checks that the submissions share all the work:
+ * one Grok normalization, one find-or-create with one insert and one outbox row, and one response
+ * for everybody, with the single-flight leader/coalesced counters accounting for every caller.
+ * Grok and the first find-or-create are held until every submission has joined its flight, so the
+ * coalescing is deterministic.
+ */
+class TopicSubmissionCoalescingTest {
+
+    private static final int SUBMISSIONS = 200;
+    private static final String QUERY = "Best budget laptops for students?";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Sinks.One<String> grokAnswer = Sinks.one();
+    private final TopicRepository topicRepository = mock(TopicRepository.class);
+    private final TopicOutboxRepository outboxRepository = mock(TopicOutboxRepository.class);
+    private final GrokClient grokClient = mock(GrokClient.class);
+
+    private ExecutorService topicTaskExecutor;
+    private TopicServiceImpl topicService;
+
+    @BeforeEach
+    void setUp() {
+        topicTaskExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        when(grokClient.chatAsync(anyString(), anyString(), any())).thenReturn(grokAnswer.asMono());
+
+        QueryNormalizationRepository normalizationRepository = mock(QueryNormalizationRepository.class);
+        when(normalizationRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        // The leader's find-or-create waits until every submission has joined the creation flight
+        when(topicRepository.findByQueryFingerprint(anyString())).thenAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (flightRequests("topic-creation") < SUBMISSIONS && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            return Optional.empty();
+        });
+        when(topicRepository.insertIfAbsent(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        QueryNormalizationService normalizationService = new QueryNormalizationService(
+                grokClient, normalizationRepository, new SingleFlight<>("normalization", meterRegistry),
+                topicTaskExecutor, new LocalKeywordExtractor(topicRepository, 0), meterRegistry,
+                10_000, Duration.ofHours(1), false, Duration.ZERO);
+
+        topicService = new TopicServiceImpl(
+                topicRepository,
+                mock(VideoInsightRepository.class),
+                mock(VideoInsightBatchWriter.class),
+                outboxRepository,
+                normalizationService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SingleFlight<>("topic-creation", meterRegistry),
+                topicTaskExecutor,
+                new TopicSimilarityIndex(topicRepository, topicTaskExecutor, true, 0.6),
+                new TopicResponseCache(meterRegistry, 10_000, Duration.ofHours(1), Duration.ofSeconds(10), Duration.ofSeconds(2)),
+                event -> { });
+    }
+
+    @AfterEach
+    void tearDown() {
+        topicTaskExecutor.close();
+    }
+
+    @Test
+    void identicalConcurrentSubmissionsShareOneNormalizationOneInsertAndOneResponse() {
+        List<CompletableFuture<TopicResponse>> submissions = new ArrayList<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            // Spelling variants of one query share the canonical normalization key
+            TopicRequest request = new TopicRequest();
+            request.setQuery(i % 2 == 0 ? QUERY : "  best BUDGET laptops for students ");
+            submissions.add(topicService.createTopicRequestAsync(request));
+        }
+        assertThat(flightRequests("normalization")).isEqualTo(SUBMISSIONS);
+
+        grokAnswer.tryEmitValue("budget laptop students 2025 review");
+        List<TopicResponse> responses = submissions.stream()
+                .map(submission -> submission.orTimeout(30, TimeUnit.SECONDS).join())
+                .toList();
+
+        assertThat(responses).allSatisfy(response -> assertThat(response).isSameAs(responses.get(0)));
+        assertThat(responses.get(0).getStatus()).isEqualTo(TopicStatusEntity.PENDING);
+        assertThat(responses.get(0).getQuery()).isEqualTo("budget laptop students 2025 review");
+
+        verify(grokClient, times(1)).chatAsync(anyString(), anyString(), any());
+        verify(topicRepository, times(1)).findByQueryFingerprint(anyString());
+        verify(topicRepository, times(1)).insertIfAbsent(any(), any(), any(), any(), any(), any(), any());
+        verify(outboxRepository, times(1)).save(any(TopicOutboxEntity.class));
+
+        for (String flight : List.of("normalization", "topic-creation")) {
+            assertThat(flightCounter(flight, "leader")).as(flight).isEqualTo(1);
+            assertThat(flightCounter(flight, "coalesced")).as(flight).isEqualTo(SUBMISSIONS - 1);
+        }
+    }
+
+    private double flightRequests(String flight) {
+        return flightCounter(flight, "leader") + flightCounter(flight, "coalesced");
+    }
+
+    private double flightCounter(String flight, String role) {
+        return meterRegistry.counter("topic.singleflight.requests", "flight", flight, "role", role).count();
+    }
+}